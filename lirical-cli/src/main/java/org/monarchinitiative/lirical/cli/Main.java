@@ -38,7 +38,8 @@ public class Main implements Callable<Integer> {
                 .addSubcommand("prioritize", new PrioritizeCommand())
                 .addSubcommand("phenopacket", new PhenopacketCommand())
                 .addSubcommand("yaml", new YamlCommand())
-                .addSubcommand("benchmark", new BenchmarkCommand());
+                .addSubcommand("benchmark", new BenchmarkCommand())
+                .addSubcommand("precompute", new PrecomputeCommand());
         cline.setToggleBooleanFlags(false);
         System.exit(cline.execute(args));
     }
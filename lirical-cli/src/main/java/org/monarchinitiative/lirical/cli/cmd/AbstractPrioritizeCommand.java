@@ -74,46 +74,46 @@ abstract class AbstractPrioritizeCommand extends BaseLiricalCommand {
             throw new LiricalException(String.format("Errors: %s", String.join(", ", errors)));
 
         // 1 - bootstrap the app
-        Lirical lirical = bootstrapLirical();
-
-        // 2 - prepare inputs
-        LOGGER.info("Preparing the analysis data");
-        AnalysisData analysisData = prepareAnalysisData(lirical);
-        if (analysisData.presentPhenotypeTerms().isEmpty() && analysisData.negatedPhenotypeTerms().isEmpty()) {
-            LOGGER.warn("No phenotype terms were provided. Aborting..");
-            return 1;
-        }
+        try (Lirical lirical = bootstrapLirical()) {
+            // 2 - prepare inputs
+            LOGGER.info("Preparing the analysis data");
+            AnalysisData analysisData = prepareAnalysisData(lirical);
+            if (analysisData.presentPhenotypeTerms().isEmpty() && analysisData.negatedPhenotypeTerms().isEmpty()) {
+                LOGGER.warn("No phenotype terms were provided. Aborting..");
+                return 1;
+            }
 
-        // 3 - run the analysis
-        AnalysisOptions analysisOptions = prepareAnalysisOptions(lirical);
-        LOGGER.info("Starting the analysis");
-        LiricalAnalysisRunner analysisRunner = lirical.analysisRunner();
-        AnalysisResults results = analysisRunner.run(analysisData, analysisOptions);
-
-        // 4 - write out the results
-        LOGGER.info("Writing out the results");
-        FilteringStats filteringStats = analysisData.genes().computeFilteringStats();
-        AnalysisResultsMetadata metadata = AnalysisResultsMetadata.builder()
-                .setLiricalVersion(LIRICAL_VERSION)
-                .setHpoVersion(lirical.phenotypeService().hpo().getMetaInfo().getOrDefault("release", "UNKNOWN RELEASE"))
-                .setTranscriptDatabase(runConfiguration.transcriptDb.toString())
-                .setLiricalPath(dataSection.liricalDataDirectory.toAbsolutePath().toString())
-                .setExomiserPath(dataSection.exomiserDatabase == null ? "" : dataSection.exomiserDatabase.toAbsolutePath().toString())
-                .setAnalysisDate(getTodaysDate())
-                .setSampleName(analysisData.sampleId())
-                .setnGoodQualityVariants(filteringStats.nGoodQualityVariants())
-                .setnFilteredVariants(filteringStats.nFilteredVariants())
-                .setGenesWithVar(0) // TODO
-                .setGlobalMode(runConfiguration.globalAnalysisMode)
-                .build();
-
-        OutputOptions outputOptions = createOutputOptions();
-        lirical.analysisResultsWriterFactory()
-                .getWriter(analysisData, results, metadata)
-                .process(outputOptions);
-
-        reportElapsedTime(start, System.currentTimeMillis());
-        return 0;
+            // 3 - run the analysis
+            AnalysisOptions analysisOptions = prepareAnalysisOptions(lirical);
+            LOGGER.info("Starting the analysis");
+            LiricalAnalysisRunner analysisRunner = lirical.analysisRunner();
+            AnalysisResults results = analysisRunner.run(analysisData, analysisOptions);
+
+            // 4 - write out the results
+            LOGGER.info("Writing out the results");
+            FilteringStats filteringStats = analysisData.genes().computeFilteringStats();
+            AnalysisResultsMetadata metadata = AnalysisResultsMetadata.builder()
+                    .setLiricalVersion(LIRICAL_VERSION)
+                    .setHpoVersion(lirical.phenotypeService().hpo().getMetaInfo().getOrDefault("release", "UNKNOWN RELEASE"))
+                    .setTranscriptDatabase(runConfiguration.transcriptDb.toString())
+                    .setLiricalPath(dataSection.liricalDataDirectory.toAbsolutePath().toString())
+                    .setExomiserPath(dataSection.exomiserDatabase == null ? "" : dataSection.exomiserDatabase.toAbsolutePath().toString())
+                    .setAnalysisDate(getTodaysDate())
+                    .setSampleName(analysisData.sampleId())
+                    .setnGoodQualityVariants(filteringStats.nGoodQualityVariants())
+                    .setnFilteredVariants(filteringStats.nFilteredVariants())
+                    .setGenesWithVar(0) // TODO
+                    .setGlobalMode(runConfiguration.globalAnalysisMode)
+                    .build();
+
+            OutputOptions outputOptions = createOutputOptions();
+            lirical.analysisResultsWriterFactory()
+                    .getWriter(analysisData, results, metadata)
+                    .process(outputOptions);
+
+            reportElapsedTime(start, System.currentTimeMillis());
+            return 0;
+        }
     }
 
     protected List<String> checkInput() {
@@ -13,7 +13,6 @@ import org.monarchinitiative.lirical.core.io.VariantParserFactory;
 import org.monarchinitiative.lirical.core.model.*;
 import org.monarchinitiative.lirical.core.service.TranscriptDatabase;
 import org.monarchinitiative.lirical.io.LiricalDataException;
-import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
 import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -115,6 +114,38 @@ abstract class BaseLiricalCommand implements Callable<Integer> {
         @CommandLine.Option(names = {"--default-allele-frequency"},
                 description = "Variant with greater allele frequency in at least one population is considered common (default: ${DEFAULT-VALUE}).")
         public float defaultAlleleFrequency = 1E-5f;
+
+        @CommandLine.Option(names = {"--persist-disease-graphs"},
+                description = "Store the induced disease graphs in the Lirical data directory to speed up the subsequent runs (default: ${DEFAULT-VALUE}).")
+        public boolean persistInducedDiseaseGraphs = false;
+
+        @CommandLine.Option(names = {"--phenotype-lr-cache-size"},
+                description = "Maximum number of phenotype LRs cached to be reused across the analyzed cases, 0 disables the cache (default: ${DEFAULT-VALUE}).")
+        public int phenotypeLrCacheSize = 0;
+
+        @CommandLine.Option(names = {"--precomputed-phenotype-lrs"},
+                description = "Look up the phenotype LRs precomputed by the `precompute` command, if available (default: ${DEFAULT-VALUE}).")
+        public boolean usePrecomputedPhenotypeLrs = false;
+
+        @CommandLine.Option(names = {"--parallelism"},
+                description = "Number of worker threads used to analyze the diseases (default: ${DEFAULT-VALUE}).")
+        public int parallelism = Runtime.getRuntime().availableProcessors();
+
+        @CommandLine.Option(names = {"--annotation-workers"},
+                description = "Number of worker threads used to annotate the VCF variants, 0 to annotate on the main thread (default: ${DEFAULT-VALUE}).")
+        public int annotationWorkers = 0;
+
+        @CommandLine.Option(names = {"--lookup-workers"},
+                description = "Number of worker threads used to look up the variant metadata if the annotation workers are used (default: ${DEFAULT-VALUE}).")
+        public int lookupWorkers = 1;
+
+        @CommandLine.Option(names = {"--contig-workers"},
+                description = "Number of worker threads used to read the contigs of an indexed VCF file, 0 to read the file sequentially (default: ${DEFAULT-VALUE}).")
+        public int contigWorkers = 0;
+
+        @CommandLine.Option(names = {"--disease-gene-regions"},
+                description = "Only read the VCF records located in the regions of the disease-associated genes (default: ${DEFAULT-VALUE}).")
+        public boolean restrictVariantsToDiseaseGenes = false;
     }
 
     private static Properties readProperties() {
@@ -140,6 +171,26 @@ abstract class BaseLiricalCommand implements Callable<Integer> {
             LOGGER.error(msg);
             errors.add(msg);
         }
+        if (runConfiguration.parallelism <= 0) {
+            String msg = "Parallelism (--parallelism) must be positive: %d".formatted(runConfiguration.parallelism);
+            LOGGER.error(msg);
+            errors.add(msg);
+        }
+        if (runConfiguration.annotationWorkers < 0) {
+            String msg = "Annotation workers (--annotation-workers) must not be negative: %d".formatted(runConfiguration.annotationWorkers);
+            LOGGER.error(msg);
+            errors.add(msg);
+        }
+        if (runConfiguration.contigWorkers < 0) {
+            String msg = "Contig workers (--contig-workers) must not be negative: %d".formatted(runConfiguration.contigWorkers);
+            LOGGER.error(msg);
+            errors.add(msg);
+        }
+        if (runConfiguration.annotationWorkers > 0 && runConfiguration.lookupWorkers <= 0) {
+            String msg = "Lookup workers (--lookup-workers) must be positive: %d".formatted(runConfiguration.lookupWorkers);
+            LOGGER.error(msg);
+            errors.add(msg);
+        }
         return errors;
     }
 
@@ -161,6 +212,13 @@ abstract class BaseLiricalCommand implements Callable<Integer> {
                 .genotypeLrProperties(genotypeLrProperties)
                 .transcriptDatabase(runConfiguration.transcriptDb)
                 .defaultVariantAlleleFrequency(runConfiguration.defaultAlleleFrequency)
+                .persistInducedDiseaseGraphs(runConfiguration.persistInducedDiseaseGraphs)
+                .phenotypeLrCacheSize(runConfiguration.phenotypeLrCacheSize)
+                .usePrecomputedPhenotypeLrs(runConfiguration.usePrecomputedPhenotypeLrs)
+                .parallelism(runConfiguration.parallelism)
+                .variantParsingWorkers(runConfiguration.annotationWorkers, runConfiguration.lookupWorkers)
+                .vcfContigWorkers(runConfiguration.contigWorkers)
+                .restrictVariantsToDiseaseGenes(runConfiguration.restrictVariantsToDiseaseGenes)
                 .build();
     }
 
@@ -190,8 +248,8 @@ abstract class BaseLiricalCommand implements Callable<Integer> {
             return GenesAndGenotypes.empty();
         }
 
-        List<LiricalVariant> variants;
-        try (VariantParser variantParser = parserFactory.forPath(vcfPath)) {
+        GenesAndGenotypes genes;
+        try (VariantParser variantParser = parserFactory.forPath(vcfPath, List.of(sampleId))) {
             // Ensure the VCF file contains the sample
             if (!variantParser.sampleNames().contains(sampleId))
                 throw new LiricalParseException("The sample " + sampleId + " is not present in VCF at '" + vcfPath.toAbsolutePath() + '\'');
@@ -200,33 +258,21 @@ abstract class BaseLiricalCommand implements Callable<Integer> {
             // Read variants
             LOGGER.info("Reading variants from {}", vcfPath.toAbsolutePath());
             ProgressReporter progressReporter = new ProgressReporter();
-            variants = variantParser.variantStream()
+            // Group the variants by gene as they are read.
+            genes = variantParser.variantStream()
                     .peek(v -> progressReporter.log())
-                    .toList();
+                    .collect(GenesAndGenotypes.collector());
             progressReporter.summarize();
         } catch (Exception e) {
             throw new LiricalParseException(e);
         }
 
-        return prepareGenesAndGenotypes(variants);
+        return genes;
     }
 
     protected static GenesAndGenotypes prepareGenesAndGenotypes(List<LiricalVariant> variants) {
-        // Group variants by Entrez ID.
-        Map<GeneIdentifier, List<LiricalVariant>> gene2Genotype = new HashMap<>();
-        for (LiricalVariant variant : variants) {
-            variant.annotations().stream()
-                    .map(TranscriptAnnotation::getGeneId)
-                    .distinct()
-                    .forEach(geneId -> gene2Genotype.computeIfAbsent(geneId, e -> new LinkedList<>()).add(variant));
-        }
-
-        // Collect the variants into Gene2Genotype container
-        List<Gene2Genotype> g2g = gene2Genotype.entrySet().stream()
-                .map(e -> Gene2Genotype.of(e.getKey(), e.getValue()))
-                .toList();
-
-        return GenesAndGenotypes.of(g2g);
+        return variants.stream()
+                .collect(GenesAndGenotypes.collector());
     }
 
     protected static void reportElapsedTime(long startTime, long stopTime) {
@@ -78,30 +78,30 @@ public class BenchmarkCommand extends BaseLiricalCommand {
             throw new LiricalException(String.format("Errors: %s", String.join(", ", errors)));
 
         // 1 - bootstrap LIRICAL.
-        Lirical lirical = bootstrapLirical();
-
-        // 2 - prepare the simulation data shared by all phenopackets.
-        AnalysisOptions analysisOptions = prepareAnalysisOptions(lirical);
-        List<LiricalVariant> backgroundVariants = readBackgroundVariants(lirical);
-
-        try (BufferedWriter writer = openWriter(outputPath);
-             CSVPrinter printer = CSVFormat.DEFAULT.print(writer)) {
-            printer.printRecord("phenopacket", "background_vcf", "sample_id", "rank",
-                    "is_causal", "disease_id", "post_test_proba"); // header
-
-            for (Path phenopacketPath : phenopacketPaths) {
-                // 3 - prepare benchmark data per phenopacket
-                BenchmarkData benchmarkData = prepareBenchmarkData(lirical, backgroundVariants, phenopacketPath);
-
-                // 4 - run the analysis.
-                LOGGER.info("Starting the analysis: {}", analysisOptions);
-                LiricalAnalysisRunner analysisRunner = lirical.analysisRunner();
-                AnalysisResults results = analysisRunner.run(benchmarkData.analysisData(), analysisOptions);
-
-                // 5 - summarize the results.
-                String phenopacketName = phenopacketPath.toFile().getName();
-                String backgroundVcf = vcfPath == null ? "" : vcfPath.toFile().getName();
-                writeResults(phenopacketName, backgroundVcf, benchmarkData, results, printer);
+        try (Lirical lirical = bootstrapLirical()) {
+            // 2 - prepare the simulation data shared by all phenopackets.
+            AnalysisOptions analysisOptions = prepareAnalysisOptions(lirical);
+            List<LiricalVariant> backgroundVariants = readBackgroundVariants(lirical);
+
+            try (BufferedWriter writer = openWriter(outputPath);
+                 CSVPrinter printer = CSVFormat.DEFAULT.print(writer)) {
+                printer.printRecord("phenopacket", "background_vcf", "sample_id", "rank",
+                        "is_causal", "disease_id", "post_test_proba"); // header
+
+                for (Path phenopacketPath : phenopacketPaths) {
+                    // 3 - prepare benchmark data per phenopacket
+                    BenchmarkData benchmarkData = prepareBenchmarkData(lirical, backgroundVariants, phenopacketPath);
+
+                    // 4 - run the analysis.
+                    LOGGER.info("Starting the analysis: {}", analysisOptions);
+                    LiricalAnalysisRunner analysisRunner = lirical.analysisRunner();
+                    AnalysisResults results = analysisRunner.run(benchmarkData.analysisData(), analysisOptions);
+
+                    // 5 - summarize the results.
+                    String phenopacketName = phenopacketPath.toFile().getName();
+                    String backgroundVcf = vcfPath == null ? "" : vcfPath.toFile().getName();
+                    writeResults(phenopacketName, backgroundVcf, benchmarkData, results, printer);
+                }
             }
         }
         LOGGER.info("Benchmark results were stored to {}", outputPath.toAbsolutePath());
@@ -245,8 +245,8 @@ public class BenchmarkCommand extends BaseLiricalCommand {
                                      AnalysisResults results,
                                      CSVPrinter printer) {
         AtomicInteger rankCounter = new AtomicInteger();
-        results.resultsWithDescendingPostTestProbability()
-                .forEachOrdered(result -> {
+        results.rankedResults()
+                .forEach(result -> {
                     int rank = rankCounter.incrementAndGet();
                     try {
                         printer.print(phenopacketName);
@@ -0,0 +1,72 @@
+package org.monarchinitiative.lirical.cli.cmd;
+
+import org.monarchinitiative.lirical.configuration.LiricalBuilder;
+import org.monarchinitiative.lirical.core.likelihoodratio.HpoTermIndex;
+import org.monarchinitiative.lirical.core.likelihoodratio.InducedDiseaseGraphs;
+import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLrMatrix;
+import org.monarchinitiative.lirical.core.service.PhenotypeService;
+import org.monarchinitiative.lirical.io.LiricalDataException;
+import org.monarchinitiative.lirical.io.LiricalDataResolver;
+import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Precompute the phenotype likelihood ratios of all diseases and phenotypic abnormality terms and store them
+ * in the LIRICAL data directory. The LRs are used by the analysis commands run with
+ * the <code>--precomputed-phenotype-lrs</code> option.
+ */
+@CommandLine.Command(name = "precompute",
+        sortOptions = false,
+        mixinStandardHelpOptions = true,
+        description = "Precompute phenotype likelihood ratios for the analysis.")
+public class PrecomputeCommand implements Callable<Integer> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrecomputeCommand.class);
+
+    @CommandLine.Option(names = {"-d", "--data"},
+            required = true,
+            description = "Path to Lirical data directory.")
+    public Path liricalDataDirectory;
+
+    @CommandLine.Option(names = {"--use-orphanet"},
+            description = "Use Orphanet annotation data (default: ${DEFAULT-VALUE}).")
+    public boolean useOrphanet = false;
+
+    @CommandLine.Option(names = {"-o", "--output"},
+            description = "Path to the output file (default: file in the Lirical data directory).")
+    public Path output = null;
+
+    @Override
+    public Integer call() {
+        try {
+            PhenotypeService phenotypeService = LiricalBuilder.builder(liricalDataDirectory)
+                    .setDiseaseDatabases(useOrphanet
+                            ? DiseaseDatabase.allKnownDiseaseDatabases()
+                            : Set.of(DiseaseDatabase.OMIM, DiseaseDatabase.DECIPHER))
+                    .buildPhenotypeService();
+            Path outputPath = output == null
+                    ? LiricalDataResolver.of(liricalDataDirectory).phenotypeLrMatrix()
+                    : output;
+
+            HpoTermIndex termIndex = HpoTermIndex.of(phenotypeService.hpo());
+            InducedDiseaseGraphs graphs = InducedDiseaseGraphs.create(phenotypeService.diseases(), termIndex);
+            PhenotypeLikelihoodRatio phenotypeLr = new PhenotypeLikelihoodRatio(termIndex, phenotypeService.diseases());
+
+            LOGGER.info("Writing precomputed phenotype LRs to {}", outputPath.toAbsolutePath());
+            PhenotypeLrMatrix.write(phenotypeLr, phenotypeService.diseases(), graphs, outputPath);
+            LOGGER.info("Done!");
+            return 0;
+        } catch (LiricalDataException | IOException e) {
+            LOGGER.error("Error: {}", e.getMessage(), e);
+            return 1;
+        }
+    }
+}
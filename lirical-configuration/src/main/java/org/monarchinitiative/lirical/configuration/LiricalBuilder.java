@@ -8,7 +8,12 @@ import org.monarchinitiative.lirical.core.analysis.LiricalAnalysisRunner;
 import org.monarchinitiative.lirical.core.analysis.LiricalAnalysisRunnerImpl;
 import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbability;
 import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.HpoTermIndex;
+import org.monarchinitiative.lirical.core.likelihoodratio.InducedDiseaseGraphs;
 import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLrCache;
+import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLrMatrix;
+import org.monarchinitiative.lirical.core.likelihoodratio.PrecomputedPhenotypeLikelihoodRatio;
 import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.lirical.core.output.AnalysisResultWriterFactory;
 import org.monarchinitiative.lirical.core.service.*;
@@ -18,7 +23,10 @@ import org.monarchinitiative.lirical.io.LiricalDataException;
 import org.monarchinitiative.lirical.io.LiricalDataResolver;
 import org.monarchinitiative.lirical.core.io.VariantParserFactory;
 import org.monarchinitiative.lirical.io.service.JannovarFunctionalVariantAnnotator;
+import org.monarchinitiative.lirical.io.service.JannovarGeneRegions;
+import org.monarchinitiative.lirical.io.vcf.GenomicRegionIndex;
 import org.monarchinitiative.lirical.io.vcf.VcfVariantParserFactory;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoAssociationData;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
 import org.monarchinitiative.phenol.annotations.io.hpo.DiseaseDatabase;
@@ -31,9 +39,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class LiricalBuilder {
 
@@ -51,6 +63,15 @@ public class LiricalBuilder {
     private PhenotypeLikelihoodRatio phenotypeLikelihoodRatio = null;
     private GenotypeLikelihoodRatio genotypeLikelihoodRatio = null;
     private PhenotypeService phenotypeService = null;
+    private boolean persistInducedDiseaseGraphs = false;
+    private int phenotypeLrCacheSize = 0;
+    private boolean usePrecomputedPhenotypeLrs = false;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool forkJoinPool = null;
+    private int variantAnnotationWorkers = 0;
+    private int variantLookupWorkers = 0;
+    private int vcfContigWorkers = 0;
+    private boolean restrictVariantsToDiseaseGenes = false;
 
     private VariantMetadataService variantMetadataService = null;
     private FunctionalVariantAnnotator functionalVariantAnnotator = null;
@@ -154,6 +175,98 @@ public class LiricalBuilder {
         return this;
     }
 
+    /**
+     * @param persistInducedDiseaseGraphs store the induced disease graphs in the LIRICAL data directory
+     *                                    and reuse them in the subsequent runs.
+     */
+    public LiricalBuilder persistInducedDiseaseGraphs(boolean persistInducedDiseaseGraphs) {
+        this.persistInducedDiseaseGraphs = persistInducedDiseaseGraphs;
+        return this;
+    }
+
+    /**
+     * @param phenotypeLrCacheSize the maximum number of phenotype LRs cached to be reused across the analyzed cases,
+     *                             <code>0</code> disables the cache. The option is ignored if the
+     *                             {@link PhenotypeLikelihoodRatio} is provided.
+     */
+    public LiricalBuilder phenotypeLrCacheSize(int phenotypeLrCacheSize) {
+        if (phenotypeLrCacheSize < 0)
+            throw new IllegalArgumentException("Phenotype LR cache size must not be negative: " + phenotypeLrCacheSize);
+        this.phenotypeLrCacheSize = phenotypeLrCacheSize;
+        return this;
+    }
+
+    /**
+     * @param usePrecomputedPhenotypeLrs look up the phenotype LRs in the file with precomputed LRs if the file
+     *                                   is present in the LIRICAL data directory. The option is ignored if the
+     *                                   {@link PhenotypeLikelihoodRatio} is provided.
+     */
+    public LiricalBuilder usePrecomputedPhenotypeLrs(boolean usePrecomputedPhenotypeLrs) {
+        this.usePrecomputedPhenotypeLrs = usePrecomputedPhenotypeLrs;
+        return this;
+    }
+
+    /**
+     * @param parallelism the number of workers of the pool used by the analysis runner. The option is ignored if the
+     *                    {@link #forkJoinPool(ForkJoinPool)} is provided.
+     */
+    public LiricalBuilder parallelism(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @param forkJoinPool the pool for running the analyses, e.g. to share the pool among several {@link Lirical}
+     *                     instances. The pool is not shut down when {@link Lirical} is closed.
+     */
+    public LiricalBuilder forkJoinPool(ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
+
+    /**
+     * Annotate the VCF variants and look up their metadata in pools of workers while a reader thread decodes
+     * the VCF records. By default, the variants are processed on the thread that consumes the variants.
+     *
+     * @param annotationWorkers the number of variant annotation workers or <code>0</code> to process the variants
+     *                          on the consumer thread.
+     * @param lookupWorkers the number of metadata lookup workers, a positive integer if the annotation workers are used.
+     */
+    public LiricalBuilder variantParsingWorkers(int annotationWorkers, int lookupWorkers) {
+        if (annotationWorkers < 0)
+            throw new IllegalArgumentException("The number of annotation workers must not be negative: " + annotationWorkers);
+        if (annotationWorkers > 0 && lookupWorkers <= 0)
+            throw new IllegalArgumentException("The number of lookup workers must be positive: " + lookupWorkers);
+        this.variantAnnotationWorkers = annotationWorkers;
+        this.variantLookupWorkers = lookupWorkers;
+        return this;
+    }
+
+    /**
+     * Read the contigs of the indexed VCF files concurrently. The VCF files without a tabix or tribble index
+     * are read as configured by {@link #variantParsingWorkers(int, int)}.
+     *
+     * @param contigWorkers the number of workers that read the contigs or <code>0</code> to read the VCF files sequentially.
+     */
+    public LiricalBuilder vcfContigWorkers(int contigWorkers) {
+        if (contigWorkers < 0)
+            throw new IllegalArgumentException("The number of contig workers must not be negative: " + contigWorkers);
+        this.vcfContigWorkers = contigWorkers;
+        return this;
+    }
+
+    /**
+     * @param restrictVariantsToDiseaseGenes only read the VCF records that overlap the transcripts
+     *                                       of the disease-associated genes, padded by
+     *                                       {@link JannovarGeneRegions#DEFAULT_PADDING} bases.
+     */
+    public LiricalBuilder restrictVariantsToDiseaseGenes(boolean restrictVariantsToDiseaseGenes) {
+        this.restrictVariantsToDiseaseGenes = restrictVariantsToDiseaseGenes;
+        return this;
+    }
+
     /**
      * @deprecated pretest probability does not belong to the global configuration but to per-sample config (to be removed in v2.0.0).
      * @return the builder
@@ -173,16 +286,59 @@ public class LiricalBuilder {
         return this;
     }
 
-    public Lirical build() throws LiricalDataException {
-        // First, services
+    /**
+     * Build the {@link PhenotypeService} or return the provided service.
+     * The service is reused by {@link #build()}.
+     */
+    public PhenotypeService buildPhenotypeService() throws LiricalDataException {
         if (phenotypeService == null) {
             HpoDiseaseLoaderOptions diseaseLoaderOptions = HpoDiseaseLoaderOptions.of(diseaseDatabases, true, HpoDiseaseLoaderOptions.DEFAULT_COHORT_SIZE);
             phenotypeService = configurePhenotypeService(dataDirectory, diseaseLoaderOptions);
         }
+        return phenotypeService;
+    }
+
+    private VariantParserFactory variantParserFactory(GenomicAssembly genomicAssembly, JannovarData jannovarData) throws LiricalDataException {
+        VcfVariantParserFactory factory;
+        if (vcfContigWorkers > 0)
+            factory = VcfVariantParserFactory.contigParallel(genomicAssembly, functionalVariantAnnotator, variantMetadataService, vcfContigWorkers);
+        else if (variantAnnotationWorkers == 0)
+            factory = VcfVariantParserFactory.of(genomicAssembly, functionalVariantAnnotator, variantMetadataService);
+        else
+            factory = VcfVariantParserFactory.of(genomicAssembly, functionalVariantAnnotator, variantMetadataService, variantAnnotationWorkers, variantLookupWorkers);
+
+        if (restrictVariantsToDiseaseGenes) {
+            if (jannovarData == null) {
+                LOGGER.debug("Loading Jannovar transcript database for {} transcripts to find the disease gene regions.", transcriptDatabase);
+                jannovarData = loadJannovarData(liricalDataResolver, genomeBuild, transcriptDatabase);
+            }
+            factory = factory.withRegions(diseaseGeneRegions(genomicAssembly, jannovarData));
+        }
+        return factory;
+    }
+
+    private GenomicRegionIndex diseaseGeneRegions(GenomicAssembly genomicAssembly, JannovarData jannovarData) {
+        HpoAssociationData associationData = phenotypeService.associationData();
+        Map<TermId, String> geneIdToSymbol = associationData.getGeneIdentifiers().stream()
+                .collect(Collectors.toMap(GeneIdentifier::id, GeneIdentifier::symbol, (a, b) -> a));
+        List<String> symbols = associationData.associations().geneIdToDiseaseIds().entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .map(e -> geneIdToSymbol.get(e.getKey()))
+                .filter(Objects::nonNull)
+                .toList();
+        GenomicRegionIndex regions = GenomicRegionIndex.of(JannovarGeneRegions.of(jannovarData, genomicAssembly, symbols, JannovarGeneRegions.DEFAULT_PADDING));
+        LOGGER.debug("Reading the variants in {} regions of {} disease genes", regions.size(), symbols.size());
+        return regions;
+    }
+
+    public Lirical build() throws LiricalDataException {
+        // First, services
+        buildPhenotypeService();
 
+        JannovarData jannovarData = null;
         if (functionalVariantAnnotator == null) {
             LOGGER.debug("Functional variant annotator is unset. Loading Jannovar transcript database for {} transcripts.", transcriptDatabase);
-            JannovarData jannovarData = loadJannovarData(liricalDataResolver, genomeBuild, transcriptDatabase);
+            jannovarData = loadJannovarData(liricalDataResolver, genomeBuild, transcriptDatabase);
             functionalVariantAnnotator = JannovarFunctionalVariantAnnotator.of(jannovarData, phenotypeService.associationData().getGeneIdentifiers());
         }
 
@@ -198,21 +354,36 @@ public class LiricalBuilder {
             } else {
                 LOGGER.debug("Using Exomiser variant database at {}", exomiserVariantDatabase.toAbsolutePath());
                 variantMetadataService = ExomiserMvStoreMetadataService.of(exomiserVariantDatabase, new VariantMetadataService.Options(defaultVariantAlleleFrequency));
-                variantParserFactory = VcfVariantParserFactory.of(genomicAssembly, functionalVariantAnnotator, variantMetadataService);
+                variantParserFactory = variantParserFactory(genomicAssembly, jannovarData);
             }
         } else {
-            variantParserFactory = VcfVariantParserFactory.of(genomicAssembly, functionalVariantAnnotator, variantMetadataService);
+            variantParserFactory = variantParserFactory(genomicAssembly, jannovarData);
         }
 
         // Lirical analysis runner
         if (phenotypeLikelihoodRatio == null) {
-            phenotypeLikelihoodRatio = new PhenotypeLikelihoodRatio(phenotypeService.hpo(), phenotypeService.diseases());
+            HpoTermIndex termIndex = HpoTermIndex.of(phenotypeService.hpo());
+            PhenotypeLrMatrix matrix = usePrecomputedPhenotypeLrs
+                    ? openPhenotypeLrMatrix(termIndex, phenotypeService.diseases())
+                    : null;
+            if (matrix != null) {
+                phenotypeLikelihoodRatio = new PrecomputedPhenotypeLikelihoodRatio(termIndex, phenotypeService.diseases(), matrix);
+            } else {
+                PhenotypeLrCache cache = phenotypeLrCacheSize > 0
+                        ? PhenotypeLrCache.of(phenotypeLrCacheSize)
+                        : null;
+                phenotypeLikelihoodRatio = new PhenotypeLikelihoodRatio(termIndex, phenotypeService.diseases(), cache);
+            }
         }
 
         if (genotypeLikelihoodRatio == null)
             genotypeLikelihoodRatio = configureGenotypeLikelihoodRatio(backgroundVariantFrequency, genomeBuild, genotypeLrProperties);
 
-        LiricalAnalysisRunner analyzer = LiricalAnalysisRunnerImpl.of(phenotypeService, phenotypeLikelihoodRatio, genotypeLikelihoodRatio);
+        InducedDiseaseGraphs inducedDiseaseGraphs = configureInducedDiseaseGraphs(phenotypeService.diseases(), phenotypeLikelihoodRatio.termIndex());
+
+        LiricalAnalysisRunner analyzer = forkJoinPool == null
+                ? LiricalAnalysisRunnerImpl.of(phenotypeService, phenotypeLikelihoodRatio, genotypeLikelihoodRatio, inducedDiseaseGraphs, parallelism)
+                : LiricalAnalysisRunnerImpl.of(phenotypeService, phenotypeLikelihoodRatio, genotypeLikelihoodRatio, inducedDiseaseGraphs, forkJoinPool);
 
         // Analysis result writer factory
         AnalysisResultWriterFactory analysisResultWriterFactory = new AnalysisResultWriterFactory(phenotypeService.hpo(), phenotypeService.diseases());
@@ -237,6 +408,50 @@ public class LiricalBuilder {
         return PhenotypeService.of(hpo, diseases, associationData);
     }
 
+    private PhenotypeLrMatrix openPhenotypeLrMatrix(HpoTermIndex termIndex, HpoDiseases diseases) {
+        Path matrixPath = liricalDataResolver.phenotypeLrMatrix();
+        if (!Files.isRegularFile(matrixPath)) {
+            LOGGER.warn("Precomputed phenotype LRs not found at {}. The LRs will be computed.", matrixPath.toAbsolutePath());
+            return null;
+        }
+        LOGGER.debug("Opening precomputed phenotype LRs at {}", matrixPath.toAbsolutePath());
+        try {
+            return PhenotypeLrMatrix.open(matrixPath, termIndex, diseases);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to use precomputed phenotype LRs from {}: {}. The LRs will be computed.", matrixPath.toAbsolutePath(), e.getMessage());
+            return null;
+        }
+    }
+
+    private InducedDiseaseGraphs configureInducedDiseaseGraphs(HpoDiseases diseases, HpoTermIndex termIndex) {
+        if (!persistInducedDiseaseGraphs)
+            return InducedDiseaseGraphs.create(diseases, termIndex);
+
+        Path graphsPath = liricalDataResolver.inducedDiseaseGraphs();
+        InducedDiseaseGraphs graphs = null;
+        if (Files.isRegularFile(graphsPath)) {
+            LOGGER.debug("Loading induced disease graphs from {}", graphsPath.toAbsolutePath());
+            try (InputStream is = Files.newInputStream(graphsPath)) {
+                graphs = InducedDiseaseGraphs.read(is, diseases, termIndex);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to load induced disease graphs from {}: {}", graphsPath.toAbsolutePath(), e.getMessage());
+            }
+        }
+
+        if (graphs == null)
+            graphs = InducedDiseaseGraphs.create(diseases, termIndex);
+
+        if (graphs.isStale()) {
+            LOGGER.debug("Storing induced disease graphs at {}", graphsPath.toAbsolutePath());
+            try (OutputStream os = Files.newOutputStream(graphsPath)) {
+                graphs.write(os);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to store induced disease graphs at {}: {}", graphsPath.toAbsolutePath(), e.getMessage());
+            }
+        }
+        return graphs;
+    }
+
     private static JannovarData loadJannovarData(LiricalDataResolver liricalDataResolver,
                                                  GenomeBuild genomeBuild,
                                                  TranscriptDatabase transcriptDatabase) throws LiricalDataException {
@@ -10,7 +10,10 @@ import org.monarchinitiative.lirical.core.service.VariantMetadataService;
 import java.util.Objects;
 import java.util.Optional;
 
-public class Lirical {
+/**
+ * The LIRICAL resources and services. Close the instance to release the resources when the analyses are done.
+ */
+public class Lirical implements AutoCloseable {
 
     private final VariantParserFactory variantParserFactory;
     private final PhenotypeService phenotypeService;
@@ -73,4 +76,14 @@ public class Lirical {
     public AnalysisResultWriterFactory analysisResultsWriterFactory() {
         return analysisResultWriterFactory;
     }
+
+    /**
+     * Close the analysis runner, which shuts down the worker pool if the runner created the pool.
+     * The other services are not closed, since they may be shared or provided by the caller.
+     * The worker threads of a variant parser are stopped by closing the parser.
+     */
+    @Override
+    public void close() {
+        analysisRunner.close();
+    }
 }
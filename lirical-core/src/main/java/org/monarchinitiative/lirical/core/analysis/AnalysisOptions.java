@@ -3,6 +3,7 @@ package org.monarchinitiative.lirical.core.analysis;
 import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbability;
 
 import java.util.Objects;
+import java.util.OptionalInt;
 
 /**
  * A container for analysis-specific settings, i.e. settings that need to be changed for analysis of each sample.
@@ -25,7 +26,7 @@ public interface AnalysisOptions {
                               PretestDiseaseProbability pretestDiseaseProbability,
                               boolean disregardDiseaseWithNoDeleteriousVariants) {
         Objects.requireNonNull(pretestDiseaseProbability);
-        return new AnalysisOptionsDefault(useGlobal, pretestDiseaseProbability, disregardDiseaseWithNoDeleteriousVariants, .8f);
+        return new AnalysisOptionsDefault(useGlobal, pretestDiseaseProbability, disregardDiseaseWithNoDeleteriousVariants, .8f, OptionalInt.empty());
     }
 
     static AnalysisOptions of(boolean useGlobal,
@@ -33,7 +34,22 @@ public interface AnalysisOptions {
                               boolean disregardDiseaseWithNoDeleteriousVariants,
                               float pathogenicityThreshold) {
         Objects.requireNonNull(pretestDiseaseProbability);
-        return new AnalysisOptionsDefault(useGlobal, pretestDiseaseProbability, disregardDiseaseWithNoDeleteriousVariants, pathogenicityThreshold);
+        return new AnalysisOptionsDefault(useGlobal, pretestDiseaseProbability, disregardDiseaseWithNoDeleteriousVariants, pathogenicityThreshold, OptionalInt.empty());
+    }
+
+    /**
+     * Create options for finding the <code>topK</code> diseases with the greatest posttest probability.
+     * The diseases that cannot reach the top results are not evaluated, see {@link #topK()}.
+     */
+    static AnalysisOptions of(boolean useGlobal,
+                              PretestDiseaseProbability pretestDiseaseProbability,
+                              boolean disregardDiseaseWithNoDeleteriousVariants,
+                              float pathogenicityThreshold,
+                              int topK) {
+        Objects.requireNonNull(pretestDiseaseProbability);
+        if (topK <= 0)
+            throw new IllegalArgumentException("The number of top results must be positive: " + topK);
+        return new AnalysisOptionsDefault(useGlobal, pretestDiseaseProbability, disregardDiseaseWithNoDeleteriousVariants, pathogenicityThreshold, OptionalInt.of(topK));
     }
 
     /**
@@ -61,4 +77,15 @@ public interface AnalysisOptions {
      */
     float pathogenicityThreshold();
 
+    /**
+     * The number of the top results needed by the user. If present, the diseases whose upper bound
+     * of the posttest probability is less than the posttest probability of the <code>k</code>-th best disease
+     * are skipped, hence the analysis results include the <code>k</code> top diseases but not all diseases.
+     *
+     * @return the number of top results or an empty optional if all diseases should be evaluated.
+     */
+    default OptionalInt topK() {
+        return OptionalInt.empty();
+    }
+
 }
@@ -2,11 +2,14 @@ package org.monarchinitiative.lirical.core.analysis;
 
 import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbability;
 
+import java.util.OptionalInt;
+
 record AnalysisOptionsDefault(
         boolean useGlobal,
         PretestDiseaseProbability pretestDiseaseProbability,
         boolean disregardDiseaseWithNoDeleteriousVariants,
-        float pathogenicityThreshold
+        float pathogenicityThreshold,
+        OptionalInt topK
 ) implements AnalysisOptions {
 
 }
@@ -2,7 +2,7 @@ package org.monarchinitiative.lirical.core.analysis;
 
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -38,8 +38,41 @@ public interface AnalysisResults extends Iterable<TestResult> {
         return StreamSupport.stream(spliterator(), false);
     }
 
+    /**
+     * @return results sorted by descending posttest probability
+     * @see #rankedResults()
+     */
     default Stream<TestResult> resultsWithDescendingPostTestProbability() {
-        return results().sorted(Comparator.comparingDouble(TestResult::posttestProbability).reversed());
+        return rankedResults().stream();
+    }
+
+    /**
+     * Get all results sorted by descending posttest probability. The results with the same posttest probability
+     * are kept in the iteration order.
+     * <p>
+     * The implementations compute the ranking once and reuse it in the subsequent calls.
+     *
+     * @return an unmodifiable list with the ranked results
+     */
+    default List<TestResult> rankedResults() {
+        return topResults(size());
+    }
+
+    /**
+     * Get the <code>k</code> results with the highest posttest probability, in the same order as
+     * in {@link #rankedResults()}. The results are selected without sorting all results.
+     *
+     * @param k the maximum number of results to return
+     * @return an unmodifiable list with at most <code>k</code> best results
+     */
+    default List<TestResult> topResults(int k) {
+        List<TestResult> results = results().toList();
+        double[] posttestProbabilities = new double[results.size()];
+        for (int i = 0; i < posttestProbabilities.length; i++)
+            posttestProbabilities[i] = results.get(i).posttestProbability();
+        return Arrays.stream(PosttestRanking.topK(posttestProbabilities, k))
+                .mapToObj(results::get)
+                .toList();
     }
 
 }
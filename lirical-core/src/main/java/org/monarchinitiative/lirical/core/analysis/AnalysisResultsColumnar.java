@@ -0,0 +1,361 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLrWithExplanation;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrMatchType;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanation;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanationFactory;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * {@link AnalysisResults} backed by primitive arrays.
+ * <p>
+ * All diseases of a case are tested with the same observed and excluded phenotype terms, hence we store
+ * the terms once, and the per-term results of each disease as a row of the flat arrays with likelihood ratios,
+ * match types, and matching terms. The {@link TestResult}s are materialized only on demand, when iterating
+ * over the results or when looking up a result by disease id.
+ * <p>
+ * The rows are sorted by the {@link DiseaseIndex} of the diseases.
+ */
+final class AnalysisResultsColumnar implements AnalysisResults {
+
+    private static final LrMatchType[] MATCH_TYPES = LrMatchType.values();
+    /**
+     * Marks the terms that were not tested in the results.
+     */
+    private static final int NOT_TESTED = -1;
+
+    private final DiseaseIndex diseaseIndex;
+    private final LrWithExplanationFactory explanationFactory;
+    private final List<TermId> observedTerms;
+    private final List<TermId> excludedTerms;
+    /**
+     * The number of tests per disease, i.e. the number of observed and excluded terms.
+     */
+    private final int stride;
+
+    private final int[] diseases;
+    private final double[] pretestProbabilities;
+    private final double[] compositeLrs;
+    private final double[] termLrs;
+    private final byte[] matchTypes;
+    private final TermId[] matchingTerms;
+    private final GenotypeLrWithExplanation[] genotypeLrs;
+
+    /**
+     * Rows sorted by descending posttest probability, computed on the first call of {@link #rankedResults()}.
+     */
+    private volatile int[] ranking;
+
+    static Builder builder(DiseaseIndex diseaseIndex,
+                           List<TermId> observedTerms,
+                           List<TermId> excludedTerms,
+                           LrWithExplanationFactory explanationFactory) {
+        return new Builder(diseaseIndex, observedTerms, excludedTerms, explanationFactory);
+    }
+
+    private AnalysisResultsColumnar(Builder builder, int[] diseases) {
+        this.diseaseIndex = builder.diseaseIndex;
+        this.explanationFactory = builder.explanationFactory;
+        this.observedTerms = builder.observedTerms;
+        this.excludedTerms = builder.excludedTerms;
+        this.stride = builder.stride;
+        this.diseases = diseases;
+
+        int n = diseases.length;
+        this.pretestProbabilities = new double[n];
+        this.compositeLrs = new double[n];
+        this.termLrs = new double[n * stride];
+        this.matchTypes = new byte[n * stride];
+        this.matchingTerms = new TermId[n * stride];
+        this.genotypeLrs = new GenotypeLrWithExplanation[n];
+        for (int row = 0; row < n; row++) {
+            int disease = diseases[row];
+            pretestProbabilities[row] = builder.pretestProbabilities[disease];
+            compositeLrs[row] = builder.compositeLrs[disease];
+            System.arraycopy(builder.termLrs, disease * stride, termLrs, row * stride, stride);
+            System.arraycopy(builder.matchTypes, disease * stride, matchTypes, row * stride, stride);
+            System.arraycopy(builder.matchingTerms, disease * stride, matchingTerms, row * stride, stride);
+            genotypeLrs[row] = builder.genotypeLrs[disease];
+        }
+    }
+
+    /**
+     * @return the index of the diseases of the results.
+     */
+    DiseaseIndex diseaseIndex() {
+        return diseaseIndex;
+    }
+
+    /**
+     * Test the same diseases with new phenotype terms. The LRs of the terms that were tested in these results
+     * are reused, and only the LRs of the other terms are computed. The pretest probabilities and the genotype LRs
+     * are kept. The rows are processed in parallel.
+     *
+     * @param observedLr computes the LR of the observed term at the given position in the disease.
+     * @param excludedLr computes the LR of the excluded term at the given position in the disease.
+     */
+    AnalysisResults withPhenotypeTerms(List<TermId> observed,
+                                       List<TermId> excluded,
+                                       TermLr observedLr,
+                                       TermLr excludedLr) {
+        int[] observedColumns = columns(observedTerms, observed, 0);
+        int[] excludedColumns = columns(excludedTerms, excluded, observedTerms.size());
+        Builder builder = builder(diseaseIndex, observed, excluded, explanationFactory);
+        IntStream.range(0, diseases.length)
+                .parallel()
+                .forEach(row -> {
+                    int disease = diseases[row];
+                    List<LrWithExplanation> observedLrs = new ArrayList<>(observed.size());
+                    for (int i = 0; i < observed.size(); i++)
+                        observedLrs.add(observedColumns[i] == NOT_TESTED
+                                ? observedLr.compute(disease, i)
+                                : lrWithExplanation(observed.get(i), row * stride + observedColumns[i]));
+                    List<LrWithExplanation> excludedLrs = new ArrayList<>(excluded.size());
+                    for (int i = 0; i < excluded.size(); i++)
+                        excludedLrs.add(excludedColumns[i] == NOT_TESTED
+                                ? excludedLr.compute(disease, i)
+                                : lrWithExplanation(excluded.get(i), row * stride + excludedColumns[i]));
+                    builder.add(disease, pretestProbabilities[row], observedLrs, excludedLrs, genotypeLrs[row]);
+                });
+        return builder.build();
+    }
+
+    /**
+     * @return the columns of the <code>terms</code> in a row, or {@link #NOT_TESTED} for the terms
+     * that are not among the <code>tested</code> terms.
+     */
+    private static int[] columns(List<TermId> tested, List<TermId> terms, int offset) {
+        int[] columns = new int[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            int column = tested.indexOf(terms.get(i));
+            columns[i] = column < 0 ? NOT_TESTED : offset + column;
+        }
+        return columns;
+    }
+
+    @Override
+    public int size() {
+        return diseases.length;
+    }
+
+    @Override
+    public Optional<TestResult> resultByDiseaseId(TermId diseaseId) {
+        int disease = diseaseIndex.index(diseaseId);
+        if (disease == DiseaseIndex.MISSING)
+            return Optional.empty();
+        int row = Arrays.binarySearch(diseases, disease);
+        return row < 0
+                ? Optional.empty()
+                : Optional.of(materialize(row));
+    }
+
+    @Override
+    public Iterator<TestResult> iterator() {
+        return new Iterator<>() {
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < diseases.length;
+            }
+
+            @Override
+            public TestResult next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return materialize(row++);
+            }
+        };
+    }
+
+    @Override
+    public List<TestResult> rankedResults() {
+        int[] rows = ranking;
+        if (rows == null) {
+            rows = PosttestRanking.rank(posttestProbabilities());
+            ranking = rows;
+        }
+        return new RankedView(rows);
+    }
+
+    @Override
+    public List<TestResult> topResults(int k) {
+        int[] rows = ranking;
+        return new RankedView(rows == null
+                ? PosttestRanking.topK(posttestProbabilities(), k)
+                : PosttestRanking.prefix(rows, k));
+    }
+
+    private double[] posttestProbabilities() {
+        double[] posttestProbabilities = new double[diseases.length];
+        for (int row = 0; row < diseases.length; row++)
+            posttestProbabilities[row] = posttestProbability(row);
+        return posttestProbabilities;
+    }
+
+    /**
+     * @return the posttest probability of the disease in the <code>row</code>, without materializing the {@link TestResult}.
+     */
+    double posttestProbability(int row) {
+        return TestResult.calculatePosttestProbability(pretestProbabilities[row], compositeLrs[row]);
+    }
+
+    private TestResult materialize(int row) {
+        int offset = row * stride;
+        List<LrWithExplanation> observed = new ArrayList<>(observedTerms.size());
+        for (int i = 0; i < observedTerms.size(); i++)
+            observed.add(lrWithExplanation(observedTerms.get(i), offset + i));
+
+        offset += observedTerms.size();
+        List<LrWithExplanation> excluded = new ArrayList<>(excludedTerms.size());
+        for (int i = 0; i < excludedTerms.size(); i++)
+            excluded.add(lrWithExplanation(excludedTerms.get(i), offset + i));
+
+        return TestResult.of(diseaseIndex.diseaseId(diseases[row]),
+                pretestProbabilities[row],
+                Collections.unmodifiableList(observed),
+                Collections.unmodifiableList(excluded),
+                genotypeLrs[row]);
+    }
+
+    private LrWithExplanation lrWithExplanation(TermId queryTerm, int i) {
+        return explanationFactory.create(queryTerm, matchingTerms[i], MATCH_TYPES[matchTypes[i]], termLrs[i]);
+    }
+
+    /**
+     * An unmodifiable list of results in the order of the <code>rows</code>. The results are materialized on access.
+     */
+    private final class RankedView extends AbstractList<TestResult> implements RandomAccess {
+
+        private final int[] rows;
+
+        private RankedView(int[] rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public TestResult get(int index) {
+            return materialize(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisResultsColumnar[" +
+                "size=" + diseases.length + ']';
+    }
+
+    /**
+     * Computes the LR of a phenotype term in a disease.
+     */
+    @FunctionalInterface
+    interface TermLr {
+
+        /**
+         * @param disease index of the disease in the {@link DiseaseIndex}.
+         * @param term    position of the term among the observed or the excluded terms.
+         */
+        LrWithExplanation compute(int disease, int term);
+    }
+
+    /**
+     * Collects the results of the diseases tested in a case. The results of distinct diseases can be added
+     * concurrently, as each disease is written into its own slots of the arrays. The results must be safely
+     * published to the thread that calls {@link #build()}, e.g. by waiting for the tasks that add the results.
+     */
+    static final class Builder {
+
+        private final DiseaseIndex diseaseIndex;
+        private final LrWithExplanationFactory explanationFactory;
+        private final List<TermId> observedTerms;
+        private final List<TermId> excludedTerms;
+        private final int stride;
+
+        private final boolean[] present;
+        private final double[] pretestProbabilities;
+        private final double[] compositeLrs;
+        private final double[] termLrs;
+        private final byte[] matchTypes;
+        private final TermId[] matchingTerms;
+        private final GenotypeLrWithExplanation[] genotypeLrs;
+
+        private Builder(DiseaseIndex diseaseIndex,
+                        List<TermId> observedTerms,
+                        List<TermId> excludedTerms,
+                        LrWithExplanationFactory explanationFactory) {
+            this.diseaseIndex = Objects.requireNonNull(diseaseIndex);
+            this.explanationFactory = Objects.requireNonNull(explanationFactory);
+            this.observedTerms = List.copyOf(observedTerms);
+            this.excludedTerms = List.copyOf(excludedTerms);
+            this.stride = observedTerms.size() + excludedTerms.size();
+
+            int n = diseaseIndex.size();
+            this.present = new boolean[n];
+            this.pretestProbabilities = new double[n];
+            this.compositeLrs = new double[n];
+            this.termLrs = new double[n * stride];
+            this.matchTypes = new byte[n * stride];
+            this.matchingTerms = new TermId[n * stride];
+            this.genotypeLrs = new GenotypeLrWithExplanation[n];
+        }
+
+        /**
+         * Add the result of testing the disease with the given index.
+         *
+         * @param observed LRs of the observed terms, in the order of the observed terms of the builder.
+         * @param excluded LRs of the excluded terms, in the order of the excluded terms of the builder.
+         * @param genotypeLr genotype LR or <code>null</code> if no genotype LR is available.
+         */
+        void add(int disease,
+                 double pretestProbability,
+                 List<LrWithExplanation> observed,
+                 List<LrWithExplanation> excluded,
+                 GenotypeLrWithExplanation genotypeLr) {
+            int offset = disease * stride;
+            for (LrWithExplanation lr : observed)
+                set(offset++, lr);
+            for (LrWithExplanation lr : excluded)
+                set(offset++, lr);
+            pretestProbabilities[disease] = pretestProbability;
+            compositeLrs[disease] = TestResult.calculateCompositeLR(observed, excluded, genotypeLr);
+            genotypeLrs[disease] = genotypeLr;
+            present[disease] = true;
+        }
+
+        /**
+         * @return the posttest probability of the disease added by the calling thread.
+         */
+        double posttestProbability(int disease) {
+            return TestResult.calculatePosttestProbability(pretestProbabilities[disease], compositeLrs[disease]);
+        }
+
+        private void set(int i, LrWithExplanation lr) {
+            termLrs[i] = lr.lr();
+            matchTypes[i] = (byte) lr.matchType().ordinal();
+            matchingTerms[i] = lr.matchingTerm();
+        }
+
+        AnalysisResults build() {
+            int count = 0;
+            for (boolean p : present)
+                if (p) count++;
+            if (count == 0)
+                return AnalysisResults.empty();
+
+            int[] diseases = new int[count];
+            int row = 0;
+            for (int disease = 0; disease < present.length; disease++)
+                if (present[disease])
+                    diseases[row++] = disease;
+            return new AnalysisResultsColumnar(this, diseases);
+        }
+    }
+}
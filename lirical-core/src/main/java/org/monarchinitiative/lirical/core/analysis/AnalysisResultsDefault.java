@@ -18,6 +18,8 @@ final class AnalysisResultsDefault implements AnalysisResults {
 
     private final Map<TermId, TestResult> resultByDiseaseId;
 
+    private volatile List<TestResult> rankedResults;
+
     AnalysisResultsDefault(List<TestResult> results) {
         this.results = Objects.requireNonNull(results);
         this.resultByDiseaseId = results.stream()
@@ -39,6 +41,32 @@ final class AnalysisResultsDefault implements AnalysisResults {
         return Optional.ofNullable(resultByDiseaseId.get(diseaseId));
     }
 
+    @Override
+    public List<TestResult> rankedResults() {
+        List<TestResult> ranked = rankedResults;
+        if (ranked == null) {
+            ranked = topResults(results.size());
+            rankedResults = ranked;
+        }
+        return ranked;
+    }
+
+    @Override
+    public List<TestResult> topResults(int k) {
+        List<TestResult> ranked = rankedResults;
+        if (ranked != null)
+            return ranked.subList(0, Math.min(k, ranked.size()));
+
+        double[] posttestProbabilities = new double[results.size()];
+        for (int i = 0; i < posttestProbabilities.length; i++)
+            posttestProbabilities[i] = results.get(i).posttestProbability();
+        int[] top = PosttestRanking.topK(posttestProbabilities, k);
+        List<TestResult> selected = new ArrayList<>(top.length);
+        for (int i : top)
+            selected.add(results.get(i));
+        return Collections.unmodifiableList(selected);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) return true;
@@ -0,0 +1,54 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Splits a range of items with estimated costs into contiguous chunks of similar total cost.
+ */
+final class CostPartition {
+
+    private CostPartition() {
+    }
+
+    /**
+     * Split the items <code>[0, costs.length)</code> into at most <code>chunks</code> contiguous chunks.
+     * A chunk ends when its cumulative cost reaches the next multiple of <code>total / chunks</code>, hence the chunks
+     * have similar costs unless a single item costs more than the share of a chunk.
+     *
+     * @param costs non-negative estimated costs of the items.
+     * @param chunks the maximum number of chunks, a positive integer.
+     * @return the chunk boundaries, the chunk <code>i</code> spans <code>[bounds[i], bounds[i + 1])</code>.
+     */
+    static int[] partition(long[] costs, int chunks) {
+        if (chunks <= 0)
+            throw new IllegalArgumentException("The number of chunks must be positive: " + chunks);
+        if (costs.length == 0)
+            return new int[]{0};
+
+        long total = 0;
+        for (long cost : costs)
+            total += cost;
+
+        int[] bounds = new int[Math.min(chunks, costs.length) + 1];
+        int n = 1;
+        int share = 1;
+        long cumulative = 0;
+        for (int i = 0; i < costs.length && n < bounds.length - 1; i++) {
+            cumulative += costs[i];
+            // Cut after the item if the cumulative cost reached the end of the current share.
+            if (reaches(cumulative, share, total, chunks)) {
+                bounds[n++] = i + 1;
+                // A costly item can cover several shares.
+                while (share <= chunks && reaches(cumulative, share, total, chunks))
+                    share++;
+            }
+        }
+        if (bounds[n - 1] != costs.length)
+            bounds[n++] = costs.length;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    private static boolean reaches(long cumulative, int share, long total, int chunks) {
+        return (double) cumulative * chunks >= (double) total * share;
+    }
+}
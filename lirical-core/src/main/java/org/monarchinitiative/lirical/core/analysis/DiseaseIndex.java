@@ -0,0 +1,58 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns a stable dense <code>int</code> index from <code>[0, size())</code> to each disease of the knowledge base.
+ * The index follows the iteration order of {@link HpoDiseases}.
+ */
+public final class DiseaseIndex {
+
+    /**
+     * Index value returned for a disease that is not present in the knowledge base.
+     */
+    public static final int MISSING = -1;
+
+    private final HpoDisease[] diseases;
+    private final Map<TermId, Integer> indices;
+
+    public static DiseaseIndex of(HpoDiseases diseases) {
+        return new DiseaseIndex(diseases.hpoDiseases().toArray(HpoDisease[]::new));
+    }
+
+    private DiseaseIndex(HpoDisease[] diseases) {
+        this.diseases = diseases;
+        Map<TermId, Integer> indices = new HashMap<>(diseases.length * 2);
+        for (int i = 0; i < diseases.length; i++)
+            indices.put(diseases[i].id(), i);
+        this.indices = Map.copyOf(indices);
+    }
+
+    /**
+     * @return the number of diseases in the index.
+     */
+    public int size() {
+        return diseases.length;
+    }
+
+    /**
+     * @return the index of the disease or {@link #MISSING} if the disease is not in the index.
+     */
+    public int index(TermId diseaseId) {
+        Integer idx = indices.get(diseaseId);
+        return idx == null ? MISSING : idx;
+    }
+
+    public HpoDisease disease(int i) {
+        return diseases[i];
+    }
+
+    public TermId diseaseId(int i) {
+        return diseases[i].id();
+    }
+}
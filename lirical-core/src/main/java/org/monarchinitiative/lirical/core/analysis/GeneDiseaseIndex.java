@@ -0,0 +1,145 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.monarchinitiative.lirical.core.model.Gene2Genotype;
+import org.monarchinitiative.lirical.core.model.GenesAndGenotypes;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.*;
+
+/**
+ * Adjacency of the genes and of the diseases of the {@link DiseaseIndex} in the compressed sparse row format.
+ * The index is built once and then used to find the genes of each disease of a case without hashing the disease ids.
+ */
+final class GeneDiseaseIndex {
+
+    private final int diseaseCount;
+    private final Map<TermId, Integer> geneIndices;
+    /**
+     * The diseases of the gene <code>g</code> are at <code>[offsets[g], offsets[g + 1])</code> of {@link #diseases}.
+     */
+    private final int[] offsets;
+    private final int[] diseases;
+
+    /**
+     * @param geneToDisease map with the ids of the diseases associated with a gene. The genes with at least one
+     *                      associated disease are indexed, including the genes associated with the diseases
+     *                      that are not in the <code>diseaseIndex</code>.
+     */
+    static GeneDiseaseIndex of(Map<TermId, ? extends Collection<TermId>> geneToDisease, DiseaseIndex diseaseIndex) {
+        Map<TermId, Integer> geneIndices = new HashMap<>(geneToDisease.size() * 2);
+        int[] offsets = new int[geneToDisease.size() + 1];
+        int[] diseases = new int[geneToDisease.values().stream().mapToInt(Collection::size).sum()];
+
+        int n = 0;
+        for (Map.Entry<TermId, ? extends Collection<TermId>> e : geneToDisease.entrySet()) {
+            if (e.getValue().isEmpty())
+                continue;
+            int gene = geneIndices.size();
+            geneIndices.put(e.getKey(), gene);
+            int start = n;
+            for (TermId diseaseId : e.getValue()) {
+                int disease = diseaseIndex.index(diseaseId);
+                if (disease != DiseaseIndex.MISSING)
+                    diseases[n++] = disease;
+            }
+            // Sort and remove duplicates.
+            Arrays.sort(diseases, start, n);
+            int end = start;
+            for (int i = start; i < n; i++)
+                if (i == start || diseases[i] != diseases[i - 1])
+                    diseases[end++] = diseases[i];
+            n = end;
+            offsets[gene + 1] = n;
+        }
+
+        return new GeneDiseaseIndex(diseaseIndex.size(),
+                Map.copyOf(geneIndices),
+                Arrays.copyOf(offsets, geneIndices.size() + 1),
+                Arrays.copyOf(diseases, n));
+    }
+
+    private GeneDiseaseIndex(int diseaseCount, Map<TermId, Integer> geneIndices, int[] offsets, int[] diseases) {
+        this.diseaseCount = diseaseCount;
+        this.geneIndices = geneIndices;
+        this.offsets = offsets;
+        this.diseases = diseases;
+    }
+
+    /**
+     * Group the genes of a case by the associated diseases. The genes of a disease keep the order of <code>genes</code>.
+     */
+    CaseGenes caseGenes(GenesAndGenotypes genes) {
+        List<Gene2Genotype> associated = new ArrayList<>();
+        List<Integer> associatedIndices = new ArrayList<>();
+        for (Gene2Genotype gene : genes) {
+            Integer geneIdx = geneIndices.get(gene.geneId().id());
+            if (geneIdx != null) {
+                associated.add(gene);
+                associatedIndices.add(geneIdx);
+            }
+        }
+
+        // First pass counts the genes of each disease, the second fills the positions.
+        int[] diseaseOffsets = new int[diseaseCount + 1];
+        for (int geneIdx : associatedIndices)
+            for (int i = offsets[geneIdx]; i < offsets[geneIdx + 1]; i++)
+                diseaseOffsets[diseases[i] + 1]++;
+        for (int d = 0; d < diseaseCount; d++)
+            diseaseOffsets[d + 1] += diseaseOffsets[d];
+
+        int[] filled = Arrays.copyOf(diseaseOffsets, diseaseCount);
+        int[] positions = new int[diseaseOffsets[diseaseCount]];
+        for (int position = 0; position < associatedIndices.size(); position++) {
+            int geneIdx = associatedIndices.get(position);
+            for (int i = offsets[geneIdx]; i < offsets[geneIdx + 1]; i++)
+                positions[filled[diseases[i]]++] = position;
+        }
+
+        return new CaseGenes(List.copyOf(associated), diseaseOffsets, positions);
+    }
+
+    /**
+     * Genes of a case associated with the diseases. The genes are identified by their position
+     * in {@link #genes()}.
+     */
+    static final class CaseGenes {
+
+        private final List<Gene2Genotype> genes;
+        private final int[] offsets;
+        private final int[] positions;
+
+        private CaseGenes(List<Gene2Genotype> genes, int[] offsets, int[] positions) {
+            this.genes = genes;
+            this.offsets = offsets;
+            this.positions = positions;
+        }
+
+        /**
+         * @return the genes of the case that are associated with at least one disease.
+         */
+        List<Gene2Genotype> genes() {
+            return genes;
+        }
+
+        /**
+         * @return <code>true</code> if no gene of the case is associated with a disease.
+         */
+        boolean isEmpty() {
+            return genes.isEmpty();
+        }
+
+        /**
+         * @return the number of genes associated with the disease.
+         */
+        int geneCount(int disease) {
+            return offsets[disease + 1] - offsets[disease];
+        }
+
+        /**
+         * @return the position of the <code>i</code>-th gene of the disease.
+         */
+        int genePosition(int disease, int i) {
+            return positions[offsets[disease] + i];
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLrWithExplanation;
+import org.monarchinitiative.lirical.core.model.Gene2Genotype;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Genotype LRs of the genes of a sample. The genotype LR only depends on the gene and on the modes of inheritance
+ * of the disease, hence the LR is computed once for each distinct list of modes of inheritance of the diseases
+ * associated with the gene, instead of once for each disease.
+ * <p>
+ * The genes and the lists of modes of inheritance are identified by their positions in the lists used to build the table.
+ */
+final class GenotypeLrTable {
+
+    private final GenotypeLikelihoodRatio genotypeLikelihoodRatio;
+    private final String sampleId;
+    private final List<Gene2Genotype> genes;
+    private final List<List<TermId>> modesOfInheritance;
+    /**
+     * Genotype LRs of each gene, indexed by the position of the modes of inheritance.
+     */
+    private final GenotypeLrWithExplanation[][] lrs;
+
+    /**
+     * Compute the genotype LRs of the genes for the modes of inheritance.
+     *
+     * @param modesOfInheritance the distinct lists of modes of inheritance.
+     * @param modesOfInheritanceByGene the positions of the lists of modes of inheritance to compute for each gene.
+     */
+    static GenotypeLrTable of(GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                              String sampleId,
+                              List<Gene2Genotype> genes,
+                              List<List<TermId>> modesOfInheritance,
+                              BitSet[] modesOfInheritanceByGene) {
+        GenotypeLrWithExplanation[][] lrs = new GenotypeLrWithExplanation[genes.size()][modesOfInheritance.size()];
+
+        // Each gene fills its own array.
+        IntStream.range(0, genes.size())
+                .parallel()
+                .forEach(gene -> modesOfInheritanceByGene[gene].stream()
+                        .forEach(moi -> lrs[gene][moi] = genotypeLikelihoodRatio.evaluateGenotype(sampleId, genes.get(gene), modesOfInheritance.get(moi))));
+
+        return new GenotypeLrTable(genotypeLikelihoodRatio, sampleId, genes, modesOfInheritance, lrs);
+    }
+
+    private GenotypeLrTable(GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                            String sampleId,
+                            List<Gene2Genotype> genes,
+                            List<List<TermId>> modesOfInheritance,
+                            GenotypeLrWithExplanation[][] lrs) {
+        this.genotypeLikelihoodRatio = Objects.requireNonNull(genotypeLikelihoodRatio);
+        this.sampleId = sampleId;
+        this.genes = Objects.requireNonNull(genes);
+        this.modesOfInheritance = Objects.requireNonNull(modesOfInheritance);
+        this.lrs = Objects.requireNonNull(lrs);
+    }
+
+    /**
+     * Get the genotype LR of the gene at position <code>gene</code> for the modes of inheritance
+     * at position <code>moi</code>. The LR is computed if it was not precomputed when building the table.
+     */
+    GenotypeLrWithExplanation lr(int gene, int moi) {
+        GenotypeLrWithExplanation lr = lrs[gene][moi];
+        return lr == null
+                ? genotypeLikelihoodRatio.evaluateGenotype(sampleId, genes.get(gene), modesOfInheritance.get(moi))
+                : lr;
+    }
+}
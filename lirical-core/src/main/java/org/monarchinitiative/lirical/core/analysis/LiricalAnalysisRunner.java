@@ -1,7 +1,76 @@
 package org.monarchinitiative.lirical.core.analysis;
 
-public interface LiricalAnalysisRunner {
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+public interface LiricalAnalysisRunner extends AutoCloseable {
 
     AnalysisResults run(AnalysisData analysisData, AnalysisOptions analysisOptions);
 
+    /**
+     * Analyze the <code>cases</code> using the same <code>analysisOptions</code> and pass the results
+     * of each case to the <code>consumer</code>.
+     * <p>
+     * The results are passed as soon as they are available, hence the order of the results does not need to match
+     * the order of the <code>cases</code>. The default implementation analyzes the cases one by one.
+     *
+     * @param cases the cases to analyze.
+     * @param analysisOptions options for all cases.
+     * @param consumer consumer of the analysis results.
+     */
+    default void runBatch(Iterable<AnalysisData> cases,
+                          AnalysisOptions analysisOptions,
+                          BiConsumer<AnalysisData, AnalysisResults> consumer) {
+        for (AnalysisData analysisData : cases)
+            consumer.accept(analysisData, run(analysisData, analysisOptions));
+    }
+
+    /**
+     * Update the <code>previous</code> results of a case after its phenotype terms changed, e.g. when a curator
+     * adds or removes a term. The <code>analysisData</code> is the updated case. Apart from the phenotype terms,
+     * the case and the <code>analysisOptions</code> must be the same as in the analysis that produced
+     * the <code>previous</code> results. The default implementation analyzes the updated case from scratch.
+     *
+     * @param previous results of the case before the phenotype terms changed.
+     * @param analysisData the case with the updated phenotype terms.
+     * @param analysisOptions the options used to analyze the case.
+     * @return the results of the updated case.
+     */
+    default AnalysisResults rerun(AnalysisResults previous, AnalysisData analysisData, AnalysisOptions analysisOptions) {
+        return run(analysisData, analysisOptions);
+    }
+
+    /**
+     * Compute the posttest probabilities of the diseases, without the likelihood ratios and their explanations.
+     * The probabilities are aligned with the <code>diseaseIndex</code>, e.g.
+     * <code>DiseaseIndex.of(lirical.phenotypeService().diseases())</code>. The probability of a disease
+     * that was not tested, e.g. due to missing deleterious variants, is {@link Double#NaN}.
+     * <p>
+     * The default implementation gets the probabilities from the results of {@link #run(AnalysisData, AnalysisOptions)}.
+     *
+     * @param diseaseIndex the index of the diseases.
+     * @param analysisData the case to analyze.
+     * @param analysisOptions the analysis options.
+     * @return array with a posttest probability for each disease of the <code>diseaseIndex</code>.
+     */
+    default double[] posttestProbabilities(DiseaseIndex diseaseIndex,
+                                           AnalysisData analysisData,
+                                           AnalysisOptions analysisOptions) {
+        double[] posttestProbabilities = new double[diseaseIndex.size()];
+        Arrays.fill(posttestProbabilities, Double.NaN);
+        for (TestResult result : run(analysisData, analysisOptions)) {
+            int disease = diseaseIndex.index(result.diseaseId());
+            if (disease != DiseaseIndex.MISSING)
+                posttestProbabilities[disease] = result.posttestProbability();
+        }
+        return posttestProbabilities;
+    }
+
+    /**
+     * Release the resources held by the runner, such as the worker threads. The default implementation does nothing.
+     */
+    @Override
+    default void close() {
+    }
+
 }
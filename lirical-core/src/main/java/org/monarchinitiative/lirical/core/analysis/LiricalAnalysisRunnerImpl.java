@@ -2,7 +2,6 @@ package org.monarchinitiative.lirical.core.analysis;
 
 import org.monarchinitiative.lirical.core.likelihoodratio.*;
 import org.monarchinitiative.lirical.core.model.Gene2Genotype;
-import org.monarchinitiative.lirical.core.model.GenesAndGenotypes;
 import org.monarchinitiative.lirical.core.service.PhenotypeService;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.ontology.data.TermId;
@@ -10,130 +9,687 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class LiricalAnalysisRunnerImpl implements LiricalAnalysisRunner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LiricalAnalysisRunnerImpl.class);
+    private static final int MAX_CASES_IN_FLIGHT_PER_WORKER = 2;
+    /**
+     * The number of diseases per pool worker evaluated between the updates of the top-K threshold.
+     */
+    private static final int TOP_K_DISEASES_PER_WORKER = 8;
+    /**
+     * The number of chunks of diseases per pool worker. More chunks than workers let the idle workers
+     * steal the remaining chunks at the end of the case.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
 
-    private final PhenotypeService phenotypeService;
     private final PhenotypeLikelihoodRatio phenotypeLrEvaluator;
     private final GenotypeLikelihoodRatio genotypeLikelihoodRatio;
+    private final DiseaseIndex diseaseIndex;
+    private final GeneDiseaseIndex geneDiseaseIndex;
+    /**
+     * Induced graphs of the diseases, aligned with the {@link #diseaseIndex}.
+     */
+    private final List<InducedDiseaseGraph> diseaseGraphs;
+    private final TermDiseaseIndex termDiseaseIndex;
+    /**
+     * Distinct lists of modes of inheritance of the diseases.
+     */
+    private final List<List<TermId>> modesOfInheritance;
+    /**
+     * Position of the disease modes of inheritance in {@link #modesOfInheritance}, aligned with the {@link #diseaseIndex}.
+     */
+    private final int[] diseaseModesOfInheritance;
+    private final LrWithExplanationFactory explanationFactory;
     private final ForkJoinPool pool;
+    /**
+     * The pool is shut down on {@link #close()} if it was created by the runner.
+     */
+    private final boolean ownsPool;
 
     public static LiricalAnalysisRunnerImpl of(PhenotypeService phenotypeService,
                                                PhenotypeLikelihoodRatio phenotypeLrEvaluator,
                                                GenotypeLikelihoodRatio genotypeLikelihoodRatio) {
-        return new LiricalAnalysisRunnerImpl(phenotypeService, phenotypeLrEvaluator, genotypeLikelihoodRatio);
+        InducedDiseaseGraphs inducedDiseaseGraphs = InducedDiseaseGraphs.create(phenotypeService.diseases(), phenotypeLrEvaluator.termIndex());
+        return of(phenotypeService, phenotypeLrEvaluator, genotypeLikelihoodRatio, inducedDiseaseGraphs);
+    }
+
+    public static LiricalAnalysisRunnerImpl of(PhenotypeService phenotypeService,
+                                               PhenotypeLikelihoodRatio phenotypeLrEvaluator,
+                                               GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                                               InducedDiseaseGraphs inducedDiseaseGraphs) {
+        return of(phenotypeService, phenotypeLrEvaluator, genotypeLikelihoodRatio, inducedDiseaseGraphs, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create the runner with a pool of <code>parallelism</code> workers. The pool is shut down by {@link #close()}.
+     */
+    public static LiricalAnalysisRunnerImpl of(PhenotypeService phenotypeService,
+                                               PhenotypeLikelihoodRatio phenotypeLrEvaluator,
+                                               GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                                               InducedDiseaseGraphs inducedDiseaseGraphs,
+                                               int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        LOGGER.debug("Creating LIRICAL pool with {} workers.", parallelism);
+        ForkJoinPool pool = new ForkJoinPool(parallelism, LiricalWorkerThread::new, null, false);
+        return new LiricalAnalysisRunnerImpl(phenotypeService, phenotypeLrEvaluator, genotypeLikelihoodRatio, inducedDiseaseGraphs, pool, true);
+    }
+
+    /**
+     * Create the runner that analyzes the cases in the provided <code>pool</code>, e.g. a pool shared by several runners.
+     * The pool is managed by the caller and it is not shut down by {@link #close()}.
+     */
+    public static LiricalAnalysisRunnerImpl of(PhenotypeService phenotypeService,
+                                               PhenotypeLikelihoodRatio phenotypeLrEvaluator,
+                                               GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                                               InducedDiseaseGraphs inducedDiseaseGraphs,
+                                               ForkJoinPool pool) {
+        return new LiricalAnalysisRunnerImpl(phenotypeService, phenotypeLrEvaluator, genotypeLikelihoodRatio, inducedDiseaseGraphs, pool, false);
     }
 
     private LiricalAnalysisRunnerImpl(PhenotypeService phenotypeService,
                                       PhenotypeLikelihoodRatio phenotypeLrEvaluator,
-                                      GenotypeLikelihoodRatio genotypeLikelihoodRatio) {
-        this.phenotypeService = Objects.requireNonNull(phenotypeService);
+                                      GenotypeLikelihoodRatio genotypeLikelihoodRatio,
+                                      InducedDiseaseGraphs inducedDiseaseGraphs,
+                                      ForkJoinPool pool,
+                                      boolean ownsPool) {
         this.phenotypeLrEvaluator = Objects.requireNonNull(phenotypeLrEvaluator);
         this.genotypeLikelihoodRatio = Objects.requireNonNull(genotypeLikelihoodRatio);
-        int parallelism = Runtime.getRuntime().availableProcessors();
-        LOGGER.debug("Creating LIRICAL pool with {} workers.", parallelism);
-        this.pool = new ForkJoinPool(parallelism, LiricalWorkerThread::new, null, false);
+        this.diseaseIndex = DiseaseIndex.of(phenotypeService.diseases());
+        this.geneDiseaseIndex = GeneDiseaseIndex.of(phenotypeService.associationData().associations().geneIdToDiseaseIds(), diseaseIndex);
+        this.diseaseGraphs = alignGraphs(diseaseIndex, Objects.requireNonNull(inducedDiseaseGraphs), phenotypeLrEvaluator.termIndex());
+        this.termDiseaseIndex = TermDiseaseIndex.of(phenotypeLrEvaluator.termIndex(), diseaseGraphs);
+        Map<List<TermId>, Integer> modesOfInheritance = new LinkedHashMap<>();
+        this.diseaseModesOfInheritance = new int[diseaseIndex.size()];
+        for (int i = 0; i < diseaseIndex.size(); i++)
+            diseaseModesOfInheritance[i] = modesOfInheritance.computeIfAbsent(diseaseIndex.disease(i).modesOfInheritance(), k -> modesOfInheritance.size());
+        this.modesOfInheritance = List.copyOf(modesOfInheritance.keySet());
+        this.explanationFactory = new LrWithExplanationFactory(phenotypeService.hpo());
+        this.pool = Objects.requireNonNull(pool);
+        this.ownsPool = ownsPool;
+    }
+
+    private static List<InducedDiseaseGraph> alignGraphs(DiseaseIndex diseaseIndex,
+                                                         InducedDiseaseGraphs inducedDiseaseGraphs,
+                                                         HpoTermIndex termIndex) {
+        List<InducedDiseaseGraph> graphs = new ArrayList<>(diseaseIndex.size());
+        for (int i = 0; i < diseaseIndex.size(); i++) {
+            HpoDisease disease = diseaseIndex.disease(i);
+            // The graphs are created when loading the resources, but the disease may come from elsewhere.
+            graphs.add(inducedDiseaseGraphs.graphForDisease(disease.id())
+                    .orElseGet(() -> InducedDiseaseGraph.create(disease, termIndex)));
+        }
+        return List.copyOf(graphs);
     }
 
     @Override
     public AnalysisResults run(AnalysisData data, AnalysisOptions options) {
-        Map<TermId, List<Gene2Genotype>> diseaseToGenotype = groupDiseasesByGene(data.genes());
-
         ProgressReporter progressReporter = new ProgressReporter(1_000, "diseases");
-        Stream<TestResult> testResultStream = phenotypeService.diseases().hpoDiseases()
-                .parallel() // why not?
-                .peek(d -> progressReporter.log())
-                .map(disease -> analyzeDisease(disease, data, options, diseaseToGenotype))
-                .flatMap(Optional::stream);
-
         try {
-            List<TestResult> results = pool.submit(testResultStream::toList).get();
+            AnalysisResults results = pool.submit(() -> analyze(data, options, progressReporter::log)).get();
             progressReporter.summarize();
-            return AnalysisResults.of(results);
+            phenotypeLrEvaluator.cache().ifPresent(cache -> LOGGER.debug("Phenotype LR cache: {}", cache.stats()));
+            return results;
         } catch (InterruptedException | ExecutionException e) {
             LOGGER.error(e.getMessage(), e);
             return AnalysisResults.empty();
         }
     }
 
-    private Map<TermId, List<Gene2Genotype>> groupDiseasesByGene(GenesAndGenotypes genes) {
-        Map<TermId, Collection<TermId>> geneToDisease = phenotypeService.associationData().associations().geneIdToDiseaseIds();
-        Map<TermId, List<Gene2Genotype>> diseaseToGenotype = new HashMap<>(genes.size());
+    /**
+     * Reuse the LRs of the phenotype terms tested in the <code>previous</code> results, and compute the LRs
+     * of the added terms. The screening of the diseases does not depend on the phenotype terms, hence
+     * the updated results include the same diseases. We analyze the case from scratch if the previous results
+     * were not computed by this runner, or in the top-K mode, as the top-K results do not include all diseases.
+     */
+    @Override
+    public AnalysisResults rerun(AnalysisResults previous, AnalysisData data, AnalysisOptions options) {
+        if (options.topK().isPresent()
+                || !(previous instanceof AnalysisResultsColumnar columnar)
+                || columnar.diseaseIndex() != diseaseIndex)
+            return run(data, options);
+
+        try {
+            return pool.submit(() -> rescore(columnar, data)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error(e.getMessage(), e);
+            return AnalysisResults.empty();
+        }
+    }
+
+    /**
+     * Compute the LRs of the terms that were not tested in the <code>previous</code> results.
+     * The method must be called from a thread of the {@link #pool}.
+     */
+    private AnalysisResults rescore(AnalysisResultsColumnar previous, AnalysisData data) {
+        List<TermId> observed = data.presentPhenotypeTerms();
+        List<TermId> excluded = data.negatedPhenotypeTerms();
+        BitSet[] relatedDiseases = relatedDiseases(observed);
+        return previous.withPhenotypeTerms(observed, excluded,
+                (disease, i) -> observedLr(observed.get(i), disease, relatedDiseases[i], diseaseGraphs.get(disease)),
+                (disease, i) -> phenotypeLrEvaluator.lrForExcludedTerm(excluded.get(i), diseaseGraphs.get(disease)));
+    }
+
+    /**
+     * Compute the posttest probabilities of all diseases without creating the {@link AnalysisResults}.
+     * The diseases are not skipped in the top-K mode. We use the default implementation if the <code>diseaseIndex</code>
+     * does not have the diseases of the runner in the same order.
+     */
+    @Override
+    public double[] posttestProbabilities(DiseaseIndex diseaseIndex, AnalysisData data, AnalysisOptions options) {
+        if (!hasSameDiseases(diseaseIndex))
+            return LiricalAnalysisRunner.super.posttestProbabilities(diseaseIndex, data, options);
+
+        try {
+            return pool.submit(() -> score(data, options)).get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.error(e.getMessage(), e);
+            double[] posttestProbabilities = new double[diseaseIndex.size()];
+            Arrays.fill(posttestProbabilities, Double.NaN);
+            return posttestProbabilities;
+        }
+    }
+
+    private boolean hasSameDiseases(DiseaseIndex other) {
+        if (other == diseaseIndex)
+            return true;
+        if (other.size() != diseaseIndex.size())
+            return false;
+        for (int i = 0; i < diseaseIndex.size(); i++)
+            if (!other.diseaseId(i).equals(diseaseIndex.diseaseId(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Compute the posttest probabilities of the diseases. The composite LRs are accumulated in the same order
+     * as in {@link TestResult}, hence the probabilities are the same as the probabilities of the analysis results.
+     * The method must be called from a thread of the {@link #pool}.
+     */
+    private double[] score(AnalysisData data, AnalysisOptions options) {
+        GeneDiseaseIndex.CaseGenes caseGenes = geneDiseaseIndex.caseGenes(data.genes());
+        List<TermId> observedTerms = data.presentPhenotypeTerms();
+        BitSet[] relatedDiseases = relatedDiseases(observedTerms);
+        GenotypeLrTable genotypeLrs = genotypeLrTable(data.sampleId(), caseGenes);
+        double[] unrelatedObservedLrs = new double[observedTerms.size()];
+        for (int i = 0; i < observedTerms.size(); i++)
+            unrelatedObservedLrs[i] = phenotypeLrEvaluator.noMatchBelowRoot(observedTerms.get(i)).lr();
+        int[] observedQueries = primaryTermIndices(observedTerms);
+        int[] excludedQueries = primaryTermIndices(data.negatedPhenotypeTerms());
+
+        double[] posttestProbabilities = new double[diseaseIndex.size()];
+        forEachDisease(diseaseCosts(data, caseGenes, relatedDiseases), i -> {
+            // The score-only path computes the LRs without creating the explanations of the results.
+            double pretestProbability = pretestProbability(i, options);
+            posttestProbabilities[i] = Double.isNaN(pretestProbability) || isDisregarded(i, data, options, caseGenes)
+                    ? Double.NaN
+                    : posttestProbability(i, data, pretestProbability, bestGenotypeLr(i, caseGenes, genotypeLrs),
+                    observedQueries, excludedQueries, unrelatedObservedLrs, relatedDiseases);
+        });
+        return posttestProbabilities;
+    }
+
+    /**
+     * @return the indices of the terms or {@link HpoTermIndex#MISSING} for the terms that are missing in HPO
+     * or that are not given by their primary ids.
+     */
+    private int[] primaryTermIndices(List<TermId> terms) {
+        HpoTermIndex termIndex = phenotypeLrEvaluator.termIndex();
+        int[] indices = new int[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            TermId term = terms.get(i);
+            int index = termIndex.index(term);
+            indices[i] = index != HpoTermIndex.MISSING && termIndex.termId(index).equals(term)
+                    ? index
+                    : HpoTermIndex.MISSING;
+        }
+        return indices;
+    }
+
+    private double posttestProbability(int diseaseIdx,
+                                       AnalysisData data,
+                                       double pretestProbability,
+                                       GenotypeLrWithExplanation bestGenotypeLr,
+                                       int[] observedQueries,
+                                       int[] excludedQueries,
+                                       double[] unrelatedObservedLrs,
+                                       BitSet[] relatedDiseases) {
+        InducedDiseaseGraph idg = diseaseGraphs.get(diseaseIdx);
+        double observedLr = 1.;
+        for (int i = 0; i < observedQueries.length; i++) {
+            BitSet related = relatedDiseases[i];
+            if (related != null && !related.get(diseaseIdx))
+                observedLr *= unrelatedObservedLrs[i];
+            else if (observedQueries[i] == HpoTermIndex.MISSING)
+                // Let the evaluator deal with the alternate ids and with the terms that are missing in HPO.
+                observedLr *= phenotypeLrEvaluator.lrForObservedTerm(data.presentPhenotypeTerms().get(i), idg).lr();
+            else
+                observedLr *= phenotypeLrEvaluator.observedLr(observedQueries[i], idg);
+        }
+        double excludedLr = 1.;
+        for (int i = 0; i < excludedQueries.length; i++) {
+            excludedLr *= excludedQueries[i] == HpoTermIndex.MISSING
+                    ? phenotypeLrEvaluator.lrForExcludedTerm(data.negatedPhenotypeTerms().get(i), idg).lr()
+                    : phenotypeLrEvaluator.excludedLr(excludedQueries[i], idg);
+        }
+        double genotypeLr = bestGenotypeLr == null ? 1. : bestGenotypeLr.lr();
+        return TestResult.calculatePosttestProbability(pretestProbability, observedLr * excludedLr * genotypeLr);
+    }
+
+    /**
+     * Analyze the cases in parallel. At most {@link #MAX_CASES_IN_FLIGHT_PER_WORKER} cases per pool worker
+     * are analyzed or waiting for the consumer at any time, hence the memory usage does not depend on the number of cases.
+     * The consumer is called from the calling thread.
+     */
+    @Override
+    public void runBatch(Iterable<AnalysisData> cases,
+                         AnalysisOptions options,
+                         BiConsumer<AnalysisData, AnalysisResults> consumer) {
+        Objects.requireNonNull(options);
+        Objects.requireNonNull(consumer);
+        int maxInFlight = MAX_CASES_IN_FLIGHT_PER_WORKER * pool.getParallelism();
+        CompletionService<CaseResults> completionService = new ExecutorCompletionService<>(pool);
+        ProgressReporter progressReporter = new ProgressReporter(100, "cases");
+
+        int inFlight = 0;
+        try {
+            for (AnalysisData data : cases) {
+                if (inFlight == maxInFlight) {
+                    acceptNext(completionService, consumer);
+                    inFlight--;
+                }
+                completionService.submit(() -> analyzeCase(data, options));
+                inFlight++;
+                progressReporter.log();
+            }
+            for (; inFlight > 0; inFlight--)
+                acceptNext(completionService, consumer);
+        } catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for {} cases", inFlight, e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        progressReporter.summarize();
+        phenotypeLrEvaluator.cache().ifPresent(cache -> LOGGER.debug("Phenotype LR cache: {}", cache.stats()));
+    }
+
+    private static void acceptNext(CompletionService<CaseResults> completionService,
+                                   BiConsumer<AnalysisData, AnalysisResults> consumer) throws InterruptedException {
+        try {
+            CaseResults next = completionService.take().get();
+            consumer.accept(next.data(), next.results());
+        } catch (ExecutionException e) {
+            // Not expected, the failures are handled by `analyzeCase`.
+            LOGGER.error(e.getMessage(), e);
+        }
+    }
+
+    private CaseResults analyzeCase(AnalysisData data, AnalysisOptions options) {
+        AnalysisResults results;
+        try {
+            results = analyze(data, options, () -> {});
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while analyzing {}: {}", data.sampleId(), e.getMessage(), e);
+            results = AnalysisResults.empty();
+        }
+        return new CaseResults(data, results);
+    }
+
+    /**
+     * Analyze a case. The method must be called from a thread of the {@link #pool} to use its workers
+     * for analyzing the diseases.
+     */
+    private AnalysisResults analyze(AnalysisData data, AnalysisOptions options, Runnable onDisease) {
+        GeneDiseaseIndex.CaseGenes caseGenes = geneDiseaseIndex.caseGenes(data.genes());
+        BitSet[] relatedDiseases = relatedDiseases(data.presentPhenotypeTerms());
+        GenotypeLrTable genotypeLrs = genotypeLrTable(data.sampleId(), caseGenes);
+
+        // Each disease writes its results into its own slots of the builder.
+        AnalysisResultsColumnar.Builder builder = AnalysisResultsColumnar.builder(diseaseIndex,
+                data.presentPhenotypeTerms(),
+                data.negatedPhenotypeTerms(),
+                explanationFactory);
+        OptionalInt topK = options.topK();
+        if (topK.isPresent())
+            analyzeTopDiseases(topK.getAsInt(), data, options, caseGenes, genotypeLrs, relatedDiseases, builder, onDisease);
+        else
+            forEachDisease(diseaseCosts(data, caseGenes, relatedDiseases), i -> {
+                onDisease.run();
+                analyzeDisease(i, data, options, caseGenes, genotypeLrs, relatedDiseases, builder);
+            });
+        return builder.build();
+    }
+
+    /**
+     * Branch and bound search for the <code>k</code> diseases with the greatest posttest probability.
+     * <p>
+     * We screen all diseases and compute an upper bound of the posttest probability of each remaining disease
+     * from the exact genotype LR and from the upper bounds of the phenotype LRs. Then, we evaluate the diseases
+     * in the order of descending bounds, in batches, and we stop when the bound of the next disease is less
+     * than the posttest probability of the <code>k</code>-th best disease evaluated so far.
+     */
+    private void analyzeTopDiseases(int k,
+                                    AnalysisData data,
+                                    AnalysisOptions options,
+                                    GeneDiseaseIndex.CaseGenes caseGenes,
+                                    GenotypeLrTable genotypeLrs,
+                                    BitSet[] relatedDiseases,
+                                    AnalysisResultsColumnar.Builder builder,
+                                    Runnable onDisease) {
+        List<TermId> observedTerms = data.presentPhenotypeTerms();
+        double[] maxObservedLrs = new double[observedTerms.size()];
+        double[] unrelatedObservedLrs = new double[observedTerms.size()];
+        for (int i = 0; i < observedTerms.size(); i++) {
+            maxObservedLrs[i] = phenotypeLrEvaluator.maxLrForObservedTerm(observedTerms.get(i));
+            unrelatedObservedLrs[i] = phenotypeLrEvaluator.noMatchBelowRoot(observedTerms.get(i)).lr();
+        }
 
-        for (Gene2Genotype gene : genes) {
-            Collection<TermId> diseaseIds = geneToDisease.getOrDefault(gene.geneId().id(), List.of());
-            for (TermId diseaseId : diseaseIds) {
-                diseaseToGenotype.computeIfAbsent(diseaseId, k -> new LinkedList<>())
-                        .add(gene);
+        Candidate[] candidates = new Candidate[diseaseIndex.size()];
+        double[] bounds = new double[diseaseIndex.size()];
+        IntStream.range(0, diseaseIndex.size())
+                .parallel()
+                .peek(i -> onDisease.run())
+                .forEach(i -> {
+                    Candidate candidate = screenDisease(i, data, options, caseGenes, genotypeLrs);
+                    candidates[i] = candidate;
+                    bounds[i] = candidate == null
+                            ? Double.NEGATIVE_INFINITY
+                            : posttestProbabilityBound(i, data, candidate, maxObservedLrs, unrelatedObservedLrs, relatedDiseases);
+                });
+
+        int[] order = PosttestRanking.rank(bounds);
+        int batchSize = TOP_K_DISEASES_PER_WORKER * pool.getParallelism();
+        double[] posttestProbabilities = new double[diseaseIndex.size()];
+        // A min-heap with the posttest probabilities of the best `k` diseases evaluated so far.
+        PriorityQueue<Double> best = new PriorityQueue<>(k + 1);
+        int start = 0;
+        while (start < order.length) {
+            double threshold = best.size() == k ? best.peek() : Double.NEGATIVE_INFINITY;
+            int end = start;
+            while (end < order.length && end - start < batchSize
+                    && candidates[order[end]] != null && !(bounds[order[end]] < threshold))
+                end++;
+            if (end == start)
+                break;
+
+            IntStream.range(start, end)
+                    .parallel()
+                    .forEach(i -> {
+                        int disease = order[i];
+                        posttestProbabilities[disease] = scoreDisease(disease, data, candidates[disease], relatedDiseases, builder);
+                    });
+            for (int i = start; i < end; i++) {
+                best.offer(posttestProbabilities[order[i]]);
+                if (best.size() > k)
+                    best.poll();
             }
+            start = end;
+        }
+        LOGGER.debug("Evaluated {} of {} diseases to find the top {} diseases", start, diseaseIndex.size(), k);
+    }
+
+    /**
+     * @return the upper bound of the posttest probability of the disease that passed the screening.
+     */
+    private double posttestProbabilityBound(int diseaseIdx,
+                                            AnalysisData data,
+                                            Candidate candidate,
+                                            double[] maxObservedLrs,
+                                            double[] unrelatedObservedLrs,
+                                            BitSet[] relatedDiseases) {
+        // The products follow `TestResult.calculateCompositeLR`, hence the bound is not less than the composite LR.
+        double observedLr = 1.;
+        for (int i = 0; i < maxObservedLrs.length; i++) {
+            BitSet related = relatedDiseases[i];
+            observedLr *= related == null || related.get(diseaseIdx)
+                    ? maxObservedLrs[i]
+                    : unrelatedObservedLrs[i];
+        }
+        InducedDiseaseGraph idg = diseaseGraphs.get(diseaseIdx);
+        double excludedLr = 1.;
+        for (TermId excluded : data.negatedPhenotypeTerms())
+            excludedLr *= phenotypeLrEvaluator.maxLrForExcludedTerm(excluded, idg);
+        double genotypeLr = candidate.genotypeLr() == null ? 1. : candidate.genotypeLr().lr();
+        double posttestProbability = TestResult.calculatePosttestProbability(candidate.pretestProbability(), observedLr * excludedLr * genotypeLr);
+        // Guard against the rounding of the posttest probability.
+        return Math.nextUp(posttestProbability);
+    }
+
+    /**
+     * Estimate the cost of analyzing each disease of the case. The LR of a phenotype term scans the annotations
+     * of the disease, unless the observed term is not related to the disease. The genotype LRs are precomputed,
+     * hence each gene only adds a lookup.
+     */
+    private long[] diseaseCosts(AnalysisData data, GeneDiseaseIndex.CaseGenes caseGenes, BitSet[] relatedDiseases) {
+        long[] costs = new long[diseaseIndex.size()];
+        int excludedCount = data.negatedPhenotypeTerms().size();
+        for (int disease = 0; disease < costs.length; disease++) {
+            int annotationCount = diseaseGraphs.get(disease).annotationCount();
+            long cost = 1 + caseGenes.geneCount(disease) + (long) excludedCount * annotationCount;
+            for (BitSet related : relatedDiseases)
+                cost += related == null || related.get(disease) ? annotationCount : 1;
+            costs[disease] = cost;
+        }
+        return costs;
+    }
+
+    /**
+     * Run the <code>action</code> for each disease in the pool. The diseases are split into chunks of similar
+     * estimated cost, and the chunks are submitted to the pool. The method must be called from a thread
+     * of the {@link #pool} and it returns when all diseases were processed.
+     */
+    private void forEachDisease(long[] costs, IntConsumer action) {
+        int[] bounds = CostPartition.partition(costs, CHUNKS_PER_WORKER * pool.getParallelism());
+        LongAdder busyNanos = new LongAdder();
+        List<ForkJoinTask<?>> chunks = new ArrayList<>(bounds.length - 1);
+        for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+            int start = bounds[chunk], end = bounds[chunk + 1];
+            chunks.add(ForkJoinTask.adapt(() -> {
+                long begin = System.nanoTime();
+                for (int i = start; i < end; i++)
+                    action.accept(i);
+                busyNanos.add(System.nanoTime() - begin);
+            }));
         }
 
-        return diseaseToGenotype;
+        long begin = System.nanoTime();
+        ForkJoinTask.invokeAll(chunks);
+        long elapsed = System.nanoTime() - begin;
+        if (LOGGER.isDebugEnabled()) {
+            // The time when the workers were not processing the chunks, e.g. waiting for the last chunk.
+            long available = elapsed * pool.getParallelism();
+            double idle = available == 0 ? 0. : 100. * Math.max(0, available - busyNanos.sum()) / available;
+            LOGGER.debug("Processed {} diseases in {} chunks in {} ms, the workers were idle {}% of the time",
+                    costs.length, chunks.size(), elapsed / 1_000_000, String.format("%.1f", idle));
+        }
     }
 
-    private Optional<TestResult> analyzeDisease(HpoDisease disease,
-                                                AnalysisData analysisData,
-                                                AnalysisOptions options,
-                                                Map<TermId, List<Gene2Genotype>> diseaseToGenotype) {
+    /**
+     * Shut down the worker pool unless the pool was provided by the caller. The runner must not be used after closing.
+     */
+    @Override
+    public void close() {
+        if (ownsPool) {
+            LOGGER.debug("Shutting down LIRICAL pool");
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Look up the diseases where the LRs of the observed terms must be computed. The other diseases get
+     * the {@link LrMatchType#NO_MATCH_BELOW_ROOT} LR. The array element is <code>null</code>
+     * if the term must be evaluated in all diseases.
+     */
+    private BitSet[] relatedDiseases(List<TermId> observedTerms) {
+        BitSet[] related = new BitSet[observedTerms.size()];
+        for (int i = 0; i < observedTerms.size(); i++)
+            related[i] = termDiseaseIndex.diseasesRelatedToObservedTerm(observedTerms.get(i)).orElse(null);
+        return related;
+    }
+
+    /**
+     * Compute the genotype LRs of the genes for the modes of inheritance of the diseases associated with the genes.
+     */
+    private GenotypeLrTable genotypeLrTable(String sampleId, GeneDiseaseIndex.CaseGenes caseGenes) {
+        BitSet[] modesOfInheritanceByGene = new BitSet[caseGenes.genes().size()];
+        for (int i = 0; i < modesOfInheritanceByGene.length; i++)
+            modesOfInheritanceByGene[i] = new BitSet(modesOfInheritance.size());
+        for (int disease = 0; disease < diseaseIndex.size(); disease++)
+            for (int i = 0; i < caseGenes.geneCount(disease); i++)
+                modesOfInheritanceByGene[caseGenes.genePosition(disease, i)].set(diseaseModesOfInheritance[disease]);
+        return GenotypeLrTable.of(genotypeLikelihoodRatio, sampleId, caseGenes.genes(), modesOfInheritance, modesOfInheritanceByGene);
+    }
+
+    private void analyzeDisease(int diseaseIdx,
+                                AnalysisData analysisData,
+                                AnalysisOptions options,
+                                GeneDiseaseIndex.CaseGenes caseGenes,
+                                GenotypeLrTable genotypeLrs,
+                                BitSet[] relatedDiseases,
+                                AnalysisResultsColumnar.Builder builder) {
+        // The cheap checks go first, the phenotype LRs are only computed for the diseases that pass the checks.
+        Candidate candidate = screenDisease(diseaseIdx, analysisData, options, caseGenes, genotypeLrs);
+        if (candidate != null)
+            scoreDisease(diseaseIdx, analysisData, candidate, relatedDiseases, builder);
+    }
+
+    /**
+     * Check the pretest probability and the genes of the disease, and find the best genotype LR.
+     *
+     * @return the candidate or <code>null</code> if the disease is disregarded.
+     */
+    private Candidate screenDisease(int diseaseIdx,
+                                    AnalysisData analysisData,
+                                    AnalysisOptions options,
+                                    GeneDiseaseIndex.CaseGenes caseGenes,
+                                    GenotypeLrTable genotypeLrs) {
+        double pretestProbability = pretestProbability(diseaseIdx, options);
+        if (Double.isNaN(pretestProbability) || isDisregarded(diseaseIdx, analysisData, options, caseGenes))
+            return null;
+        return new Candidate(pretestProbability, bestGenotypeLr(diseaseIdx, caseGenes, genotypeLrs));
+    }
+
+    /**
+     * 1 - pretest probability
+     *
+     * @return the pretest probability of the disease or {@link Double#NaN} if the probability is missing.
+     */
+    private double pretestProbability(int diseaseIdx, AnalysisOptions options) {
+        HpoDisease disease = diseaseIndex.disease(diseaseIdx);
         Optional<Double> pretestOptional = options.pretestDiseaseProbability().pretestProbability(disease.id());
         if (pretestOptional.isEmpty()) {
             LOGGER.warn("Missing pretest probability for {} ({})", disease.diseaseName(), disease.id());
-            return Optional.empty();
+            return Double.NaN;
         }
-        double pretestProbability = pretestOptional.get();
+        return pretestOptional.get();
+    }
 
-        List<Gene2Genotype> genotypes = diseaseToGenotype.getOrDefault(disease.id(), List.of());
+    /**
+     * 2 - genes
+     *
+     * @return <code>true</code> if the disease is disregarded due to its genes.
+     */
+    private boolean isDisregarded(int diseaseIdx,
+                                  AnalysisData analysisData,
+                                  AnalysisOptions options,
+                                  GeneDiseaseIndex.CaseGenes caseGenes) {
+        if (caseGenes.isEmpty())
+            return false;
+        // The variant/genotype data is available for the individual
+        /*
+         If the global mode is on, we keep the differentials with no associated gene. In this case,
+         `bestGenotypeLr` stays null, and it's used downstream.
 
-        InducedDiseaseGraph idg = InducedDiseaseGraph.create(disease, phenotypeService.hpo());
-        List<LrWithExplanation> observed = observedPhenotypesLikelihoodRatios(analysisData.presentPhenotypeTerms(), idg);
-        List<LrWithExplanation> excluded = excludedPhenotypesLikelihoodRatios(analysisData.negatedPhenotypeTerms(), idg);
+         However, if the global mode is off, we skip the differential diagnosis as there is no known gene associated
+         with the disease, and we do not add any result.
+        */
+        if (caseGenes.geneCount(diseaseIdx) == 0 && !options.useGlobal())
+            return true;
 
-        // The GT LR stays `null` if no genotype data is available.
+        return options.disregardDiseaseWithNoDeleteriousVariants()
+                && !hasDeleteriousVariants(analysisData.sampleId(), options.pathogenicityThreshold(), caseGenes, diseaseIdx);
+    }
+
+    /**
+     * @return the best genotype LR of the disease genes or <code>null</code> if no genotype data is available.
+     */
+    private GenotypeLrWithExplanation bestGenotypeLr(int diseaseIdx,
+                                                     GeneDiseaseIndex.CaseGenes caseGenes,
+                                                     GenotypeLrTable genotypeLrs) {
         GenotypeLrWithExplanation bestGenotypeLr = null;
-        if (!diseaseToGenotype.isEmpty()) {
-            // The variant/genotype data is available for the individual
-            boolean noPredictedDeleteriousVariantsWereFound = true;
-            for (Gene2Genotype g2g : genotypes) { // Find the gene with the best LR match
-                GenotypeLrWithExplanation candidate = genotypeLikelihoodRatio.evaluateGenotype(analysisData.sampleId(), g2g, disease.modesOfInheritance());
-                bestGenotypeLr = takeNonNullOrGreaterLr(bestGenotypeLr, candidate);
-
-                if (options.disregardDiseaseWithNoDeleteriousVariants()) {
-                    // has at least one pathogenic clinvar variant or predicted pathogenic variant?
-                    if (g2g.pathogenicClinVarCount(analysisData.sampleId()) > 0
-                            || g2g.pathogenicAlleleCount(analysisData.sampleId(), options.pathogenicityThreshold()) > 0) {
-                        noPredictedDeleteriousVariantsWereFound = false;
-                    }
-                }
-            }
+        for (int i = 0; i < caseGenes.geneCount(diseaseIdx); i++) { // Find the gene with the best LR match
+            GenotypeLrWithExplanation candidate = genotypeLrs.lr(caseGenes.genePosition(diseaseIdx, i), diseaseModesOfInheritance[diseaseIdx]);
+            bestGenotypeLr = takeNonNullOrGreaterLr(bestGenotypeLr, candidate);
+        }
+        return bestGenotypeLr;
+    }
 
-            if (options.disregardDiseaseWithNoDeleteriousVariants() && noPredictedDeleteriousVariantsWereFound)
-                return Optional.empty();
+    /**
+     * Compute the phenotype LRs of the candidate disease and add the results to the <code>builder</code>.
+     *
+     * @return the posttest probability of the disease.
+     */
+    private double scoreDisease(int diseaseIdx,
+                                AnalysisData analysisData,
+                                Candidate candidate,
+                                BitSet[] relatedDiseases,
+                                AnalysisResultsColumnar.Builder builder) {
+        // 3 - phenotypes
+        InducedDiseaseGraph idg = diseaseGraphs.get(diseaseIdx);
+        List<LrWithExplanation> observed = observedPhenotypesLikelihoodRatios(analysisData.presentPhenotypeTerms(), diseaseIdx, relatedDiseases, idg);
+        List<LrWithExplanation> excluded = excludedPhenotypesLikelihoodRatios(analysisData.negatedPhenotypeTerms(), idg);
 
-            /*
-             At this point, the `bestGenotypeLr` is null iff no gene is associated with a disease.
-             If the global mode is on, we keep the differentials with no associated gene. In this case,
-             `bestGenotypeLr` stays null, and it's used downstream.
+        builder.add(diseaseIdx, candidate.pretestProbability(), observed, excluded, candidate.genotypeLr());
+        return builder.posttestProbability(diseaseIdx);
+    }
 
-             However, if the global mode is off, we skip the differential diagnosis as there is no known gene associated
-             with the disease, and we return an empty optional.
-            */
-            if (bestGenotypeLr == null && !options.useGlobal())
-                return Optional.empty();
+    /**
+     * @return <code>true</code> if a gene of the disease has at least one pathogenic ClinVar variant
+     * or a predicted pathogenic variant.
+     */
+    private static boolean hasDeleteriousVariants(String sampleId,
+                                                  float pathogenicityThreshold,
+                                                  GeneDiseaseIndex.CaseGenes caseGenes,
+                                                  int diseaseIdx) {
+        for (int i = 0; i < caseGenes.geneCount(diseaseIdx); i++) {
+            Gene2Genotype g2g = caseGenes.genes().get(caseGenes.genePosition(diseaseIdx, i));
+            if (g2g.pathogenicClinVarCount(sampleId) > 0
+                    || g2g.pathogenicAlleleCount(sampleId, pathogenicityThreshold) > 0)
+                return true;
         }
-
-        return Optional.of(TestResult.of(disease.id(), pretestProbability, observed, excluded, bestGenotypeLr));
+        return false;
     }
 
+    private List<LrWithExplanation> observedPhenotypesLikelihoodRatios(List<TermId> phenotypes,
+                                                                      int diseaseIdx,
+                                                                      BitSet[] relatedDiseases,
+                                                                      InducedDiseaseGraph idg) {
+        List<LrWithExplanation> lrs = new ArrayList<>(phenotypes.size());
+        for (int i = 0; i < phenotypes.size(); i++)
+            lrs.add(observedLr(phenotypes.get(i), diseaseIdx, relatedDiseases[i], idg));
+        return lrs;
+    }
 
-    private List<LrWithExplanation> observedPhenotypesLikelihoodRatios(List<TermId> phenotypes, InducedDiseaseGraph idg) {
-        return phenotypes.stream()
-                .map(phenotype -> phenotypeLrEvaluator.lrForObservedTerm(phenotype, idg))
-                .toList();
+    /**
+     * @param related the diseases related to the observed term or <code>null</code> if the term must be evaluated
+     *                in all diseases.
+     */
+    private LrWithExplanation observedLr(TermId phenotype, int diseaseIdx, BitSet related, InducedDiseaseGraph idg) {
+        return related == null || related.get(diseaseIdx)
+                ? phenotypeLrEvaluator.lrForObservedTerm(phenotype, idg)
+                : phenotypeLrEvaluator.noMatchBelowRoot(phenotype);
     }
 
     private List<LrWithExplanation> excludedPhenotypesLikelihoodRatios(List<TermId> phenotypes, InducedDiseaseGraph idg) {
@@ -154,4 +710,15 @@ public class LiricalAnalysisRunnerImpl implements LiricalAnalysisRunner {
                 ? base
                 : candidate;
     }
+
+    private record CaseResults(AnalysisData data, AnalysisResults results) {
+    }
+
+    /**
+     * A disease that passed the screening.
+     *
+     * @param genotypeLr the best genotype LR or <code>null</code> if no genotype LR is available.
+     */
+    private record Candidate(double pretestProbability, GenotypeLrWithExplanation genotypeLr) {
+    }
 }
@@ -0,0 +1,104 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Ranks the results by descending posttest probability. The results with the same posttest probability keep
+ * their original order, hence the ranking is the same as the one obtained by a stable sort.
+ * <p>
+ * The <code>k</code> best results are selected by a bounded binary heap in <code>O(n log k)</code> time,
+ * without sorting all results.
+ */
+final class PosttestRanking {
+
+    private PosttestRanking() {
+    }
+
+    /**
+     * @param posttestProbabilities posttest probabilities of the results
+     * @param k                     the maximum number of results to rank
+     * @return indices of at most <code>k</code> results with the highest posttest probabilities, best first
+     */
+    static int[] topK(double[] posttestProbabilities, int k) {
+        if (k < 0)
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        int size = Math.min(k, posttestProbabilities.length);
+        if (size == 0)
+            return new int[0];
+
+        // A min-heap whose root is the worst of the best `size` results seen so far.
+        int[] heap = new int[size];
+        int n = 0;
+        for (int i = 0; i < posttestProbabilities.length; i++) {
+            if (n < size) {
+                heap[n] = i;
+                siftUp(heap, n++, posttestProbabilities);
+            } else if (isWorse(heap[0], i, posttestProbabilities)) {
+                heap[0] = i;
+                siftDown(heap, n, posttestProbabilities);
+            }
+        }
+
+        // Pop the worst result to the back until the heap is empty.
+        int[] ranked = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            ranked[last] = heap[0];
+            heap[0] = heap[last];
+            siftDown(heap, last, posttestProbabilities);
+        }
+        return ranked;
+    }
+
+    /**
+     * @return indices of all results, best first
+     */
+    static int[] rank(double[] posttestProbabilities) {
+        return topK(posttestProbabilities, posttestProbabilities.length);
+    }
+
+    /**
+     * @return <code>true</code> if the result <code>a</code> ranks below the result <code>b</code>.
+     */
+    private static boolean isWorse(int a, int b, double[] posttestProbabilities) {
+        int cmp = Double.compare(posttestProbabilities[a], posttestProbabilities[b]);
+        return cmp < 0 || (cmp == 0 && a > b);
+    }
+
+    private static void siftUp(int[] heap, int i, double[] posttestProbabilities) {
+        int item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(item, heap[parent], posttestProbabilities))
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(int[] heap, int n, double[] posttestProbabilities) {
+        if (n == 0)
+            return;
+        int item = heap[0];
+        int i = 0;
+        int half = n >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < n && isWorse(heap[right], heap[child], posttestProbabilities))
+                child = right;
+            if (!isWorse(heap[child], item, posttestProbabilities))
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+
+    /**
+     * @return the first <code>k</code> indices of a complete <code>ranking</code>.
+     */
+    static int[] prefix(int[] ranking, int k) {
+        return Arrays.copyOf(ranking, Math.min(k, ranking.length));
+    }
+}
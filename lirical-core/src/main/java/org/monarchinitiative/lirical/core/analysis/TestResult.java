@@ -85,15 +85,28 @@ public class TestResult implements Comparable<TestResult> {
         this.genotypeLr = genotypeLr; // nullable
     }
 
-    private static double calculateCompositeLR(List<LrWithExplanation> observed, List<LrWithExplanation> excluded, GenotypeLrWithExplanation genotypeLR) {
+    static double calculateCompositeLR(List<LrWithExplanation> observed, List<LrWithExplanation> excluded, GenotypeLrWithExplanation genotypeLR) {
         // the composite ratio is equal to the product of the phenotype LR's
         // multiplied by the genotype LR.
-        double observedLr = observed.stream().map(LrWithExplanation::lr).reduce(1.0, (a, b) -> a * b);
-        double excludedLr = excluded.stream().map(LrWithExplanation::lr).reduce(1.0, (a, b) -> a * b);
+        double observedLr = 1.0;
+        for (LrWithExplanation lr : observed)
+            observedLr *= lr.lr();
+        double excludedLr = 1.0;
+        for (LrWithExplanation lr : excluded)
+            excludedLr *= lr.lr();
         double genotypeLrForCalculationOfCompositeLr = genotypeLR == null ? 1 : genotypeLR.lr();
         return observedLr * excludedLr * genotypeLrForCalculationOfCompositeLr;
     }
 
+    /**
+     * @return the posttest probability of a disease with given pretest probability and composite LR.
+     */
+    static double calculatePosttestProbability(double pretestProbability, double compositeLR) {
+        double pretestOdds = pretestProbability / (1.0 - pretestProbability);
+        double po = pretestOdds * compositeLR;
+        return po / (1 + po);
+    }
+
     public List<LrWithExplanation> observedResults() {
         return observedResults;
     }
@@ -144,8 +157,7 @@ public class TestResult implements Comparable<TestResult> {
     }
 
     private double calculatePosttestProbability() {
-        double po = posttestOdds();
-        return po / (1 + po);
+        return calculatePosttestProbability(pretestProbability, compositeLR);
     }
 
     public double posttestProbability() {
@@ -4,6 +4,7 @@ import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.svart.assembly.GenomicAssembly;
 
 import java.nio.file.Path;
+import java.util.Collection;
 
 public interface VariantParserFactory {
 
@@ -15,4 +16,12 @@ public interface VariantParserFactory {
     }
 
     VariantParser forPath(Path variantResource);
+
+    /**
+     * Get a parser for the analysis of the <code>samples</code>. The parser may skip the genotypes of the other samples
+     * and the variants that are not present in any of the <code>samples</code>.
+     */
+    default VariantParser forPath(Path variantResource, Collection<String> samples) {
+        return forPath(variantResource);
+    }
 }
@@ -0,0 +1,170 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The background frequencies of the HPO terms, i.e. the mean frequency of a term across all diseases,
+ * indexed by the {@link HpoTermIndex}.
+ * <p>
+ * A disease is implicitly annotated with the ancestors of its annotations, and the frequency of an ancestor
+ * in the disease is the maximum frequency of its descendant annotations. The frequencies are known
+ * for the non-obsolete terms and for the ancestors of the disease annotations. The frequency of an unknown term
+ * or of an alternative term id is not available.
+ */
+final class BackgroundFrequencyTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundFrequencyTable.class);
+    /**
+     * The number of chunks of the diseases that are summed concurrently.
+     */
+    private static final int CHUNKS = 16;
+
+    private final HpoTermIndex termIndex;
+    private final double[] frequencies;
+    private final BitSet knownTerms;
+
+    /**
+     * Compute the background frequencies. The diseases are split into {@link #CHUNKS} chunks that are summed
+     * concurrently, each into its own accumulator, and the accumulators are merged in the order of the chunks.
+     * Hence, the order of the summation and the frequencies do not depend on the number of processors.
+     */
+    static BackgroundFrequencyTable of(HpoTermIndex termIndex, Collection<HpoDisease> diseases) {
+        long start = System.currentTimeMillis();
+        List<HpoDisease> diseaseList = List.copyOf(diseases);
+        int chunks = Math.max(1, Math.min(diseaseList.size(), CHUNKS));
+        Accumulator[] accumulators = IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> {
+                    Accumulator accumulator = new Accumulator(termIndex);
+                    int end = (int) ((long) diseaseList.size() * (chunk + 1) / chunks);
+                    for (int i = (int) ((long) diseaseList.size() * chunk / chunks); i < end; i++)
+                        accumulator.add(diseaseList.get(i));
+                    return accumulator;
+                })
+                .toArray(Accumulator[]::new);
+        Accumulator total = accumulators[0];
+        for (int chunk = 1; chunk < accumulators.length; chunk++)
+            total.merge(accumulators[chunk]);
+
+        // Now we need to normalize by the number of diseases.
+        double n = diseaseList.size();
+        double[] frequencies = new double[termIndex.size()];
+        for (int term = 0; term < frequencies.length; term++)
+            frequencies[term] = total.sums[term] / n;
+
+        BitSet knownTerms = total.terms;
+        for (TermId termId : termIndex.ontology().getNonObsoleteTermIds()) {
+            int term = termIndex.index(termId);
+            if (term != HpoTermIndex.MISSING && termIndex.termId(term).equals(termId))
+                knownTerms.set(term);
+        }
+
+        LOGGER.debug("Computed background frequencies of {} terms from {} diseases in {} ms",
+                knownTerms.cardinality(), diseaseList.size(), System.currentTimeMillis() - start);
+        return new BackgroundFrequencyTable(termIndex, frequencies, knownTerms);
+    }
+
+    private BackgroundFrequencyTable(HpoTermIndex termIndex, double[] frequencies, BitSet knownTerms) {
+        this.termIndex = termIndex;
+        this.frequencies = frequencies;
+        this.knownTerms = knownTerms;
+    }
+
+    /**
+     * @return the index of the term with the known background frequency or {@link HpoTermIndex#MISSING}
+     * if the frequency of the term is not available.
+     */
+    int index(TermId termId) {
+        int term = termIndex.index(termId);
+        return term == HpoTermIndex.MISSING || !knownTerms.get(term) || !termIndex.termId(term).equals(termId)
+                ? HpoTermIndex.MISSING
+                : term;
+    }
+
+    /**
+     * @return the background frequency of the term or <code>Double.NaN</code> if the frequency is not available.
+     */
+    double frequency(int term) {
+        return knownTerms.get(term) ? frequencies[term] : Double.NaN;
+    }
+
+    /**
+     * @return the number of terms with a known background frequency.
+     */
+    int size() {
+        return knownTerms.cardinality();
+    }
+
+    /**
+     * Sums the frequencies of the terms across a chunk of diseases.
+     */
+    private static final class Accumulator {
+
+        private final HpoTermIndex termIndex;
+        private final Ontology ontology;
+        private final double[] sums;
+        private final BitSet terms;
+        /**
+         * The maximum frequency of the terms in the current disease, negative for the terms not seen in the disease.
+         */
+        private final double[] diseaseFrequencies;
+        private final int[] diseaseTerms;
+
+        private Accumulator(HpoTermIndex termIndex) {
+            this.termIndex = termIndex;
+            this.ontology = termIndex.ontology();
+            this.sums = new double[termIndex.size()];
+            this.terms = new BitSet(termIndex.size());
+            this.diseaseFrequencies = new double[termIndex.size()];
+            Arrays.fill(diseaseFrequencies, -1.);
+            this.diseaseTerms = new int[termIndex.size()];
+        }
+
+        private void add(HpoDisease disease) {
+            int n = 0;
+            for (HpoDiseaseAnnotation annotation : disease.annotations()) {
+                TermId tid = annotation.id();
+                TermId primaryTermId = ontology.getPrimaryTermId(tid);
+                int term = primaryTermId == null ? HpoTermIndex.MISSING : termIndex.index(primaryTermId);
+                if (term == HpoTermIndex.MISSING) {
+                    LOGGER.warn("Primary term ID for {} was not found!", tid.getValue());
+                    continue;
+                }
+                // All ancestors, including the term itself, are implicitly annotated to the disease.
+                // We take the maximum frequency to avoid double counting.
+                double termFrequency = annotation.frequency();
+                for (int ancestor : termIndex.ancestors(term)) {
+                    if (diseaseFrequencies[ancestor] < 0.)
+                        diseaseTerms[n++] = ancestor;
+                    if (termFrequency > diseaseFrequencies[ancestor])
+                        diseaseFrequencies[ancestor] = termFrequency;
+                }
+            }
+
+            for (int i = 0; i < n; i++) {
+                int term = diseaseTerms[i];
+                sums[term] += diseaseFrequencies[term];
+                terms.set(term);
+                diseaseFrequencies[term] = -1.;
+            }
+        }
+
+        private Accumulator merge(Accumulator other) {
+            for (int term = 0; term < sums.length; term++)
+                sums[term] += other.sums[term];
+            terms.or(other.terms);
+            return this;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.monarchinitiative.lirical.core.likelihoodratio;
 
+import org.monarchinitiative.lirical.core.likelihoodratio.poisson.ObservedCount;
 import org.monarchinitiative.lirical.core.likelihoodratio.poisson.PoissonDistribution;
 import org.monarchinitiative.lirical.core.model.Gene2Genotype;
 import org.monarchinitiative.lirical.core.service.BackgroundVariantFrequencyService;
@@ -163,6 +164,9 @@ public class GenotypeLikelihoodRatio {
         //last if/else
         double B = 1.0; // background
         double D = 1.0; // disease
+        // The background probability and the terms of the count do not depend on the mode of inheritance.
+        ObservedCount observedCount = ObservedCount.of(observedWeightedPathogenicVariantCount);
+        double backgroundProbability = new PoissonDistribution(lambda_background).probability(observedCount);
         for (TermId inheritanceId : inheritancemodes) {
             double lambda_disease;
             PoissonDistribution pdDisease;
@@ -185,9 +189,8 @@ public class GenotypeLikelihoodRatio {
                 heuristicPathCountAboveLambda = true;
             } else { // the following is the general case, where either the variant count
                 // matches or we are not using the strict option.
-                D = pdDisease.probability(observedWeightedPathogenicVariantCount);
-                PoissonDistribution pdBackground = new PoissonDistribution(lambda_background);
-                B = pdBackground.probability(observedWeightedPathogenicVariantCount);
+                D = pdDisease.probability(observedCount);
+                B = backgroundProbability;
                 if (B > 0 && D > 0) {
                     double ratio = D / B;
                     if (max != null && ratio > max) {
@@ -0,0 +1,198 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.Term;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * A compiled representation of the HPO that is used by the likelihood ratio calculations in the hot loop.
+ * <p>
+ * Each {@link TermId} of the ontology graph is assigned a dense <code>int</code> index from <code>[0, size())</code>.
+ * The parents, children, and the ancestor closure (including the term itself) of each term are stored
+ * as sorted <code>int</code> arrays, hence the subclass checks become a binary search instead of a walk
+ * over sets of {@link TermId}s. Alternative ids of the terms are resolved to the index of the primary term.
+ * <p>
+ * The index is immutable and thread-safe. It is cheaper to build the index once, when loading the resources,
+ * and share it among the components that need it.
+ */
+public class HpoTermIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HpoTermIndex.class);
+
+    /**
+     * Index value returned for a term that is not present in the ontology.
+     */
+    public static final int MISSING = -1;
+
+    private final Ontology ontology;
+    private final Map<TermId, Integer> termIndices;
+    private final TermId[] termIds;
+    private final int[][] parents;
+    private final int[][] children;
+    private final int[][] ancestors;
+
+    public static HpoTermIndex of(Ontology ontology) {
+        long start = System.currentTimeMillis();
+        HpoTermIndex index = new HpoTermIndex(Objects.requireNonNull(ontology));
+        LOGGER.debug("Indexed {} HPO terms in {} ms", index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private HpoTermIndex(Ontology ontology) {
+        this.ontology = ontology;
+        // The graph may include a few terms that are marked as obsolete, these are indexed as well.
+        Set<TermId> indexed = new HashSet<>(ontology.getNonObsoleteTermIds());
+        indexed.addAll(ontology.getGraph().vertexSet());
+        this.termIds = indexed.stream()
+                .sorted()
+                .toArray(TermId[]::new);
+
+        Map<TermId, Integer> indices = new HashMap<>(termIds.length * 2);
+        for (int i = 0; i < termIds.length; i++)
+            indices.put(termIds[i], i);
+        // Alternative ids point to the primary term.
+        for (Map.Entry<TermId, Term> e : ontology.getTermMap().entrySet()) {
+            Integer primary = indices.get(e.getValue().id());
+            if (primary != null)
+                indices.putIfAbsent(e.getKey(), primary);
+        }
+        this.termIndices = Map.copyOf(indices);
+
+        this.parents = new int[termIds.length][];
+        List<List<Integer>> childLists = new ArrayList<>(termIds.length);
+        for (int i = 0; i < termIds.length; i++)
+            childLists.add(new ArrayList<>());
+        for (int i = 0; i < termIds.length; i++) {
+            Set<TermId> parentIds = OntologyAlgorithm.getParentTerms(ontology, termIds[i], false);
+            int[] p = new int[parentIds.size()];
+            int n = 0;
+            for (TermId parentId : parentIds) {
+                int parent = index(parentId);
+                if (parent != MISSING) {
+                    p[n++] = parent;
+                    childLists.get(parent).add(i);
+                }
+            }
+            p = Arrays.copyOf(p, n);
+            Arrays.sort(p);
+            parents[i] = p;
+        }
+
+        this.children = new int[termIds.length][];
+        for (int i = 0; i < termIds.length; i++) {
+            int[] c = childLists.get(i).stream().mapToInt(Integer::intValue).toArray();
+            Arrays.sort(c);
+            children[i] = c;
+        }
+
+        this.ancestors = new int[termIds.length][];
+        for (int i = 0; i < termIds.length; i++)
+            computeAncestors(i);
+    }
+
+    /**
+     * Compute and memoize the ancestor closure of term <code>i</code>, including <code>i</code> itself.
+     */
+    private int[] computeAncestors(int i) {
+        if (ancestors[i] != null)
+            return ancestors[i];
+
+        // The closure is assembled iteratively to avoid deep recursion on long paths.
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(i);
+        while (!stack.isEmpty()) {
+            int current = stack.peek();
+            boolean ready = true;
+            for (int parent : parents[current]) {
+                if (ancestors[parent] == null) {
+                    stack.push(parent);
+                    ready = false;
+                }
+            }
+            if (!ready)
+                continue;
+
+            stack.pop();
+            if (ancestors[current] != null)
+                continue;
+            BitSet closure = new BitSet(termIds.length);
+            closure.set(current);
+            for (int parent : parents[current])
+                for (int a : ancestors[parent])
+                    closure.set(a);
+            ancestors[current] = closure.stream().toArray();
+        }
+        return ancestors[i];
+    }
+
+    /**
+     * @return the ontology used to build the index.
+     */
+    public Ontology ontology() {
+        return ontology;
+    }
+
+    /**
+     * @return the number of terms in the index.
+     */
+    public int size() {
+        return termIds.length;
+    }
+
+    /**
+     * @return the dense index of the <code>termId</code> or {@link #MISSING} if the term is not in the ontology.
+     */
+    public int index(TermId termId) {
+        Integer idx = termIndices.get(termId);
+        return idx == null ? MISSING : idx;
+    }
+
+    /**
+     * @return the primary {@link TermId} of the term with index <code>i</code>.
+     */
+    public TermId termId(int i) {
+        return termIds[i];
+    }
+
+    /**
+     * @return sorted indices of the direct parents of the term <code>i</code>. The array must not be modified.
+     */
+    public int[] parents(int i) {
+        return parents[i];
+    }
+
+    /**
+     * @return sorted indices of the direct children of the term <code>i</code>. The array must not be modified.
+     */
+    public int[] children(int i) {
+        return children[i];
+    }
+
+    /**
+     * @return sorted indices of the ancestors of the term <code>i</code>, including <code>i</code>.
+     * The array must not be modified.
+     */
+    public int[] ancestors(int i) {
+        return ancestors[i];
+    }
+
+    /**
+     * @return <code>true</code> if <code>ancestor</code> is <code>descendant</code> or its ancestor.
+     */
+    public boolean isAncestorOrSelf(int ancestor, int descendant) {
+        return Arrays.binarySearch(ancestors[descendant], ancestor) >= 0;
+    }
+
+    /**
+     * @return <code>true</code> if <code>child</code> is a direct child of <code>parent</code>.
+     */
+    public boolean isChild(int child, int parent) {
+        return Arrays.binarySearch(children[parent], child) >= 0;
+    }
+
+}
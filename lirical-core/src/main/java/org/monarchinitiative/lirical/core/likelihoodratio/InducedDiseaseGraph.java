@@ -4,25 +4,49 @@ package org.monarchinitiative.lirical.core.likelihoodratio;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
 import org.monarchinitiative.phenol.annotations.constants.hpo.HpoSubOntologyRootTermIds;
-import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * For some calculations of the phenotype likelihood ratio, we need to traverse the graph induced by the HPO terms to
  * which a disease is annotated. It is cheaper to create this graph once and reuse it for each of the query terms. This
- * class organizes that calculation. Note that this class is only used if there are no direct matches, so there is
- * no need to store the directly annotated diseases here.
+ * class organizes that calculation.
+ * <p>
+ * All terms are stored as indices of the {@link HpoTermIndex} that was used to create the graph.
+ * The annotations of the disease are kept in their original order, the induced graph
+ * and the induced negative graph are stored as sorted <code>int</code> arrays.
  *
  * @author <a href="mailto:peter.robinson@jax.org">Peter Robinson</a>
  */
 public class InducedDiseaseGraph {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(InducedDiseaseGraph.class);
+
     private final HpoDisease disease;
-    private final Map<TermId, Double> term2frequencyMap;
+
+    /**
+     * Indices of the terms that annotate the disease, including the absent annotations.
+     */
+    private final int[] annotationTerms;
+    /**
+     * Frequencies of {@link #annotationTerms}.
+     */
+    private final double[] annotationFrequencies;
+    /**
+     * <code>true</code> if the corresponding annotation of {@link #annotationTerms} is present in the disease.
+     */
+    private final boolean[] annotationPresent;
+
+    /**
+     * Sorted indices of the ancestors of the annotation terms, and the frequencies weighted by the path length
+     * in {@link #inducedTermFrequencies}.
+     */
+    private final int[] inducedTerms;
+    private final double[] inducedTermFrequencies;
 
     /**
      * If a disease is negative for say Abnormal serum creatinine kinase level
@@ -32,102 +56,210 @@ public class InducedDiseaseGraph {
      * ancestor graph of Abnormal serum creatinine kinase level (which includes
      * Abnormal serum creatinine kinase), and if any of the patient negated terms are
      * in this graph, then they are excluded both in the patient and in the disease.
+     * <p>
+     * The indices are sorted.
      */
-    private final Set<TermId> inducedNegativeGraph;
+    private final int[] inducedNegativeGraph;
 
     /**
-     * An inner class that represents a term together with the minimum path length to any
-     * term that directly annotates {@link #disease}.
+     * @deprecated building the {@link HpoTermIndex} is expensive, use {@link #create(HpoDisease, HpoTermIndex)}.
      */
-    private record CandidateMatch(TermId termId, int distance) {
+    @Deprecated(forRemoval = true)
+    public static InducedDiseaseGraph create(HpoDisease disease, Ontology ontology) {
+        return create(disease, HpoTermIndex.of(ontology));
     }
 
-    public static InducedDiseaseGraph create(HpoDisease disease, Ontology ontology) {
-        Map<TermId, Double> termFrequencies = new HashMap<>(disease.annotationCount());
+    public static InducedDiseaseGraph create(HpoDisease disease, HpoTermIndex index) {
+        int phenotypicAbnormality = index.index(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY);
 
+        int[] annotationTerms = new int[disease.annotationCount()];
+        double[] annotationFrequencies = new double[disease.annotationCount()];
+        boolean[] annotationPresent = new boolean[disease.annotationCount()];
+        BitSet negative = new BitSet(index.size());
+        // The highest frequency of each induced term, weighted by the distance to the annotation.
+        Map<Integer, Double> termFrequencies = new HashMap<>();
+
+        int n = 0;
         for (HpoDiseaseAnnotation annotation : disease.annotations()) {
+            int term = index.index(annotation.id());
+            if (term == HpoTermIndex.MISSING) {
+                LOGGER.warn("Skipping annotation {} of {} that is absent from HPO", annotation.id().getValue(), disease.id().getValue());
+                continue;
+            }
             double frequency = annotation.frequency();
-            CandidateMatch cmatch = new CandidateMatch(annotation.id(), 0); // distance is zero
-            Stack<CandidateMatch> stack = new Stack<>();
-            stack.push(cmatch);
-            while (!stack.empty()) {
-                CandidateMatch cm = stack.pop();
-                Set<TermId> parents = OntologyAlgorithm.getParentTerms(ontology, cm.termId, false);
-                for (TermId parentTermId : parents) {
-                    if (parentTermId.equals(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY)) {
+            annotationTerms[n] = term;
+            annotationFrequencies[n] = frequency;
+            annotationPresent[n] = annotation.isPresent();
+            n++;
+
+            if (annotation.isAbsent())
+                for (int ancestor : index.ancestors(term))
+                    negative.set(ancestor);
+
+            // Breadth-first search yields the shortest path length to each ancestor of the annotation.
+            // The root of the phenotypic abnormality subontology is not included, and we do not go beyond it.
+            Map<Integer, Integer> distances = new HashMap<>();
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(term);
+            distances.put(term, 0);
+            while (!queue.isEmpty()) {
+                int current = queue.remove();
+                int distance = distances.get(current) + 1;
+                for (int parent : index.parents(current)) {
+                    if (parent == phenotypicAbnormality || distances.containsKey(parent))
                         continue;
-                    }
-                    int distance = cm.distance + 1;
+                    distances.put(parent, distance);
+                    queue.add(parent);
                     double adjustedFrequency = frequency / Math.pow(10.0, distance);
-                    // Store the adjustedFrequency if no frequency is associated with termId.
+                    // Store the adjustedFrequency if no frequency is associated with the term.
                     // Otherwise, choose the greater frequency.
-                    termFrequencies.compute(parentTermId, (termId, freq) -> (freq == null)
-                            ? adjustedFrequency
-                            : Math.max(freq, adjustedFrequency));
-                    stack.push(new CandidateMatch(parentTermId, distance));
+                    termFrequencies.merge(parent, adjustedFrequency, Math::max);
                 }
             }
         }
-        Set<TermId> absentPhenotypeTerms = disease.absentAnnotationsStream()
-                .map(HpoDiseaseAnnotation::id)
-                .collect(Collectors.toUnmodifiableSet());
-        Set<TermId> negativeInducedGraph = OntologyAlgorithm.getAncestorTerms(ontology, absentPhenotypeTerms, true);
 
-        return new InducedDiseaseGraph(disease, termFrequencies, negativeInducedGraph);
+        int[] inducedTerms = termFrequencies.keySet().stream()
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .toArray();
+        double[] inducedTermFrequencies = new double[inducedTerms.length];
+        for (int i = 0; i < inducedTerms.length; i++)
+            inducedTermFrequencies[i] = termFrequencies.get(inducedTerms[i]);
+
+        return of(disease,
+                Arrays.copyOf(annotationTerms, n),
+                Arrays.copyOf(annotationFrequencies, n),
+                Arrays.copyOf(annotationPresent, n),
+                inducedTerms,
+                inducedTermFrequencies,
+                negative.stream().toArray());
+    }
+
+    static InducedDiseaseGraph of(HpoDisease disease,
+                                  int[] annotationTerms,
+                                  double[] annotationFrequencies,
+                                  boolean[] annotationPresent,
+                                  int[] inducedTerms,
+                                  double[] inducedTermFrequencies,
+                                  int[] inducedNegativeGraph) {
+        return new InducedDiseaseGraph(disease,
+                annotationTerms,
+                annotationFrequencies,
+                annotationPresent,
+                inducedTerms,
+                inducedTermFrequencies,
+                inducedNegativeGraph);
     }
 
     /**
      * Create the induced graph of the HPO terms used to annotate the disease. We weight the frequency downwards
      * according to the number of links (path length). That is, if the path length from a direct annotation to
-     * an ancestor is k, then we multiple the frequency of the annotation by (1/k).
-     *
-     * @param hpoDisease        The disease we are currently investigating.
-     * @param term2frequencyMap
-     * @param negativeInducedGraph
+     * an ancestor is k, then we multiple the frequency of the annotation by (1/10^k).
      */
     private InducedDiseaseGraph(HpoDisease hpoDisease,
-                            Map<TermId, Double> term2frequencyMap,
-                            Set<TermId> negativeInducedGraph) {
+                                int[] annotationTerms,
+                                double[] annotationFrequencies,
+                                boolean[] annotationPresent,
+                                int[] inducedTerms,
+                                double[] inducedTermFrequencies,
+                                int[] inducedNegativeGraph) {
         this.disease = hpoDisease;
-        this.term2frequencyMap = term2frequencyMap;
-        this.inducedNegativeGraph = negativeInducedGraph;
+        this.annotationTerms = annotationTerms;
+        this.annotationFrequencies = annotationFrequencies;
+        this.annotationPresent = annotationPresent;
+        this.inducedTerms = inducedTerms;
+        this.inducedTermFrequencies = inducedTermFrequencies;
+        this.inducedNegativeGraph = inducedNegativeGraph;
     }
 
     /**
      * See comments about {@link #inducedNegativeGraph}.
      *
-     * @param tid A term that was negated in a patient
+     * @param term index of a term that was negated in a patient
      * @return true if the term is also negated in the disease.
      */
-    public boolean isExactExcludedMatch(TermId tid) {
-        return this.inducedNegativeGraph.contains(tid);
+    public boolean isExactExcludedMatch(int term) {
+        return Arrays.binarySearch(inducedNegativeGraph, term) >= 0;
     }
 
     public HpoDisease getDisease() {
         return disease;
     }
 
+    /**
+     * @return the number of annotations (present and absent) of the disease.
+     */
+    public int annotationCount() {
+        return annotationTerms.length;
+    }
+
+    /**
+     * @return index of the term of the <code>i</code>-th annotation.
+     */
+    int annotationTerm(int i) {
+        return annotationTerms[i];
+    }
+
+    /**
+     * @return frequency of the <code>i</code>-th annotation.
+     */
+    double annotationFrequency(int i) {
+        return annotationFrequencies[i];
+    }
 
     /**
-     * Get the terms that annotate the disease (or is an ancestor of one of the terms) that are
-     * closest to tid in terms of path length. Return the best hits (list if more than one
-     * terms has the closest path length
+     * @return <code>true</code> if the <code>i</code>-th annotation is present in the disease.
+     */
+    boolean isAnnotationPresent(int i) {
+        return annotationPresent[i];
+    }
+
+    // The array getters are used for serialization, the arrays must not be modified.
+
+    int[] annotationTerms() {
+        return annotationTerms;
+    }
+
+    double[] annotationFrequencies() {
+        return annotationFrequencies;
+    }
+
+    boolean[] annotationPresent() {
+        return annotationPresent;
+    }
+
+    int[] inducedTerms() {
+        return inducedTerms;
+    }
+
+    double[] inducedTermFrequencies() {
+        return inducedTermFrequencies;
+    }
+
+    int[] inducedNegativeGraph() {
+        return inducedNegativeGraph;
+    }
+
+    /**
+     * Get the term that annotates the disease (or is an ancestor of one of the terms) that is
+     * closest to <code>term</code> in terms of path length.
      *
-     * @param tid      a query term
-     * @param ontology HPO
+     * @param term  index of a query term
+     * @param index the index used to create the graph
      * @return The best hit
      */
-    Term2Freq getClosestAncestor(TermId tid, Ontology ontology) {
-        Queue<TermId> queue = new LinkedList<>();
-        queue.add(tid);
+    Term2Freq getClosestAncestor(int term, HpoTermIndex index) {
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(term);
 
         while (!queue.isEmpty()) {
-            TermId t = queue.remove();
-            if (term2frequencyMap.containsKey(t)) {
-                return new Term2Freq(t, term2frequencyMap.get(t));
+            int t = queue.remove();
+            int pos = Arrays.binarySearch(inducedTerms, t);
+            if (pos >= 0) {
+                return new Term2Freq(index.termId(t), inducedTermFrequencies[pos]);
             } else {
-                Set<TermId> parents = OntologyAlgorithm.getParentTerms(ontology, t, false);
-                queue.addAll(parents);
+                for (int parent : index.parents(t))
+                    queue.add(parent);
             }
         }
 
@@ -138,5 +270,4 @@ public class InducedDiseaseGraph {
         return new Term2Freq(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY, 1.0);
     }
 
-
 }
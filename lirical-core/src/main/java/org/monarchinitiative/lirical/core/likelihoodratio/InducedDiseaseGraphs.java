@@ -0,0 +1,221 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * A container with {@link InducedDiseaseGraph}s of all diseases of the knowledge base.
+ * <p>
+ * The graphs depend only on the HPO release and on the disease annotations, hence they can be created
+ * once, when loading the resources, and shared by all analyses. The graphs can also be written into
+ * a binary file by {@link #write(OutputStream)} and loaded back by {@link #read(InputStream, HpoDiseases, HpoTermIndex)}.
+ * The file records the HPO release and a checksum of the annotations of each disease. A graph is only
+ * reused if both match the current resources, otherwise it is created again.
+ */
+public class InducedDiseaseGraphs {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InducedDiseaseGraphs.class);
+
+    private static final int MAGIC = 0x4C494447; // LIDG
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<TermId, InducedDiseaseGraph> graphs;
+    private final HpoTermIndex termIndex;
+    /**
+     * The number of graphs that were created instead of being read from a file.
+     */
+    private final int createdOnLoad;
+
+    /**
+     * Create induced graphs for all <code>diseases</code> in parallel.
+     */
+    public static InducedDiseaseGraphs create(HpoDiseases diseases, HpoTermIndex termIndex) {
+        long start = System.currentTimeMillis();
+        Map<TermId, InducedDiseaseGraph> graphs = diseases.hpoDiseases()
+                .parallel()
+                .map(disease -> InducedDiseaseGraph.create(disease, termIndex))
+                .collect(Collectors.toUnmodifiableMap(idg -> idg.getDisease().id(), Function.identity()));
+        LOGGER.debug("Created induced graphs for {} diseases in {} ms", graphs.size(), System.currentTimeMillis() - start);
+        return new InducedDiseaseGraphs(graphs, termIndex);
+    }
+
+    /**
+     * Read the induced graphs written by {@link #write(OutputStream)}.
+     * <p>
+     * The graphs of the <code>diseases</code> that are missing in the input or whose annotations changed
+     * since the graphs were written are created again, in parallel.
+     *
+     * @throws IOException if the input cannot be read or if it was written for a different HPO release.
+     */
+    public static InducedDiseaseGraphs read(InputStream is, HpoDiseases diseases, HpoTermIndex termIndex) throws IOException {
+        long start = System.currentTimeMillis();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not an induced disease graph file");
+        int version = in.readInt();
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unsupported format version " + version);
+        String hpoRelease = in.readUTF();
+        long fingerprint = in.readLong();
+        if (!hpoRelease.equals(hpoRelease(termIndex)) || fingerprint != fingerprint(termIndex))
+            throw new IOException("The induced disease graphs were created for a different HPO release " + hpoRelease);
+
+        Map<TermId, HpoDisease> diseaseById = diseases.diseaseById();
+        Map<TermId, InducedDiseaseGraph> graphs = new HashMap<>(diseaseById.size());
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            TermId diseaseId = TermId.of(in.readUTF());
+            long checksum = in.readLong();
+            int[] annotationTerms = readInts(in);
+            double[] annotationFrequencies = readDoubles(in);
+            boolean[] annotationPresent = readBooleans(in);
+            int[] inducedTerms = readInts(in);
+            double[] inducedTermFrequencies = readDoubles(in);
+            int[] inducedNegativeGraph = readInts(in);
+
+            HpoDisease disease = diseaseById.get(diseaseId);
+            if (disease != null && checksum(disease) == checksum)
+                graphs.put(diseaseId, InducedDiseaseGraph.of(disease, annotationTerms, annotationFrequencies,
+                        annotationPresent, inducedTerms, inducedTermFrequencies, inducedNegativeGraph));
+        }
+        int loaded = graphs.size();
+
+        List<HpoDisease> missing = diseases.hpoDiseases()
+                .filter(d -> !graphs.containsKey(d.id()))
+                .toList();
+        missing.parallelStream()
+                .map(disease -> InducedDiseaseGraph.create(disease, termIndex))
+                .toList()
+                .forEach(idg -> graphs.put(idg.getDisease().id(), idg));
+
+        LOGGER.debug("Loaded {} and created {} induced disease graphs in {} ms", loaded, missing.size(), System.currentTimeMillis() - start);
+        return new InducedDiseaseGraphs(Collections.unmodifiableMap(graphs), termIndex, missing.size());
+    }
+
+    private InducedDiseaseGraphs(Map<TermId, InducedDiseaseGraph> graphs, HpoTermIndex termIndex) {
+        this(graphs, termIndex, graphs.size());
+    }
+
+    private InducedDiseaseGraphs(Map<TermId, InducedDiseaseGraph> graphs, HpoTermIndex termIndex, int createdOnLoad) {
+        this.graphs = graphs;
+        this.termIndex = termIndex;
+        this.createdOnLoad = createdOnLoad;
+    }
+
+    /**
+     * @return the induced graph of the disease or an empty optional if the disease is not known.
+     */
+    public Optional<InducedDiseaseGraph> graphForDisease(TermId diseaseId) {
+        return Optional.ofNullable(graphs.get(diseaseId));
+    }
+
+    /**
+     * @return the number of graphs in the container.
+     */
+    public int size() {
+        return graphs.size();
+    }
+
+    /**
+     * @return <code>true</code> if some graphs were not read from the input but had to be created,
+     * e.g. because the disease annotations changed. The container should be written in that case.
+     */
+    public boolean isStale() {
+        return createdOnLoad > 0;
+    }
+
+    /**
+     * Write the graphs into the output stream in a binary format.
+     */
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(hpoRelease(termIndex));
+        out.writeLong(fingerprint(termIndex));
+        out.writeInt(graphs.size());
+        for (InducedDiseaseGraph idg : graphs.values()) {
+            out.writeUTF(idg.getDisease().id().getValue());
+            out.writeLong(checksum(idg.getDisease()));
+            writeInts(out, idg.annotationTerms());
+            writeDoubles(out, idg.annotationFrequencies());
+            writeBooleans(out, idg.annotationPresent());
+            writeInts(out, idg.inducedTerms());
+            writeDoubles(out, idg.inducedTermFrequencies());
+            writeInts(out, idg.inducedNegativeGraph());
+        }
+        out.flush();
+    }
+
+    static String hpoRelease(HpoTermIndex termIndex) {
+        return termIndex.ontology().getMetaInfo().getOrDefault("release", "");
+    }
+
+    /**
+     * The term indices depend on the HPO terms, hence we must not reuse the graphs if the terms changed.
+     */
+    static long fingerprint(HpoTermIndex termIndex) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < termIndex.size(); i++)
+            crc.update(termIndex.termId(i).getValue().getBytes());
+        return crc.getValue();
+    }
+
+    static long checksum(HpoDisease disease) {
+        CRC32 crc = new CRC32();
+        disease.annotations().forEach(a -> {
+            crc.update(a.id().getValue().getBytes());
+            crc.update(Float.toString(a.frequency()).getBytes());
+            crc.update(a.isPresent() ? 1 : 0);
+        });
+        return crc.getValue();
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values)
+            out.writeInt(value);
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values)
+            out.writeDouble(value);
+    }
+
+    private static void writeBooleans(DataOutputStream out, boolean[] values) throws IOException {
+        out.writeInt(values.length);
+        for (boolean value : values)
+            out.writeBoolean(value);
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = in.readInt();
+        return values;
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = in.readDouble();
+        return values;
+    }
+
+    private static boolean[] readBooleans(DataInputStream in) throws IOException {
+        boolean[] values = new boolean[in.readInt()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = in.readBoolean();
+        return values;
+    }
+}
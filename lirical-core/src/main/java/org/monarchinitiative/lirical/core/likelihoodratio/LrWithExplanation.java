@@ -4,6 +4,8 @@ import org.apache.commons.lang.StringUtils;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 
+import java.util.Objects;
+
 /**
  * There are five possible ways that a query term can match a disease term. The likelihood ratio
  * is calculated differently for each of these match types (see {@link LrMatchType}).This class
@@ -22,17 +24,36 @@ public class LrWithExplanation implements Comparable<LrWithExplanation> {
     private final TermId matchingTerm;
     private final LrMatchType matchType;
     private final double lr;
-    private final String explanation;
+    /**
+     * Factory for formatting the {@link #explanation} on demand, <code>null</code> if the explanation was provided.
+     */
+    private final LrWithExplanationFactory explanationFactory;
+    /**
+     * The explanation is only needed for the top differentials, hence we format it lazily on first access.
+     * The benign race on the field is fine as the formatting is idempotent.
+     */
+    private String explanation;
 
     public static LrWithExplanation of(TermId q, TermId m, LrMatchType mt, double lr, String explanation) {
-        return new LrWithExplanation(q, m, mt, lr, explanation);
+        return new LrWithExplanation(q, m, mt, lr, null, Objects.requireNonNull(explanation));
     }
 
-    private LrWithExplanation(TermId q, TermId m, LrMatchType mt, double lr, String explanation) {
+    /**
+     * Create the {@link LrWithExplanation} whose explanation is formatted by the <code>explanationFactory</code>
+     * when it is first requested.
+     */
+    static LrWithExplanation lazy(TermId q, TermId m, LrMatchType mt, double lr, LrWithExplanationFactory explanationFactory) {
+        return new LrWithExplanation(q, m, mt, lr, Objects.requireNonNull(explanationFactory), null);
+    }
+
+    private LrWithExplanation(TermId q, TermId m, LrMatchType mt, double lr,
+                              LrWithExplanationFactory explanationFactory,
+                              String explanation) {
         this.queryTerm = q;
         this.matchingTerm = m;
         this.matchType = mt;
         this.lr = lr;
+        this.explanationFactory = explanationFactory;
         this.explanation = explanation;
     }
 
@@ -53,14 +74,19 @@ public class LrWithExplanation implements Comparable<LrWithExplanation> {
     }
 
     public String explanation() {
-        return explanation;
+        String e = explanation;
+        if (e == null) {
+            e = explanationFactory.getExplanation(queryTerm, matchingTerm, matchType, lr);
+            explanation = e;
+        }
+        return e;
     }
 
     /**
      * @return explanation text suitable for including in HTML documents
      */
     public String escapedExplanation() {
-        return StringUtils.replaceEach(explanation, EXPLANATION_SEARCH_LIST, EXPLANATION_REPLACEMENT_LIST);
+        return StringUtils.replaceEach(explanation(), EXPLANATION_SEARCH_LIST, EXPLANATION_REPLACEMENT_LIST);
     }
 
     /**
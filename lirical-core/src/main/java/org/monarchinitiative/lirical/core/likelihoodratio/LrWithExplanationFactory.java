@@ -14,12 +14,15 @@ public class LrWithExplanationFactory {
     public LrWithExplanation create(TermId term, LrMatchType matchType, double lr) {
         return create(term, term, matchType, lr);
     }
+    /**
+     * Create the {@link LrWithExplanation}. The explanation is not formatted until it is requested
+     * by {@link LrWithExplanation#explanation()}.
+     */
     public LrWithExplanation create(TermId queryTerm, TermId matchingTerm, LrMatchType matchType, double lr) {
-        String explanation = getExplanation(queryTerm, matchingTerm, matchType, lr);
-        return LrWithExplanation.of(queryTerm, matchingTerm, matchType, lr, explanation);
+        return LrWithExplanation.lazy(queryTerm, matchingTerm, matchType, lr, this);
     }
 
-    private String getExplanation(TermId queryTerm, TermId matchingTerm, LrMatchType matchType, double lr) {
+    String getExplanation(TermId queryTerm, TermId matchingTerm, LrMatchType matchType, double lr) {
         String queryTermLabel = String.format("%s[%s]", ontology.getTermMap().get(queryTerm).getName(), queryTerm.getValue());
         String matchTermLabel = String.format("%s[%s]", ontology.getTermMap().get(matchingTerm).getName(), matchingTerm.getValue());
         double log10LR = Math.log10(lr);
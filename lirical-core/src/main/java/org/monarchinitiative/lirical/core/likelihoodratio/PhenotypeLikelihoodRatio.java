@@ -2,11 +2,9 @@ package org.monarchinitiative.lirical.core.likelihoodratio;
 
 
 import org.monarchinitiative.lirical.core.analysis.LiricalAnalysisRunner;
-import org.monarchinitiative.phenol.annotations.base.Ratio;
+import org.monarchinitiative.lirical.core.exception.LiricalRuntimeException;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
-import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
-import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
 import org.monarchinitiative.phenol.ontology.data.Ontology;
 import org.monarchinitiative.phenol.ontology.data.TermId;
 import org.slf4j.Logger;
@@ -16,7 +14,7 @@ import java.util.*;
 
 /**
  * This class is designed to calculate the background and foreground frequencies of any HPO term in any disease
- * (This is calculated by {@link #initializeFrequencyMap()} and stored in {@link #hpoTerm2OverallFrequency}).
+ * (This is calculated by {@link BackgroundFrequencyTable} and stored in {@link #backgroundFrequencies}).
  * The main entry point into this class is the function {@link #lrForObservedTerm}, which is called by
  * {@link LiricalAnalysisRunner} once for each HPO term
  * to which the case is annotation; it calls it once for each disease in our
@@ -35,15 +33,24 @@ public class PhenotypeLikelihoodRatio {
     /** The default likelihood ratio for an excluded query term that is explicitly excluded in a disease.*/
     private static final double EXCLUDED_IN_DISEASE_AND_EXCLUDED_IN_QUERY_PROBABILITY = 1000.0;
     private static final double FALSE_NEGATIVE_OBSERVATION_OF_PHENOTYPE_PROB = 0.01;
+    /** Marks the LRs that are not cached. The cache keys are never negative. */
+    private static final long NOT_CACHED = -1L;
+    private static final LrMatchType[] MATCH_TYPES = LrMatchType.values();
     /** The default frequency of a term in a disease if the explicit frequency is not available. */
     public static final float DEFAULT_TERM_FREQUENCY = 1.f; // TODO - is this the right thing to do?
     /** The HPO ontology with all of its subontologies. */
     private final Ontology ontology;
+    /** The compiled {@link #ontology} used in the hot loop. */
+    private final HpoTermIndex termIndex;
     /** This map has one entry for each disease in our database. Key--the disease ID, e.g., OMIM:600200.*/
     private final Map<TermId, HpoDisease> diseaseMap;
     private final LrWithExplanationFactory explanationFactory;
+    /** The cache of the computed LRs or <code>null</code> if the LRs are not cached. */
+    private final PhenotypeLrCache cache;
+    /** Dense indices of the diseases of {@link #diseaseMap}, used as cache keys. */
+    private final Map<TermId, Integer> diseaseIndices;
     /** Overall, i.e., background frequency of each HPO term. */
-    private Map<TermId, Double> hpoTerm2OverallFrequency = null;
+    private final BackgroundFrequencyTable backgroundFrequencies;
     /**
      * This is the probability of a finding if the disease is not annotated to it and there
      * is no common ancestor except the root. There are many possible causes of findings called
@@ -61,10 +68,47 @@ public class PhenotypeLikelihoodRatio {
      * @param diseases List of all diseases for this simulation
      */
     public PhenotypeLikelihoodRatio(Ontology ontology, HpoDiseases diseases) {
-        this.ontology = ontology;
+        this(HpoTermIndex.of(ontology), diseases);
+    }
+
+    /**
+     * @param termIndex The compiled HPO ontology
+     * @param diseases List of all diseases for this simulation
+     */
+    public PhenotypeLikelihoodRatio(HpoTermIndex termIndex, HpoDiseases diseases) {
+        this(termIndex, diseases, null);
+    }
+
+    /**
+     * @param termIndex The compiled HPO ontology
+     * @param diseases List of all diseases for this simulation
+     * @param cache the cache to reuse the LRs across the cases or <code>null</code> if the LRs should not be cached
+     */
+    public PhenotypeLikelihoodRatio(HpoTermIndex termIndex, HpoDiseases diseases, PhenotypeLrCache cache) {
+        this.termIndex = termIndex;
+        this.ontology = termIndex.ontology();
         this.diseaseMap = diseases.diseaseById();
         this.explanationFactory = new LrWithExplanationFactory(ontology); // TODO - DI?
-        initializeFrequencyMap();
+        this.cache = cache; // nullable
+        Map<TermId, Integer> diseaseIndices = new HashMap<>(diseaseMap.size() * 2);
+        for (TermId diseaseId : diseaseMap.keySet())
+            diseaseIndices.put(diseaseId, diseaseIndices.size());
+        this.diseaseIndices = Map.copyOf(diseaseIndices);
+        this.backgroundFrequencies = BackgroundFrequencyTable.of(termIndex, diseaseMap.values());
+    }
+
+    /**
+     * @return the compiled HPO used to evaluate the query terms.
+     */
+    public HpoTermIndex termIndex() {
+        return termIndex;
+    }
+
+    /**
+     * @return the cache of the phenotype LRs or an empty optional if the LRs are not cached.
+     */
+    public Optional<PhenotypeLrCache> cache() {
+        return Optional.ofNullable(cache);
     }
 
     /**
@@ -76,95 +120,199 @@ public class PhenotypeLikelihoodRatio {
      * @return A {@link LrWithExplanation} object with an explanation and the likelihood ratio of observing the HPO term in the disease corresponding to idg
      */
     public LrWithExplanation lrForObservedTerm(TermId queryTid, InducedDiseaseGraph idg) {
-        HpoDisease disease = idg.getDisease();
-        Set<TermId> queryAncestors = OntologyAlgorithm.getAncestorTerms(ontology,queryTid,true);
-        if (disease.absentAnnotationsStream().anyMatch(a -> queryAncestors.contains(a.id()))) {
-            // i.e., the query term is explicitly EXCLUDED in the disease definition
-            return explanationFactory.create(queryTid,
-                    LrMatchType.QUERY_TERM_PRESENT_BUT_EXCLUDED_IN_DISEASE,
-                    EXCLUDED_IN_DISEASE_BUT_PRESENT_IN_QUERY_PROBABILITY);
+        int query = queryTermIndex(queryTid);
+        long key = cacheKey(queryTid, query, false, idg);
+        return key == NOT_CACHED
+                ? observedTermLr(queryTid, query, idg)
+                : cache.getOrCompute(key, () -> observedTermLr(queryTid, query, idg));
+    }
+
+    /**
+     * Get the likelihood ratio of observing the HPO term in an individual with the disease, like
+     * {@link #lrForObservedTerm(TermId, InducedDiseaseGraph)}, without creating the explanation.
+     *
+     * @param query the index of the primary id of the HPO term in the {@link #termIndex()}.
+     */
+    public double observedLr(int query, InducedDiseaseGraph idg) {
+        if (cache != null)
+            // The cached LRs are reused without allocation.
+            return lrForObservedTerm(termIndex.termId(query), idg).lr();
+        return observedTermLr(null, query, idg, null);
+    }
+
+    private LrWithExplanation observedTermLr(TermId queryTid, int query, InducedDiseaseGraph idg) {
+        int[] match = new int[2];
+        double lr = observedTermLr(queryTid, query, idg, match);
+        TermId matchingTid = match[1] == HpoTermIndex.MISSING ? queryTid : termIndex.termId(match[1]);
+        return explanationFactory.create(queryTid, matchingTid, MATCH_TYPES[match[0]], lr);
+    }
+
+    /**
+     * Compute the LR of the observed query term.
+     *
+     * @param queryTid the query term id or <code>null</code> if the query is given by its primary id.
+     * @param match    the array to store the ordinal of the {@link LrMatchType} and the index of the matching term
+     *                 ({@link HpoTermIndex#MISSING} if the query term matches) or <code>null</code>.
+     */
+    private double observedTermLr(TermId queryTid, int query, InducedDiseaseGraph idg, int[] match) {
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            if (!idg.isAnnotationPresent(i) && termIndex.isAncestorOrSelf(idg.annotationTerm(i), query)) {
+                // i.e., the query term is explicitly EXCLUDED in the disease definition
+                return match(match, LrMatchType.QUERY_TERM_PRESENT_BUT_EXCLUDED_IN_DISEASE, HpoTermIndex.MISSING,
+                        EXCLUDED_IN_DISEASE_BUT_PRESENT_IN_QUERY_PROBABILITY);
+            }
         }
 
-        if (disease.isDirectlyAnnotatedTo(queryTid)) {
-            // The optional must be present since the disease is directly annotated to the query term.
-            //noinspection OptionalGetWithoutIsPresent
-            HpoDiseaseAnnotation annotation = disease.getAnnotation(queryTid).get();
-            double numerator = annotation.frequency();
-            double denominator = getBackgroundFrequency(queryTid);
-            double lr = numerator / denominator;
-            return explanationFactory.create(queryTid, LrMatchType.EXACT_MATCH, lr);
-        } else {
-            // there are multiple possibilities
-            // 1. the query term is a superclass of at least one disease term. Therefore,
-            // our query satisfies the criteria for the disease and we can take the
-            // frequency of the disease term. Since there may be multiple parents
-            // take the maximum frequency (since the parent term will have at least this frequency)
-            double maximumFrequencyOfDescendantTerm = 0.0;
-            boolean isAncestor=false;
-            TermId diseaseMatchingTerm=null;
-            for (HpoDiseaseAnnotation annotation : disease.annotations()) {
-                double frequency = annotation.frequency();
-                // is query an ancestor of a term that annotates the disease?
-                if (OntologyAlgorithm.isSubclass(ontology,annotation.id(),queryTid)) {
-                    maximumFrequencyOfDescendantTerm=Math.max(maximumFrequencyOfDescendantTerm,frequency);
-                    diseaseMatchingTerm=annotation.id();
-                    isAncestor=true;
-                }
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            if (idg.isAnnotationPresent(i) && idg.annotationTerm(i) == query) {
+                double numerator = idg.annotationFrequency(i);
+                double denominator = queryBackgroundFrequency(queryTid, query);
+                double lr = numerator / denominator;
+                return match(match, LrMatchType.EXACT_MATCH, HpoTermIndex.MISSING, lr);
             }
-            if (isAncestor) {
-                double denominator = getBackgroundFrequency(queryTid);
-                double lr = maximumFrequencyOfDescendantTerm/denominator;
-                return explanationFactory.create(queryTid, diseaseMatchingTerm,
-                        LrMatchType.DISEASE_TERM_SUBCLASS_OF_QUERY,
-                        lr);
+        }
+
+        // there are multiple possibilities
+        // 1. the query term is a superclass of at least one disease term. Therefore,
+        // our query satisfies the criteria for the disease and we can take the
+        // frequency of the disease term. Since there may be multiple parents
+        // take the maximum frequency (since the parent term will have at least this frequency)
+        double maximumFrequencyOfDescendantTerm = 0.0;
+        boolean isAncestor=false;
+        int diseaseMatchingTerm = HpoTermIndex.MISSING;
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            // is query an ancestor of a term that annotates the disease?
+            if (termIndex.isAncestorOrSelf(query, idg.annotationTerm(i))) {
+                maximumFrequencyOfDescendantTerm=Math.max(maximumFrequencyOfDescendantTerm,idg.annotationFrequency(i));
+                diseaseMatchingTerm=idg.annotationTerm(i);
+                isAncestor=true;
             }
-            // if we get here, then the query term was not a superclass of a disease term
-
-            //2. If the query term is a subclass of one or more disease terms, then
-            // we weight the frequency in the disease--- because not everybody with the disease will have the
-            // subterm in question--they could have another one of the subclasses.
-            //  Note that isSubclass is implemented like this:
-            //public static boolean isSubclass(
-            //    Ontology ontology, TermId source, TermId dest) {
-            //    return ontology.getAncestorTermIds(source).contains(dest);
-            //  }
-
-            boolean hasNonRootCommonAncestor = false;
-            double maxF = 0f;
-            TermId bestMatchTermId = null;
-            double denominatorForNonRootCommandAnc = getBackgroundFrequency(queryTid);
-            for (HpoDiseaseAnnotation annotation : disease.annotations()) {
-                if (OntologyAlgorithm.isSubclass(ontology, queryTid, annotation.id())){
-                    double proportionalFrequency = getProportionInChildren(queryTid,annotation.id());
-                    double queryFrequency = annotation.frequency();
-                    double f = proportionalFrequency*queryFrequency;
-                    if (f > maxF) {
-                        bestMatchTermId = annotation.id();
-                        maxF = f;
-                        hasNonRootCommonAncestor = true;
-                    }
+        }
+        if (isAncestor) {
+            double denominator = queryBackgroundFrequency(queryTid, query);
+            double lr = maximumFrequencyOfDescendantTerm/denominator;
+            return match(match, LrMatchType.DISEASE_TERM_SUBCLASS_OF_QUERY, diseaseMatchingTerm, lr);
+        }
+        // if we get here, then the query term was not a superclass of a disease term
+
+        //2. If the query term is a subclass of one or more disease terms, then
+        // we weight the frequency in the disease--- because not everybody with the disease will have the
+        // subterm in question--they could have another one of the subclasses.
+        boolean hasNonRootCommonAncestor = false;
+        double maxF = 0f;
+        int bestMatchTerm = HpoTermIndex.MISSING;
+        double denominatorForNonRootCommandAnc = queryBackgroundFrequency(queryTid, query);
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            int annotationTerm = idg.annotationTerm(i);
+            if (termIndex.isAncestorOrSelf(annotationTerm, query)){
+                double proportionalFrequency = getProportionInChildren(query, annotationTerm);
+                double queryFrequency = idg.annotationFrequency(i);
+                double f = proportionalFrequency*queryFrequency;
+                if (f > maxF) {
+                    bestMatchTerm = annotationTerm;
+                    maxF = f;
+                    hasNonRootCommonAncestor = true;
                 }
             }
-            if (hasNonRootCommonAncestor) {
-                double lr = Math.max(maxF,noCommonOrganProbability(queryTid))/denominatorForNonRootCommandAnc;
-                return explanationFactory.create(queryTid, bestMatchTermId,
-                        LrMatchType.QUERY_TERM_SUBCLASS_OF_DISEASE_TERM,
-                        lr);
-            }
-            // If we get here, queryId is not directly annotated in the disease, and it is not a child
-            // of a disease term, nor is a disease term a subclass of queryTid. The next bit of code
-            // checks whether they have a common ancestor that is more specfic that Phenotypic_Abnormality
-            Term2Freq t2f = idg.getClosestAncestor(queryTid, ontology);
-            if (t2f.nonRootCommonAncestor()) {
-                double numerator = t2f.frequency();
-                double denominator = getBackgroundFrequency(t2f.termId());
-                double lr = Math.max(DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY,numerator/denominator);
-                return explanationFactory.create(queryTid, t2f.termId(), LrMatchType.NON_ROOT_COMMON_ANCESTOR, lr);
-            }
-            // If we get here, then the only common ancestor is PHENOTYPIC_ABNORMALITY
-            // therefore, return a heuristic penalty score
-            return explanationFactory.create(queryTid, LrMatchType.NO_MATCH_BELOW_ROOT, DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY);
         }
+        if (hasNonRootCommonAncestor) {
+            double lr = Math.max(maxF, queryNoCommonOrganProbability(queryTid, query))/denominatorForNonRootCommandAnc;
+            return match(match, LrMatchType.QUERY_TERM_SUBCLASS_OF_DISEASE_TERM, bestMatchTerm, lr);
+        }
+        // If we get here, queryId is not directly annotated in the disease, and it is not a child
+        // of a disease term, nor is a disease term a subclass of queryTid. The next bit of code
+        // checks whether they have a common ancestor that is more specfic that Phenotypic_Abnormality
+        Term2Freq t2f = idg.getClosestAncestor(query, termIndex);
+        if (t2f.nonRootCommonAncestor()) {
+            double numerator = t2f.frequency();
+            double denominator = getBackgroundFrequency(t2f.termId());
+            double lr = Math.max(DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY,numerator/denominator);
+            return match(match, LrMatchType.NON_ROOT_COMMON_ANCESTOR, termIndex.index(t2f.termId()), lr);
+        }
+        // If we get here, then the only common ancestor is PHENOTYPIC_ABNORMALITY
+        // therefore, return a heuristic penalty score
+        return match(match, LrMatchType.NO_MATCH_BELOW_ROOT, HpoTermIndex.MISSING, DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY);
+    }
+
+    /**
+     * Store the match type and the matching term into <code>match</code>, if present, and return the <code>lr</code>.
+     */
+    private static double match(int[] match, LrMatchType matchType, int matchingTerm, double lr) {
+        if (match != null) {
+            match[0] = matchType.ordinal();
+            match[1] = matchingTerm;
+        }
+        return lr;
+    }
+
+    private double queryBackgroundFrequency(TermId queryTid, int query) {
+        return queryTid == null ? getBackgroundFrequency(query) : getBackgroundFrequency(queryTid);
+    }
+
+    private double queryNoCommonOrganProbability(TermId queryTid, int query) {
+        return queryTid == null ? noCommonOrganProbability(query) : noCommonOrganProbability(queryTid);
+    }
+
+    /**
+     * Get an upper bound of the LR of the observed term in any disease, i.e. of {@link #lrForObservedTerm}.
+     * The frequencies of the terms in a disease are at most <code>1</code>, hence the LR is bounded
+     * by the inverse of the least background frequency of the query term and of its ancestors.
+     *
+     * @return the upper bound of the LR or {@link Double#POSITIVE_INFINITY} if the term is not present in HPO.
+     */
+    public double maxLrForObservedTerm(TermId queryTid) {
+        int query = termIndex.index(queryTid);
+        if (query == HpoTermIndex.MISSING)
+            return Double.POSITIVE_INFINITY;
+        double maxLr = Math.max(DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY,
+                Math.max(1., noCommonOrganProbability(queryTid)) / getBackgroundFrequency(queryTid));
+        for (int ancestor : termIndex.ancestors(query))
+            maxLr = Math.max(maxLr, 1. / getBackgroundFrequency(ancestor));
+        return maxLr;
+    }
+
+    /**
+     * Get an upper bound of the LR of the excluded term in the disease, i.e. of {@link #lrForExcludedTerm}.
+     *
+     * @return the upper bound of the LR or {@link Double#POSITIVE_INFINITY} if the term is not present in HPO.
+     */
+    public double maxLrForExcludedTerm(TermId queryTid, InducedDiseaseGraph idg) {
+        int query = termIndex.index(queryTid);
+        if (query == HpoTermIndex.MISSING)
+            return Double.POSITIVE_INFINITY;
+        if (idg.isExactExcludedMatch(query))
+            return EXCLUDED_IN_DISEASE_AND_EXCLUDED_IN_QUERY_PROBABILITY;
+        double backgroundFrequency = getBackgroundFrequency(queryTid);
+        return backgroundFrequency > 0.99
+                ? 1.
+                : 1. / (1. - backgroundFrequency);
+    }
+
+    /**
+     * @return the LR of an observed term that has no common ancestor with the disease terms except the root.
+     */
+    public LrWithExplanation noMatchBelowRoot(TermId queryTid) {
+        return explanationFactory.create(queryTid, LrMatchType.NO_MATCH_BELOW_ROOT, noMatchBelowRootLr());
+    }
+
+    double noMatchBelowRootLr() {
+        return DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY;
+    }
+
+    /**
+     * @return the LR of an excluded term that is not annotated to the disease.
+     */
+    LrWithExplanation excludedTermNotPresentInDisease(TermId queryTid, double backgroundFrequency) {
+        return explanationFactory.create(queryTid, LrMatchType.EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE,
+                excludedTermNotPresentInDiseaseLr(backgroundFrequency));
+    }
+
+    static double excludedTermNotPresentInDiseaseLr(double backgroundFrequency) {
+        return 1.0/(1.0-backgroundFrequency); // this is the negative LR if the disease does not have the term
+    }
+
+    LrWithExplanation createLr(TermId queryTid, TermId matchingTid, LrMatchType matchType, double lr) {
+        return explanationFactory.create(queryTid, matchingTid, matchType, lr);
     }
 
     /**
@@ -175,28 +323,56 @@ public class PhenotypeLikelihoodRatio {
      * @return the likelihood ratio of an EXCLUDED HPO term in the diseases
      */
     public LrWithExplanation lrForExcludedTerm(TermId queryTid, InducedDiseaseGraph idg) {
-        HpoDisease disease = idg.getDisease();
+        int query = queryTermIndex(queryTid);
+        long key = cacheKey(queryTid, query, true, idg);
+        return key == NOT_CACHED
+                ? excludedTermLr(queryTid, query, idg)
+                : cache.getOrCompute(key, () -> excludedTermLr(queryTid, query, idg));
+    }
+
+    /**
+     * Get the likelihood ratio of an excluded HPO term in an individual with the disease, like
+     * {@link #lrForExcludedTerm(TermId, InducedDiseaseGraph)}, without creating the explanation.
+     *
+     * @param query the index of the primary id of the HPO term in the {@link #termIndex()}.
+     */
+    public double excludedLr(int query, InducedDiseaseGraph idg) {
+        if (cache != null)
+            // The cached LRs are reused without allocation.
+            return lrForExcludedTerm(termIndex.termId(query), idg).lr();
+        return excludedTermLr(null, query, idg, null);
+    }
+
+    private LrWithExplanation excludedTermLr(TermId queryTid, int query, InducedDiseaseGraph idg) {
+        int[] match = new int[2];
+        double lr = excludedTermLr(queryTid, query, idg, match);
+        return explanationFactory.create(queryTid, MATCH_TYPES[match[0]], lr);
+    }
+
+    /**
+     * Compute the LR of the excluded query term, see {@link #observedTermLr(TermId, int, InducedDiseaseGraph, int[])}.
+     */
+    private double excludedTermLr(TermId queryTid, int query, InducedDiseaseGraph idg, int[] match) {
         // check if term excluded in query is also excluded in disease
-        if (idg.isExactExcludedMatch(queryTid)) {
-            return explanationFactory.create(queryTid,
-                    LrMatchType.EXCLUDED_QUERY_TERM_EXCLUDED_IN_DISEASE,
+        if (idg.isExactExcludedMatch(query)) {
+            return match(match, LrMatchType.EXCLUDED_QUERY_TERM_EXCLUDED_IN_DISEASE, HpoTermIndex.MISSING,
                     EXCLUDED_IN_DISEASE_AND_EXCLUDED_IN_QUERY_PROBABILITY);
         }
-        double backgroundFrequency=getBackgroundFrequency(queryTid);
+        double backgroundFrequency = queryBackgroundFrequency(queryTid, query);
         // probability a feature is present but not recorded or not noticed.
         if (backgroundFrequency>0.99) {
             logger.error("Warning, unusually high background frequency calculated for {} of {} (should never happen)",
-                    backgroundFrequency,queryTid.getValue());
+                    backgroundFrequency, termIndex.termId(query).getValue());
             // should never happen, but protect against divide by zero if there is some error
-            return explanationFactory.create(queryTid, LrMatchType.UNUSUAL_BACKGROUND_FREQUENCY, 1.);
+            return match(match, LrMatchType.UNUSUAL_BACKGROUND_FREQUENCY, HpoTermIndex.MISSING, 1.);
         }
         // The phenotype was excluded in the proband and also the disease
         // is not annotated to the term. This should result in a slight improvement of the LR score.
-        if (!disease.isAnnotatedTo(queryTid, ontology)) {
-            double lr = 1.0/(1.0-backgroundFrequency); // this is the negative LR if the disease does not have the term
-            return explanationFactory.create(queryTid, LrMatchType.EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE, lr);
+        if (!isAnnotatedTo(query, idg)) {
+            return match(match, LrMatchType.EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE, HpoTermIndex.MISSING,
+                    excludedTermNotPresentInDiseaseLr(backgroundFrequency));
         }
-        double frequency=getFrequencyOfTermInDiseaseWithAnnotationPropagation(queryTid,disease,ontology);
+        double frequency=getFrequencyOfTermInDiseaseWithAnnotationPropagation(query, idg);
         // If the disease actually does have the abnormality in question, but the abnormality was ruled out in
         // the patient, we model this as the 1-F, where F is the frequency of the term in question.
         // We model the frequency of a term "by chance" as one half of its frequency across the entire corpus
@@ -207,23 +383,54 @@ public class PhenotypeLikelihoodRatio {
         double excludedFrequency=Math.max(FALSE_NEGATIVE_OBSERVATION_OF_PHENOTYPE_PROB, 1-frequency);
         // now calculate and return the likelihood ratio
         double lr = excludedFrequency/(1.0-backgroundFrequency);
-        return explanationFactory.create(queryTid, LrMatchType.EXCLUDED_QUERY_TERM_PRESENT_IN_DISEASE, lr);
+        return match(match, LrMatchType.EXCLUDED_QUERY_TERM_PRESENT_IN_DISEASE, HpoTermIndex.MISSING, lr);
+    }
+
+    /**
+     * Get the cache key of the LR or {@link #NOT_CACHED} if the LR must not be cached. We only cache the LRs
+     * of the diseases of the knowledge base, and the LRs of the query terms given by the primary term ids,
+     * because the LR includes the original query term id.
+     */
+    private long cacheKey(TermId queryTid, int query, boolean excluded, InducedDiseaseGraph idg) {
+        if (cache == null || !termIndex.termId(query).equals(queryTid))
+            return NOT_CACHED;
+        HpoDisease disease = idg.getDisease();
+        Integer diseaseIdx = diseaseIndices.get(disease.id());
+        if (diseaseIdx == null || diseaseMap.get(disease.id()) != disease)
+            return NOT_CACHED;
+        return PhenotypeLrCache.key(query, excluded, diseaseIdx);
+    }
+
+    private int queryTermIndex(TermId queryTid) {
+        int query = termIndex.index(queryTid);
+        if (query == HpoTermIndex.MISSING)
+            throw new LiricalRuntimeException("Query term " + queryTid.getValue() + " is not present in HPO");
+        return query;
+    }
+
+    /**
+     * @return <code>true</code> if the query term or any of its descendants is a present annotation of the disease.
+     */
+    private boolean isAnnotatedTo(int query, InducedDiseaseGraph idg) {
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            if (idg.isAnnotationPresent(i) && termIndex.isAncestorOrSelf(query, idg.annotationTerm(i)))
+                return true;
+        }
+        return false;
     }
 
     /**
      * Get the frequency of a term in the disease. This includes if any disease term is an ancestor of the
      * query term -- we take the maximum of any ancestor term.
-     * @param query Term ID of an HPO term whose frequency we want to know
-     * @param disease The disease in which we want to know the frequency of tid
-     * @param ontology Reference to the HPO ontology
+     * @param query index of an HPO term whose frequency we want to know
+     * @param idg The induced graph of the disease in which we want to know the frequency of tid
      * @return frequency of the term in the disease (including annotation propagation)
      */
-    private static double getFrequencyOfTermInDiseaseWithAnnotationPropagation(TermId query, HpoDisease disease, Ontology ontology) {
+    private double getFrequencyOfTermInDiseaseWithAnnotationPropagation(int query, InducedDiseaseGraph idg) {
         double maxFrequency = 0.0;
-        for (HpoDiseaseAnnotation annotation : disease.annotations()) {
-            Set<TermId> ancestors = ontology.getAncestorTermIds(annotation.id(),true);
-            if (ancestors.contains(query))
-                maxFrequency = Math.max(maxFrequency, disease.getFrequencyOfTermInDisease(annotation.id()).map(Ratio::frequency).orElse(DEFAULT_TERM_FREQUENCY));
+        for (int i = 0; i < idg.annotationCount(); i++) {
+            if (termIndex.isAncestorOrSelf(query, idg.annotationTerm(i)))
+                maxFrequency = Math.max(maxFrequency, idg.annotationFrequency(i));
         }
         return maxFrequency;
     }
@@ -237,7 +444,24 @@ public class PhenotypeLikelihoodRatio {
      * @return Estimate probability of this ("false-positive") finding
      */
     private double noCommonOrganProbability(TermId tid) {
-        double f = this.hpoTerm2OverallFrequency.getOrDefault(tid, DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY);
+        int term = backgroundFrequencies.index(tid);
+        return noCommonOrganProbability(term == HpoTermIndex.MISSING
+                ? DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY
+                : backgroundFrequencies.frequency(term));
+    }
+
+    /**
+     * @param term index of a term for which the disease has no annotations.
+     */
+    private double noCommonOrganProbability(int term) {
+        double f = backgroundFrequencies.frequency(term);
+        return noCommonOrganProbability(Double.isNaN(f) ? DEFAULT_FALSE_POSITIVE_NO_COMMON_ORGAN_PROBABILITY : f);
+    }
+
+    /**
+     * @param f the background frequency of the term.
+     */
+    private double noCommonOrganProbability(double f) {
         final double MIN_PROB = 0.002; // lowest prob of 1:500
         final double MAX_PROB = 0.10; // highest prob of 1:10
         final double MAX_MINUS_MIN = MAX_PROB - MIN_PROB;
@@ -255,29 +479,25 @@ public class PhenotypeLikelihoodRatio {
     /**
      * Get the overall proportion of the frequency that is made up by the query term, given that
      * query term is a descendant of the diseaseTerm (which should be checked before this method is called).
-     * @param queryTid A term used in the query (i.e., an annotation of the HpoCase proband)
-     * @param diseaseTid A term that is annotated to the disease we are investigating
+     * @param query index of a term used in the query (i.e., an annotation of the HpoCase proband)
+     * @param diseaseTerm index of a term that is annotated to the disease we are investigating
      * @return the proportion of the frequency of diseaseTerm that is attributable to query
      */
-    private double getProportionInChildren(TermId queryTid, TermId diseaseTid) {
-        if (queryTid.getId().equals(diseaseTid.getId())) {
+    private double getProportionInChildren(int query, int diseaseTerm) {
+        if (query == diseaseTerm) {
             return 1.0;
         }
-        Set<TermId> directChildren= OntologyAlgorithm.getChildTerms(ontology,diseaseTid,false);
-        if (directChildren.isEmpty()) {
+        int[] directChildren = termIndex.children(diseaseTerm);
+        if (directChildren.length == 0) {
             return 0.0;
-        }     
+        }
 
-        for (TermId tid : directChildren) {
-            if (queryTid.equals(tid)) {
-                return 1.0/(double)directChildren.size();
-            }
+        if (termIndex.isChild(query, diseaseTerm)) {
+            return 1.0/(double)directChildren.length;
         }
         // if we get here, there was no match
         return 0d;
     }
-    
-        
 
     /**
      * This function estimates the probability of a test finding (the HP term is present) given that the
@@ -285,73 +505,25 @@ public class PhenotypeLikelihoodRatio {
      * @return the estimate background frequency (note: bf \in [0,1])
      */
     double getBackgroundFrequency(TermId termId) {
-        Double backgroundFrequency = hpoTerm2OverallFrequency.get(termId);
-        if (backgroundFrequency == null) {
-            logger.error("Map did not contain data for term {}",termId.getValue() );
-            logger.error("hpoTerm2OverallFrequency has total of {} entries", hpoTerm2OverallFrequency.size());
+        int term = backgroundFrequencies.index(termId);
+        if (term == HpoTermIndex.MISSING) {
+            logger.error("Background frequency table did not contain data for term {}", termId.getValue());
+            logger.error("Background frequencies are available for total of {} terms", backgroundFrequencies.size());
             // Should never happen!
             return DEFAULT_BACKGROUND_FREQUENCY;
         }
-
-        return Math.max(backgroundFrequency, DEFAULT_BACKGROUND_FREQUENCY);
+        return getBackgroundFrequency(term);
     }
 
     /**
-     * Initialize the {@link #hpoTerm2OverallFrequency} object that has the background frequencies of each of the
-     * HPO terms in the ontology. */
-    private void initializeFrequencyMap() {
-        Map<TermId, Double> mp = new HashMap<>();
-        for (TermId tid : ontology.getNonObsoleteTermIds()) {
-            mp.put(tid, 0.0D);
-        }
-        Map<TermId, Double> mapbuilder = new HashMap<>();
-        for (HpoDisease dis : this.diseaseMap.values()) {
-            // We construct a map in order to get the maximum frequencies for any
-            // given ancestor term, also in order to avoid double counting.
-            Map<TermId, Double> updateMap=new HashMap<>();
-
-            for (HpoDiseaseAnnotation annotation : dis.annotations()) {
-                TermId tid = annotation.id();
-                double termFrequency = annotation.frequency();
-                TermId primaryTermId = ontology.getPrimaryTermId(tid);
-                if (primaryTermId == null) {
-                    logger.warn("Primary term ID for {} was not found!", tid.getValue());
-                    continue;
-                }
-                // All of the ancestor terms are implicitly annotated to tid
-                // therefore, add this to their background frequencies.
-                // Note we also include the original term here (third arg: true)
-                Set<TermId> ancs = OntologyAlgorithm.getAncestorTerms(ontology,primaryTermId,true);
-                for (TermId at : ancs) {
-                    updateMap.putIfAbsent(at,termFrequency);
-                    // put the maximum frequency for this term given it is
-                    // an ancestor of one or more of the HPO terms that annotate
-                    // the disease.
-                    if (termFrequency > updateMap.get(at)) {
-                        updateMap.put(at,termFrequency);
-                    }
-                }
-            }
-            for (TermId tid : updateMap.keySet()) {
-                double delta = updateMap.get(tid);
-                mp.putIfAbsent(tid,0.0);
-                double cumulative = delta + mp.get(tid);
-                mp.put(tid,cumulative);
-            }
-        }
-        // Now we need to normalize by the number of diseases.
-        double N = getNumberOfDiseases();
-        for (Map.Entry<TermId, Double> me : mp.entrySet()) {
-            double f = me.getValue() / N;
-            mapbuilder.put(me.getKey(), f);
-        }
-        hpoTerm2OverallFrequency = Map.copyOf(mapbuilder);
-        logger.trace("Got data on background frequency for " + hpoTerm2OverallFrequency.size() + " terms");
-    }
-
-    /** @return the number of diseases we are using for the calculations. */
-    private int getNumberOfDiseases() {
-        return diseaseMap.size();
+     * @param term index of a term.
+     * @return the estimate background frequency (note: bf \in [0,1])
+     */
+    double getBackgroundFrequency(int term) {
+        double backgroundFrequency = backgroundFrequencies.frequency(term);
+        return Double.isNaN(backgroundFrequency)
+                ? DEFAULT_BACKGROUND_FREQUENCY
+                : Math.max(backgroundFrequency, DEFAULT_BACKGROUND_FREQUENCY);
     }
 
 }
@@ -0,0 +1,160 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded thread-safe cache of the phenotype likelihood ratios.
+ * <p>
+ * The LR of a query term in a disease depends only on the HPO, the disease annotations, and the query term,
+ * hence the LRs computed for a case can be reused for the subsequent cases analyzed with the same resources.
+ * The entries are keyed by the dense indices of the query term and of the disease. The cache is split into segments
+ * that are locked independently and evict the least recently used entries when full.
+ * <p>
+ * The cache keeps the hit, miss, and eviction counts, see {@link #stats()}.
+ */
+public final class PhenotypeLrCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final int maximumSize;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize the maximum number of cached LRs
+     */
+    public static PhenotypeLrCache of(int maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum cache size must be positive: " + maximumSize);
+        return new PhenotypeLrCache(maximumSize);
+    }
+
+    private PhenotypeLrCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        int segmentCount = Math.min(SEGMENT_COUNT, maximumSize);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Distribute the remainder among the first segments.
+            int capacity = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * @return the key of the LR of the query term in the disease.
+     */
+    static long key(int query, boolean excluded, int disease) {
+        return ((long) disease << 32) | (((long) query << 1) | (excluded ? 1 : 0));
+    }
+
+    /**
+     * Get the cached LR or compute the LR and store it in the cache. The LR is computed outside the lock,
+     * hence it may be computed more than once by concurrent callers.
+     */
+    LrWithExplanation getOrCompute(long key, Supplier<LrWithExplanation> supplier) {
+        Segment segment = segments[segmentIndex(key)];
+        LrWithExplanation lr;
+        synchronized (segment) {
+            lr = segment.get(key);
+        }
+        if (lr != null) {
+            hits.increment();
+            return lr;
+        }
+
+        misses.increment();
+        lr = supplier.get();
+        synchronized (segment) {
+            segment.put(key, lr);
+        }
+        return lr;
+    }
+
+    private int segmentIndex(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) ((h >>> 32) % segments.length);
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the number of cached LRs.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all cached LRs. The statistics are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    @Override
+    public String toString() {
+        return "PhenotypeLrCache{" +
+                "maximumSize=" + maximumSize +
+                ", stats=" + stats() +
+                '}';
+    }
+
+    /**
+     * A snapshot of the cache statistics.
+     *
+     * @param hits      the number of lookups that found a cached LR
+     * @param misses    the number of lookups that had to compute the LR
+     * @param evictions the number of LRs removed to keep the cache size within the limit
+     * @param size      the number of cached LRs
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0. : (double) hits / requests;
+        }
+    }
+
+    /**
+     * A least recently used map, the access must be synchronized on the segment.
+     */
+    private final class Segment extends LinkedHashMap<Long, LrWithExplanation> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, .75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, LrWithExplanation> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.lirical.core.analysis.ProgressReporter;
+import org.monarchinitiative.phenol.annotations.constants.hpo.HpoSubOntologyRootTermIds;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Precomputed phenotype likelihood ratios of all diseases and all phenotypic abnormality terms,
+ * stored in a memory-mapped file.
+ * <p>
+ * The file is created by {@link #write(PhenotypeLikelihoodRatio, HpoDiseases, InducedDiseaseGraphs, Path)}
+ * and it is used by {@link PrecomputedPhenotypeLikelihoodRatio}. For each disease, the file contains a sparse row
+ * of observed term LRs and a sparse row of excluded term LRs. The most common LRs are not stored: the LR of
+ * an observed term with {@link LrMatchType#NO_MATCH_BELOW_ROOT} is a constant and the LR of an excluded term
+ * with {@link LrMatchType#EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE} depends only on the term.
+ * The stored LRs are quantized to <code>1/{@value #LR_SCALE}</code> of a decade (<code>~0.1%</code> relative error).
+ * <p>
+ * The file records the HPO release, the disease databases, and a fingerprint of the annotations of all diseases.
+ * The LRs depend on the background frequencies of the terms across all diseases, hence the file cannot be opened
+ * if any disease was added, removed, or re-annotated, or for a different HPO release or disease databases.
+ */
+public final class PhenotypeLrMatrix {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhenotypeLrMatrix.class);
+
+    private static final int MAGIC = 0x4C504C52; // LPLR
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * The number of quantization steps per decade of the LR.
+     */
+    static final int LR_SCALE = 1024;
+    /**
+     * A dequantized LR is at most this many times greater than the original LR.
+     */
+    static final double MAX_QUANTIZATION_FACTOR = Math.pow(10., 1. / LR_SCALE);
+    /**
+     * The quantized value of <code>LR=0</code>.
+     */
+    private static final short ZERO_LR = Short.MIN_VALUE;
+    private static final LrMatchType[] MATCH_TYPES = LrMatchType.values();
+
+    private static final int OBSERVED_ENTRY_BYTES = Integer.BYTES + Integer.BYTES + Short.BYTES + Byte.BYTES;
+    private static final int EXCLUDED_ENTRY_BYTES = Integer.BYTES + Short.BYTES + Byte.BYTES;
+
+    /**
+     * Indices of the precomputed terms.
+     */
+    private final BitSet terms;
+    private final Map<TermId, Row> rows;
+
+    /**
+     * Evaluate the LRs of all phenotypic abnormality terms for all <code>diseases</code> and write the LRs
+     * into the file at <code>path</code>.
+     *
+     * @param phenotypeLr the evaluator of the LRs
+     * @param diseases    the diseases of the knowledge base
+     * @param graphs      the induced graphs of the <code>diseases</code>
+     */
+    public static void write(PhenotypeLikelihoodRatio phenotypeLr,
+                             HpoDiseases diseases,
+                             InducedDiseaseGraphs graphs,
+                             Path path) throws IOException {
+        HpoTermIndex termIndex = phenotypeLr.termIndex();
+        int[] terms = precomputableTerms(termIndex);
+        List<HpoDisease> diseaseList = diseases.hpoDiseases().toList();
+        LOGGER.info("Precomputing phenotype LRs of {} terms for {} diseases", terms.length, diseaseList.size());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(InducedDiseaseGraphs.hpoRelease(termIndex));
+            out.writeLong(InducedDiseaseGraphs.fingerprint(termIndex));
+            out.writeUTF(diseaseDatabases(diseases));
+            out.writeLong(annotationFingerprint(diseases));
+            out.writeInt(terms.length);
+            for (int term : terms)
+                out.writeInt(term);
+            long position = out.size();
+
+            ProgressReporter progressReporter = new ProgressReporter(100, "diseases");
+            List<TableEntry> table = new ArrayList<>(diseaseList.size());
+            int batchSize = 8 * Runtime.getRuntime().availableProcessors();
+            for (int start = 0; start < diseaseList.size(); start += batchSize) {
+                List<Block> blocks = diseaseList.subList(start, Math.min(start + batchSize, diseaseList.size()))
+                        .parallelStream()
+                        .map(disease -> {
+                            InducedDiseaseGraph idg = graphs.graphForDisease(disease.id())
+                                    .orElseGet(() -> InducedDiseaseGraph.create(disease, termIndex));
+                            Block block = computeBlock(phenotypeLr, idg, terms);
+                            progressReporter.log();
+                            return block;
+                        })
+                        .toList();
+                for (Block block : blocks) {
+                    out.write(block.data());
+                    table.add(new TableEntry(block.disease(), block.observedCount(), block.excludedCount(), position));
+                    position += block.data().length;
+                }
+            }
+            progressReporter.summarize();
+
+            out.writeInt(table.size());
+            for (TableEntry entry : table) {
+                out.writeUTF(entry.disease().id().getValue());
+                out.writeLong(InducedDiseaseGraphs.checksum(entry.disease()));
+                out.writeInt(entry.observedCount());
+                out.writeInt(entry.excludedCount());
+                out.writeLong(entry.offset());
+            }
+            // The footer points to the disease table.
+            out.writeLong(position);
+        }
+    }
+
+    /**
+     * Open the file written by {@link #write(PhenotypeLikelihoodRatio, HpoDiseases, InducedDiseaseGraphs, Path)}.
+     *
+     * @throws IOException if the file cannot be read, or if it was written for a different HPO release,
+     *                     disease databases, or disease annotations.
+     */
+    public static PhenotypeLrMatrix open(Path path, HpoTermIndex termIndex, HpoDiseases diseases) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES + Long.BYTES)
+                throw new IOException("Not a phenotype LR matrix file");
+
+            DataInputStream header = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+            if (header.readInt() != MAGIC)
+                throw new IOException("Not a phenotype LR matrix file");
+            int version = header.readInt();
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported format version " + version);
+            String hpoRelease = header.readUTF();
+            long fingerprint = header.readLong();
+            if (!hpoRelease.equals(InducedDiseaseGraphs.hpoRelease(termIndex)) || fingerprint != InducedDiseaseGraphs.fingerprint(termIndex))
+                throw new IOException("The phenotype LRs were precomputed for a different HPO release " + hpoRelease);
+            String diseaseDatabases = header.readUTF();
+            if (!diseaseDatabases.equals(diseaseDatabases(diseases)))
+                throw new IOException("The phenotype LRs were precomputed for different disease databases " + diseaseDatabases);
+            if (header.readLong() != annotationFingerprint(diseases))
+                throw new IOException("The phenotype LRs were precomputed for different disease annotations");
+            BitSet terms = new BitSet(termIndex.size());
+            int termCount = header.readInt();
+            for (int i = 0; i < termCount; i++)
+                terms.set(header.readInt());
+
+            ByteBuffer footer = ByteBuffer.allocate(Long.BYTES);
+            channel.read(footer, size - Long.BYTES);
+            long tableOffset = footer.flip().getLong();
+            DataInputStream tableInput = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(tableOffset))));
+            Map<TermId, HpoDisease> diseaseById = diseases.diseaseById();
+            List<TableEntry> table = new ArrayList<>(diseaseById.size());
+            int count = tableInput.readInt();
+            for (int i = 0; i < count; i++) {
+                TermId diseaseId = TermId.of(tableInput.readUTF());
+                long checksum = tableInput.readLong();
+                int observedCount = tableInput.readInt();
+                int excludedCount = tableInput.readInt();
+                long offset = tableInput.readLong();
+                HpoDisease disease = diseaseById.get(diseaseId);
+                if (disease == null || InducedDiseaseGraphs.checksum(disease) != checksum)
+                    throw new IOException("The phenotype LRs were precomputed for different annotations of " + diseaseId.getValue());
+                table.add(new TableEntry(disease, observedCount, excludedCount, offset));
+            }
+
+            Map<TermId, Row> rows = mapRows(channel, table);
+            LOGGER.debug("Opened precomputed phenotype LRs of {} terms for {} diseases", termCount, rows.size());
+            return new PhenotypeLrMatrix(terms, rows);
+        }
+    }
+
+    /**
+     * Map the blocks of the diseases in segments of at most 2GB, the limit of a {@link MappedByteBuffer}.
+     * The blocks are contiguous and ordered by their offset.
+     */
+    private static Map<TermId, Row> mapRows(FileChannel channel, List<TableEntry> table) throws IOException {
+        Map<TermId, Row> rows = new HashMap<>(table.size() * 2);
+        List<TableEntry> sorted = table.stream()
+                .sorted(Comparator.comparingLong(TableEntry::offset))
+                .toList();
+        int i = 0;
+        while (i < sorted.size()) {
+            long segmentStart = sorted.get(i).offset();
+            int j = i;
+            long segmentEnd = segmentStart;
+            while (j < sorted.size() && sorted.get(j).end() - segmentStart <= Integer.MAX_VALUE) {
+                segmentEnd = Math.max(segmentEnd, sorted.get(j).end());
+                j++;
+            }
+            if (j == i)
+                throw new IOException("Block of " + sorted.get(i).disease().id().getValue() + " is too large");
+
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentEnd - segmentStart);
+            for (; i < j; i++) {
+                TableEntry entry = sorted.get(i);
+                ByteBuffer block = segment.slice((int) (entry.offset() - segmentStart), entry.length());
+                rows.put(entry.disease().id(), new Row(entry.disease(), block, entry.observedCount(), entry.excludedCount()));
+            }
+        }
+        return Map.copyOf(rows);
+    }
+
+    private PhenotypeLrMatrix(BitSet terms, Map<TermId, Row> rows) {
+        this.terms = terms;
+        this.rows = rows;
+    }
+
+    /**
+     * @return the number of diseases with the precomputed LRs.
+     */
+    public int diseaseCount() {
+        return rows.size();
+    }
+
+    /**
+     * @return the number of terms with the precomputed LRs.
+     */
+    public int termCount() {
+        return terms.cardinality();
+    }
+
+    /**
+     * @return <code>true</code> if the LRs of the term with given index were precomputed.
+     */
+    boolean containsTerm(int term) {
+        return term >= 0 && terms.get(term);
+    }
+
+    /**
+     * @return the row with precomputed LRs of the <code>disease</code> or <code>null</code> if the LRs
+     * of the disease were not precomputed.
+     */
+    Row row(HpoDisease disease) {
+        Row row = rows.get(disease.id());
+        // The disease must be the same as the one of the knowledge base.
+        return row == null || row.disease != disease ? null : row;
+    }
+
+    /**
+     * The terms that can appear in a query, i.e. the phenotypic abnormality and its descendants.
+     */
+    static int[] precomputableTerms(HpoTermIndex termIndex) {
+        int phenotypicAbnormality = termIndex.index(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY);
+        if (phenotypicAbnormality == HpoTermIndex.MISSING)
+            return new int[0];
+        int[] terms = new int[termIndex.size()];
+        int n = 0;
+        for (int term = 0; term < termIndex.size(); term++)
+            if (termIndex.isAncestorOrSelf(phenotypicAbnormality, term))
+                terms[n++] = term;
+        return Arrays.copyOf(terms, n);
+    }
+
+    private static String diseaseDatabases(HpoDiseases diseases) {
+        return diseases.hpoDiseases()
+                .map(d -> d.id().getPrefix())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    /**
+     * The fingerprint of the annotations of all diseases, sorted by the disease id.
+     */
+    private static long annotationFingerprint(HpoDiseases diseases) {
+        CRC32 crc = new CRC32();
+        ByteBuffer checksum = ByteBuffer.allocate(Long.BYTES);
+        diseases.hpoDiseases()
+                .sorted(Comparator.comparing(HpoDisease::id))
+                .forEachOrdered(disease -> {
+                    crc.update(disease.id().getValue().getBytes());
+                    crc.update(checksum.clear().putLong(InducedDiseaseGraphs.checksum(disease)).flip());
+                });
+        return crc.getValue();
+    }
+
+    private static Block computeBlock(PhenotypeLikelihoodRatio phenotypeLr, InducedDiseaseGraph idg, int[] terms) {
+        HpoTermIndex termIndex = phenotypeLr.termIndex();
+        int[] observedTerms = new int[terms.length];
+        int[] observedMatching = new int[terms.length];
+        short[] observedLrs = new short[terms.length];
+        byte[] observedTypes = new byte[terms.length];
+        int nObserved = 0;
+        int[] excludedTerms = new int[terms.length];
+        short[] excludedLrs = new short[terms.length];
+        byte[] excludedTypes = new byte[terms.length];
+        int nExcluded = 0;
+
+        for (int term : terms) {
+            TermId termId = termIndex.termId(term);
+            LrWithExplanation observed = phenotypeLr.lrForObservedTerm(termId, idg);
+            if (observed.matchType() != LrMatchType.NO_MATCH_BELOW_ROOT) {
+                int matching = termIndex.index(observed.matchingTerm());
+                observedTerms[nObserved] = term;
+                observedMatching[nObserved] = matching == HpoTermIndex.MISSING ? term : matching;
+                observedLrs[nObserved] = quantize(observed.lr());
+                observedTypes[nObserved] = (byte) observed.matchType().ordinal();
+                nObserved++;
+            }
+
+            LrWithExplanation excluded = phenotypeLr.lrForExcludedTerm(termId, idg);
+            if (excluded.matchType() != LrMatchType.EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE) {
+                excludedTerms[nExcluded] = term;
+                excludedLrs[nExcluded] = quantize(excluded.lr());
+                excludedTypes[nExcluded] = (byte) excluded.matchType().ordinal();
+                nExcluded++;
+            }
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(nObserved * OBSERVED_ENTRY_BYTES + nExcluded * EXCLUDED_ENTRY_BYTES);
+        for (int i = 0; i < nObserved; i++) data.putInt(observedTerms[i]);
+        for (int i = 0; i < nObserved; i++) data.putInt(observedMatching[i]);
+        for (int i = 0; i < nObserved; i++) data.putShort(observedLrs[i]);
+        data.put(observedTypes, 0, nObserved);
+        for (int i = 0; i < nExcluded; i++) data.putInt(excludedTerms[i]);
+        for (int i = 0; i < nExcluded; i++) data.putShort(excludedLrs[i]);
+        data.put(excludedTypes, 0, nExcluded);
+        return new Block(idg.getDisease(), nObserved, nExcluded, data.array());
+    }
+
+    static short quantize(double lr) {
+        if (lr <= 0.)
+            return ZERO_LR;
+        double q = Math.rint(Math.log10(lr) * LR_SCALE);
+        return (short) Math.max(ZERO_LR + 1, Math.min(Short.MAX_VALUE, q));
+    }
+
+    static double dequantize(short q) {
+        return q == ZERO_LR ? 0. : Math.pow(10., (double) q / LR_SCALE);
+    }
+
+    private record Block(HpoDisease disease, int observedCount, int excludedCount, byte[] data) {
+    }
+
+    private record TableEntry(HpoDisease disease, int observedCount, int excludedCount, long offset) {
+
+        int length() {
+            return observedCount * OBSERVED_ENTRY_BYTES + excludedCount * EXCLUDED_ENTRY_BYTES;
+        }
+
+        long end() {
+            return offset + length();
+        }
+    }
+
+    /**
+     * The precomputed LRs of a disease. The observed and excluded entries are sorted by the term index.
+     */
+    static final class Row {
+
+        private final HpoDisease disease;
+        private final ByteBuffer block;
+        private final int observedCount;
+        private final int excludedCount;
+        // Offsets of the columns in the block.
+        private final int observedMatchingOffset;
+        private final int observedLrOffset;
+        private final int observedTypeOffset;
+        private final int excludedTermOffset;
+        private final int excludedLrOffset;
+        private final int excludedTypeOffset;
+
+        private Row(HpoDisease disease, ByteBuffer block, int observedCount, int excludedCount) {
+            this.disease = disease;
+            this.block = block;
+            this.observedCount = observedCount;
+            this.excludedCount = excludedCount;
+            this.observedMatchingOffset = observedCount * Integer.BYTES;
+            this.observedLrOffset = observedMatchingOffset + observedCount * Integer.BYTES;
+            this.observedTypeOffset = observedLrOffset + observedCount * Short.BYTES;
+            this.excludedTermOffset = observedTypeOffset + observedCount;
+            this.excludedLrOffset = excludedTermOffset + excludedCount * Integer.BYTES;
+            this.excludedTypeOffset = excludedLrOffset + excludedCount * Short.BYTES;
+        }
+
+        /**
+         * @return position of the observed <code>term</code> in the row or a negative value if the term is not stored.
+         */
+        int findObserved(int term) {
+            return binarySearch(0, observedCount, term);
+        }
+
+        int observedMatchingTerm(int i) {
+            return block.getInt(observedMatchingOffset + i * Integer.BYTES);
+        }
+
+        double observedLr(int i) {
+            return dequantize(block.getShort(observedLrOffset + i * Short.BYTES));
+        }
+
+        LrMatchType observedMatchType(int i) {
+            return MATCH_TYPES[block.get(observedTypeOffset + i)];
+        }
+
+        /**
+         * @return position of the excluded <code>term</code> in the row or a negative value if the term is not stored.
+         */
+        int findExcluded(int term) {
+            return binarySearch(excludedTermOffset, excludedCount, term);
+        }
+
+        double excludedLr(int i) {
+            return dequantize(block.getShort(excludedLrOffset + i * Short.BYTES));
+        }
+
+        LrMatchType excludedMatchType(int i) {
+            return MATCH_TYPES[block.get(excludedTypeOffset + i)];
+        }
+
+        private int binarySearch(int offset, int count, int term) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int value = block.getInt(offset + mid * Integer.BYTES);
+                if (value < term)
+                    low = mid + 1;
+                else if (value > term)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Objects;
+
+/**
+ * {@link PhenotypeLikelihoodRatio} that looks up the LRs in a {@link PhenotypeLrMatrix}.
+ * <p>
+ * The LRs are computed as usual if the query term or the disease is missing in the matrix.
+ * Note that the LRs of the matrix are quantized, hence they can differ slightly from the computed LRs.
+ */
+public class PrecomputedPhenotypeLikelihoodRatio extends PhenotypeLikelihoodRatio {
+
+    private final PhenotypeLrMatrix matrix;
+
+    public PrecomputedPhenotypeLikelihoodRatio(HpoTermIndex termIndex, HpoDiseases diseases, PhenotypeLrMatrix matrix) {
+        super(termIndex, diseases);
+        this.matrix = Objects.requireNonNull(matrix);
+    }
+
+    @Override
+    public LrWithExplanation lrForObservedTerm(TermId queryTid, InducedDiseaseGraph idg) {
+        int query = precomputedTermIndex(queryTid);
+        PhenotypeLrMatrix.Row row = query == HpoTermIndex.MISSING ? null : matrix.row(idg.getDisease());
+        if (row == null)
+            return super.lrForObservedTerm(queryTid, idg);
+
+        int i = row.findObserved(query);
+        if (i < 0)
+            return noMatchBelowRoot(queryTid);
+        return createLr(queryTid, termIndex().termId(row.observedMatchingTerm(i)), row.observedMatchType(i), row.observedLr(i));
+    }
+
+    @Override
+    public LrWithExplanation lrForExcludedTerm(TermId queryTid, InducedDiseaseGraph idg) {
+        int query = precomputedTermIndex(queryTid);
+        PhenotypeLrMatrix.Row row = query == HpoTermIndex.MISSING ? null : matrix.row(idg.getDisease());
+        if (row == null)
+            return super.lrForExcludedTerm(queryTid, idg);
+
+        int i = row.findExcluded(query);
+        if (i < 0)
+            return excludedTermNotPresentInDisease(queryTid, getBackgroundFrequency(queryTid));
+        return createLr(queryTid, queryTid, row.excludedMatchType(i), row.excludedLr(i));
+    }
+
+    @Override
+    public double observedLr(int query, InducedDiseaseGraph idg) {
+        PhenotypeLrMatrix.Row row = matrix.containsTerm(query) ? matrix.row(idg.getDisease()) : null;
+        if (row == null)
+            return super.observedLr(query, idg);
+
+        int i = row.findObserved(query);
+        return i < 0 ? noMatchBelowRootLr() : row.observedLr(i);
+    }
+
+    @Override
+    public double excludedLr(int query, InducedDiseaseGraph idg) {
+        PhenotypeLrMatrix.Row row = matrix.containsTerm(query) ? matrix.row(idg.getDisease()) : null;
+        if (row == null)
+            return super.excludedLr(query, idg);
+
+        int i = row.findExcluded(query);
+        return i < 0 ? excludedTermNotPresentInDiseaseLr(getBackgroundFrequency(query)) : row.excludedLr(i);
+    }
+
+    /**
+     * @return the upper bound of the computed LR, widened by the quantization error of the matrix.
+     */
+    @Override
+    public double maxLrForObservedTerm(TermId queryTid) {
+        return super.maxLrForObservedTerm(queryTid) * PhenotypeLrMatrix.MAX_QUANTIZATION_FACTOR;
+    }
+
+    /**
+     * @return the upper bound of the computed LR, widened by the quantization error of the matrix.
+     */
+    @Override
+    public double maxLrForExcludedTerm(TermId queryTid, InducedDiseaseGraph idg) {
+        return super.maxLrForExcludedTerm(queryTid, idg) * PhenotypeLrMatrix.MAX_QUANTIZATION_FACTOR;
+    }
+
+    /**
+     * @return the index of the query term or {@link HpoTermIndex#MISSING} if the LRs of the term were not precomputed.
+     * The LRs include the query term, hence we only look up the terms given by their primary ids.
+     */
+    private int precomputedTermIndex(TermId queryTid) {
+        int query = termIndex().index(queryTid);
+        return matrix.containsTerm(query) && termIndex().termId(query).equals(queryTid)
+                ? query
+                : HpoTermIndex.MISSING;
+    }
+}
@@ -0,0 +1,107 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.monarchinitiative.phenol.annotations.constants.hpo.HpoSubOntologyRootTermIds;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * An inverted index from HPO terms to the diseases whose induced graph contains the term.
+ * <p>
+ * An observed query term gets the {@link LrMatchType#NO_MATCH_BELOW_ROOT} LR in a disease unless the disease
+ * is annotated to the term or to one of its ancestors or descendants, or the term shares a non-root ancestor
+ * with the disease. All these cases require one of the ancestors of the query term (except for
+ * the phenotypic abnormality root) to be an annotation of the disease or a term of its induced graph.
+ * Therefore, the diseases found by looking up the ancestors of the query term in the index are the only diseases
+ * where the LR must be computed. The remaining diseases get {@link PhenotypeLikelihoodRatio#noMatchBelowRoot(TermId)}.
+ * <p>
+ * The diseases are identified by their position in the list of graphs used to build the index.
+ */
+public final class TermDiseaseIndex {
+
+    private final HpoTermIndex termIndex;
+    private final int diseaseCount;
+    /**
+     * Sorted positions of the diseases that contain the term in their induced graph.
+     */
+    private final int[][] diseasesByTerm;
+    private final int phenotypicAbnormality;
+    /**
+     * The phenotypic abnormality root and its ancestors. These terms are ancestors of the disease annotations
+     * that are not part of the induced graphs, hence the index cannot tell the related diseases apart.
+     */
+    private final BitSet unselectiveTerms;
+
+    public static TermDiseaseIndex of(HpoTermIndex termIndex, List<InducedDiseaseGraph> graphs) {
+        return new TermDiseaseIndex(termIndex, graphs);
+    }
+
+    private TermDiseaseIndex(HpoTermIndex termIndex, List<InducedDiseaseGraph> graphs) {
+        this.termIndex = termIndex;
+        this.diseaseCount = graphs.size();
+
+        // First pass counts the diseases of each term, the second fills the arrays.
+        int[] counts = new int[termIndex.size()];
+        for (InducedDiseaseGraph idg : graphs)
+            forEachTerm(idg, term -> counts[term]++);
+        this.diseasesByTerm = new int[termIndex.size()][];
+        for (int term = 0; term < counts.length; term++)
+            diseasesByTerm[term] = new int[counts[term]];
+        int[] filled = new int[termIndex.size()];
+        for (int d = 0; d < graphs.size(); d++) {
+            int disease = d;
+            forEachTerm(graphs.get(d), term -> diseasesByTerm[term][filled[term]++] = disease);
+        }
+
+        this.unselectiveTerms = new BitSet(termIndex.size());
+        this.phenotypicAbnormality = termIndex.index(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY);
+        if (phenotypicAbnormality != HpoTermIndex.MISSING)
+            for (int ancestor : termIndex.ancestors(phenotypicAbnormality))
+                unselectiveTerms.set(ancestor);
+    }
+
+    /**
+     * Visit the annotation terms and the induced terms of the graph, each term once.
+     */
+    private static void forEachTerm(InducedDiseaseGraph idg, IntConsumer consumer) {
+        BitSet terms = new BitSet();
+        for (int term : idg.annotationTerms())
+            terms.set(term);
+        for (int term : idg.inducedTerms())
+            terms.set(term);
+        terms.stream().forEach(consumer);
+    }
+
+    /**
+     * @return the number of diseases in the index.
+     */
+    public int diseaseCount() {
+        return diseaseCount;
+    }
+
+    /**
+     * Get the positions of the diseases where the LR of the observed <code>term</code> may differ
+     * from {@link PhenotypeLikelihoodRatio#noMatchBelowRoot(TermId)}.
+     *
+     * @return the positions of the related diseases or an empty optional if all diseases must be evaluated,
+     * e.g. for an unknown term or for the phenotypic abnormality root.
+     */
+    public Optional<BitSet> diseasesRelatedToObservedTerm(TermId term) {
+        int query = termIndex.index(term);
+        if (query == HpoTermIndex.MISSING || unselectiveTerms.get(query))
+            return Optional.empty();
+
+        BitSet related = new BitSet(diseaseCount);
+        for (int ancestor : termIndex.ancestors(query)) {
+            // The induced graphs do not include the phenotypic abnormality root.
+            if (ancestor == phenotypicAbnormality)
+                continue;
+            for (int disease : diseasesByTerm[ancestor])
+                related.set(disease);
+        }
+        return Optional.of(related);
+    }
+}
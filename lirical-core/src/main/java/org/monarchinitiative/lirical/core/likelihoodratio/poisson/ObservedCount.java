@@ -0,0 +1,46 @@
+package org.monarchinitiative.lirical.core.likelihoodratio.poisson;
+
+/**
+ * An observed (possibly weighted) count with the terms of the Poisson log probability that do not depend
+ * on the mean of the distribution. Use the instance to evaluate the probability of the same count
+ * in several {@link PoissonDistribution}s.
+ */
+public final class ObservedCount {
+
+    private final double x;
+    /**
+     * Stirling error of the count, <code>NaN</code> if the count is not positive or if the error cannot be computed.
+     */
+    private final double stirlingError;
+    private final double halfLogX;
+
+    public static ObservedCount of(double x) {
+        return new ObservedCount(x);
+    }
+
+    private ObservedCount(double x) {
+        this.x = x;
+        double stirlingError = Double.NaN;
+        if (x > 0 && x != Integer.MAX_VALUE) {
+            try {
+                stirlingError = SaddlePointExpansion.getStirlingError(x);
+            } catch (NumberIsTooSmallException | NumberIsTooLargeException e) {
+                e.printStackTrace();
+            }
+        }
+        this.stirlingError = stirlingError;
+        this.halfLogX = 0.5 * Math.log(x);
+    }
+
+    public double x() {
+        return x;
+    }
+
+    double stirlingError() {
+        return stirlingError;
+    }
+
+    double halfLogX() {
+        return halfLogX;
+    }
+}
@@ -10,6 +10,8 @@ import static org.monarchinitiative.lirical.core.likelihoodratio.poisson.SaddleP
  */
 public class PoissonDistribution {
 
+    private static final double HALF_LOG_TWO_PI = 0.5 * Math.log(TWO_PI);
+
     private final double mean;
 
     public PoissonDistribution(double mean) {
@@ -30,6 +32,29 @@ public class PoissonDistribution {
         return logProbability == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logProbability);
     }
 
+    /**
+     * Same as {@link #probability(double)}, but the terms that do not depend on the mean are taken from the <code>count</code>.
+     */
+    public double probability(ObservedCount count) {
+        final double logProbability = logProbability(count);
+        return logProbability == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logProbability);
+    }
+
+    public double logProbability(ObservedCount count) {
+        double x = count.x();
+        if (x < 0 || x == Integer.MAX_VALUE) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (x == 0) {
+            return -mean;
+        } else if (Double.isNaN(count.stirlingError())) {
+            return Double.NEGATIVE_INFINITY;
+        } else {
+            return -count.stirlingError() -
+                    SaddlePointExpansion.getDeviancePart(x, mean) -
+                    HALF_LOG_TWO_PI - count.halfLogX();
+        }
+    }
+
 
     public double logProbability(double x) {
         if (x < 0 || x == Integer.MAX_VALUE) {
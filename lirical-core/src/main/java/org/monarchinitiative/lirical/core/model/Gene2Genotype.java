@@ -14,6 +14,14 @@ public interface Gene2Genotype extends Identified {
         return Gene2GenotypeDefault.of(id, variants);
     }
 
+    /**
+     * Create {@link Gene2Genotype} with the allele counts of the <code>sampleId</code> computed in advance.
+     * The counts are then looked up without iterating the variants, for any pathogenicity threshold.
+     */
+    static Gene2Genotype of(GeneIdentifier id, Collection<LiricalVariant> variants, String sampleId) {
+        return Gene2GenotypeDefault.of(id, variants, sampleId);
+    }
+
     @Override
     @Deprecated(forRemoval = true)
     default TermId id() {
@@ -2,9 +2,7 @@ package org.monarchinitiative.lirical.core.model;
 
 import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Stream;
 
 class Gene2GenotypeDefault {
@@ -19,6 +17,17 @@ class Gene2GenotypeDefault {
         }
     }
 
+    static Gene2Genotype of(GeneIdentifier geneId, Collection<LiricalVariant> variants, String sampleId) {
+        Objects.requireNonNull(geneId, "Gene ID must not be null");
+        Objects.requireNonNull(variants, "Variants must not be null");
+        Objects.requireNonNull(sampleId, "Sample ID must not be null");
+        if (variants.isEmpty()) {
+            return new Gene2GenotypeNoVariants(geneId);
+        } else {
+            return new Gene2GenotypeAggregated(geneId, variants, sampleId);
+        }
+    }
+
     private static class Gene2GenotypeFull implements Gene2Genotype {
 
         private final GeneIdentifier geneId;
@@ -66,6 +75,105 @@ class Gene2GenotypeDefault {
         }
     }
 
+    /**
+     * {@link Gene2Genotype} with the allele counts of a sample computed in advance. The counts of other samples
+     * are computed on each call.
+     * <p>
+     * The variants are sorted by pathogenicity score in descending order, hence the variants with score above
+     * a threshold form a prefix and the counts of any threshold are looked up in the cumulative sums of the prefix.
+     */
+    private static class Gene2GenotypeAggregated extends Gene2GenotypeFull {
+
+        private final String sampleId;
+        private final int pathogenicClinVarCount;
+        /**
+         * Pathogenicity scores in descending order. The variants with no score have the score of <code>0</code>.
+         */
+        private final float[] scores;
+        /**
+         * Cumulative alt allele counts of the variants with a score, the element at <code>i</code> sums
+         * the first <code>i</code> variants.
+         */
+        private final int[] cumulativeAlleleCounts;
+        /**
+         * Cumulative pathogenicity of the alt alleles, the element at <code>i</code> sums the first <code>i</code> variants.
+         */
+        private final double[] cumulativePathBinScores;
+
+        private Gene2GenotypeAggregated(GeneIdentifier geneId, Collection<LiricalVariant> variants, String sampleId) {
+            super(geneId, variants);
+            this.sampleId = sampleId;
+
+            int clinVarCount = 0;
+            List<ScoredVariant> scored = new ArrayList<>(variants.size());
+            for (LiricalVariant variant : variants) {
+                clinVarCount += variant.pathogenicClinVarAlleleCount(sampleId);
+                Optional<Float> score = variant.pathogenicityScore();
+                float s = score.orElse(0f);
+                if (Float.isNaN(s)) {
+                    // NaN is never above the threshold.
+                    scored.add(new ScoredVariant(Float.NEGATIVE_INFINITY, 0, 0.));
+                    continue;
+                }
+                int altAlleleCount = variant.alleleCount(sampleId).map(AlleleCount::alt).orElse((byte) 0);
+                scored.add(new ScoredVariant(s,
+                        score.isPresent() ? altAlleleCount : 0,
+                        altAlleleCount * variant.pathogenicity()));
+            }
+            this.pathogenicClinVarCount = clinVarCount;
+
+            scored.sort(Comparator.comparingDouble(ScoredVariant::score).reversed());
+            this.scores = new float[scored.size()];
+            this.cumulativeAlleleCounts = new int[scored.size() + 1];
+            this.cumulativePathBinScores = new double[scored.size() + 1];
+            for (int i = 0; i < scored.size(); i++) {
+                ScoredVariant variant = scored.get(i);
+                scores[i] = variant.score();
+                cumulativeAlleleCounts[i + 1] = cumulativeAlleleCounts[i] + variant.altAlleleCount();
+                cumulativePathBinScores[i + 1] = cumulativePathBinScores[i] + variant.pathBinScore();
+            }
+        }
+
+        /**
+         * @return the number of variants with score greater than or equal to the <code>threshold</code>.
+         */
+        private int countAtOrAbove(float threshold) {
+            int low = 0, high = scores.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (scores[mid] >= threshold)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        @Override
+        public int pathogenicClinVarCount(String sampleId) {
+            return this.sampleId.equals(sampleId)
+                    ? pathogenicClinVarCount
+                    : super.pathogenicClinVarCount(sampleId);
+        }
+
+        @Override
+        public int pathogenicAlleleCount(String sampleId, float pathogenicityThreshold) {
+            return this.sampleId.equals(sampleId)
+                    ? cumulativeAlleleCounts[countAtOrAbove(pathogenicityThreshold)]
+                    : super.pathogenicAlleleCount(sampleId, pathogenicityThreshold);
+        }
+
+        @Override
+        public double getSumOfPathBinScores(String sampleId, float pathogenicityThreshold) {
+            return this.sampleId.equals(sampleId)
+                    ? cumulativePathBinScores[countAtOrAbove(pathogenicityThreshold)]
+                    : super.getSumOfPathBinScores(sampleId, pathogenicityThreshold);
+        }
+
+        private record ScoredVariant(float score, int altAlleleCount, double pathBinScore) {
+        }
+    }
+
     private record Gene2GenotypeNoVariants(GeneIdentifier geneId) implements Gene2Genotype {
 
         @Override
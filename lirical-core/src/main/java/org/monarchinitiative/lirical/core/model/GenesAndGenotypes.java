@@ -1,7 +1,9 @@
 package org.monarchinitiative.lirical.core.model;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -20,6 +22,23 @@ public interface GenesAndGenotypes extends Iterable<Gene2Genotype> {
                 : GenesAndGenotypesDefault.of(genes);
     }
 
+    /**
+     * Collect the variants into {@link Gene2Genotype}s of the genes of the variant transcript annotations.
+     * The variants are grouped as they are read, hence the variants with no transcript annotation
+     * are not retained.
+     */
+    static Collector<LiricalVariant, ?, GenesAndGenotypes> collector() {
+        return new GenesAndGenotypesCollector(null);
+    }
+
+    /**
+     * Like {@link #collector()}, but the {@link Gene2Genotype}s have the allele counts of the <code>sampleId</code>
+     * computed in advance.
+     */
+    static Collector<LiricalVariant, ?, GenesAndGenotypes> collector(String sampleId) {
+        return new GenesAndGenotypesCollector(Objects.requireNonNull(sampleId, "Sample ID must not be null"));
+    }
+
     /**
      * @return number of genes in the container.
      */
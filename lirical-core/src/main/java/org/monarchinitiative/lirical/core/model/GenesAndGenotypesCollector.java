@@ -0,0 +1,83 @@
+package org.monarchinitiative.lirical.core.model;
+
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Groups the variants by the genes of their transcript annotations as the variants are read.
+ * The variants with no transcript annotation are not retained.
+ */
+class GenesAndGenotypesCollector implements Collector<LiricalVariant, Map<GeneIdentifier, List<LiricalVariant>>, GenesAndGenotypes> {
+
+    private final String sampleId; // nullable
+
+    /**
+     * @param sampleId the sample to compute the allele counts for in advance or <code>null</code>.
+     */
+    GenesAndGenotypesCollector(String sampleId) {
+        this.sampleId = sampleId;
+    }
+
+    @Override
+    public Supplier<Map<GeneIdentifier, List<LiricalVariant>>> supplier() {
+        return LinkedHashMap::new;
+    }
+
+    @Override
+    public BiConsumer<Map<GeneIdentifier, List<LiricalVariant>>, LiricalVariant> accumulator() {
+        return (genes, variant) -> {
+            List<TranscriptAnnotation> annotations = variant.annotations();
+            for (int i = 0; i < annotations.size(); i++) {
+                GeneIdentifier geneId = annotations.get(i).getGeneId();
+                if (!isGeneOfPreviousAnnotation(annotations, i, geneId))
+                    genes.computeIfAbsent(geneId, g -> new ArrayList<>()).add(variant);
+            }
+        };
+    }
+
+    /**
+     * The variant is added to each gene once, even if it has several transcripts of the gene.
+     */
+    private static boolean isGeneOfPreviousAnnotation(List<TranscriptAnnotation> annotations, int i, GeneIdentifier geneId) {
+        for (int j = 0; j < i; j++)
+            if (annotations.get(j).getGeneId().equals(geneId))
+                return true;
+        return false;
+    }
+
+    @Override
+    public BinaryOperator<Map<GeneIdentifier, List<LiricalVariant>>> combiner() {
+        return (left, right) -> {
+            right.forEach((geneId, variants) -> left.computeIfAbsent(geneId, g -> new ArrayList<>()).addAll(variants));
+            return left;
+        };
+    }
+
+    @Override
+    public Function<Map<GeneIdentifier, List<LiricalVariant>>, GenesAndGenotypes> finisher() {
+        return genes -> {
+            List<Gene2Genotype> g2g = new ArrayList<>(genes.size());
+            Iterator<Map.Entry<GeneIdentifier, List<LiricalVariant>>> iterator = genes.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<GeneIdentifier, List<LiricalVariant>> e = iterator.next();
+                g2g.add(sampleId == null
+                        ? Gene2Genotype.of(e.getKey(), e.getValue())
+                        : Gene2Genotype.of(e.getKey(), e.getValue(), sampleId));
+                // Release the list once the gene has its own copy of the variants.
+                iterator.remove();
+            }
+            return GenesAndGenotypes.of(g2g);
+        };
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Set.of();
+    }
+}
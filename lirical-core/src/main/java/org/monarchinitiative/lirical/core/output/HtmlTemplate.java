@@ -84,8 +84,8 @@ public class HtmlTemplate extends LiricalTemplate {
         List<DifferentialDiagnosis> differentialDiagnoses = new ArrayList<>();
         List<ImprobableDifferential> improbableDifferentials = new ArrayList<>();
         AtomicInteger rank = new AtomicInteger();
-        analysisResults.resultsWithDescendingPostTestProbability().sequential()
-                .forEachOrdered(result -> {
+        analysisResults.rankedResults()
+                .forEach(result -> {
                     int current = rank.incrementAndGet();
 
                     Optional<GenotypeLrWithExplanation> genotypeLrOpt = result.genotypeLr();
@@ -15,7 +15,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,32 +45,30 @@ public class SparklinePacket {
             return List.of();
 
         List<SparklinePacket> packets = new ArrayList<>(N);
-        // we're checking that results are not empty
-        //noinspection OptionalGetWithoutIsPresent
-        TestResult topResult = results.resultsWithDescendingPostTestProbability().findFirst().get();
-        AtomicInteger rank = new AtomicInteger();
+        // we're checking that results are not empty, hence there is at least one top result
+        List<TestResult> topResults = results.topResults(Math.max(N, 1));
+        TestResult topResult = topResults.get(0);
         Map<TermId, HpoDisease> diseaseById = diseases.diseaseById();
         Sparkline2Svg sparkline2Svg = new Sparkline2Svg(topResult, true, ontology);
-        results.resultsWithDescendingPostTestProbability()
-                .limit(N)
-                .forEachOrdered(result -> {
-                    double posttestProb = result.posttestProbability();
-                    String posttestSVG = sparkline2Svg.getPosttestBar(posttestProb);
-                    Optional<GenotypeLrWithExplanation> genotypeLr = result.genotypeLr();
-                    String geneSymbol = genotypeLr.map(GenotypeLrWithExplanation::geneId)
-                            .map(GeneIdentifier::symbol)
-                            .orElse(EMPTY_STRING);
-                    String sparkSVG = sparkline2Svg.getSparklineSvg(geneSymbol, result);
-                    double compositeLR = result.getCompositeLR();
-
-                    HpoDisease disease = diseaseById.get(result.diseaseId());
-                    String diseaseName = prettifyDiseaseName(disease.diseaseName());
-                    TermId diseaseId = result.diseaseId();
-                    String diseaseAnchor = getDiseaseAnchor(diseaseId);
-                    String geneSparkSvg = genotypeLr.isPresent() ? sparkline2Svg.getGeneSparklineSvg(results, diseaseId, geneSymbol) : EMPTY_STRING;
-                    SparklinePacket sp = new SparklinePacket(rank.incrementAndGet(), posttestSVG, sparkSVG, compositeLR, geneSymbol, diseaseName, diseaseAnchor, geneSparkSvg);
-                    packets.add(sp);
-                });
+        int rank = 0;
+        for (TestResult result : topResults.subList(0, Math.min(N, topResults.size()))) {
+            double posttestProb = result.posttestProbability();
+            String posttestSVG = sparkline2Svg.getPosttestBar(posttestProb);
+            Optional<GenotypeLrWithExplanation> genotypeLr = result.genotypeLr();
+            String geneSymbol = genotypeLr.map(GenotypeLrWithExplanation::geneId)
+                    .map(GeneIdentifier::symbol)
+                    .orElse(EMPTY_STRING);
+            String sparkSVG = sparkline2Svg.getSparklineSvg(geneSymbol, result);
+            double compositeLR = result.getCompositeLR();
+
+            HpoDisease disease = diseaseById.get(result.diseaseId());
+            String diseaseName = prettifyDiseaseName(disease.diseaseName());
+            TermId diseaseId = result.diseaseId();
+            String diseaseAnchor = getDiseaseAnchor(diseaseId);
+            String geneSparkSvg = genotypeLr.isPresent() ? sparkline2Svg.getGeneSparklineSvg(results, diseaseId, geneSymbol) : EMPTY_STRING;
+            SparklinePacket sp = new SparklinePacket(++rank, posttestSVG, sparkSVG, compositeLR, geneSymbol, diseaseName, diseaseAnchor, geneSparkSvg);
+            packets.add(sp);
+        }
 
         return packets;
     }
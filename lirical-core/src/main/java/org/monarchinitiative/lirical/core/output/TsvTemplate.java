@@ -44,8 +44,8 @@ public class TsvTemplate extends LiricalTemplate {
         AtomicInteger rank = new AtomicInteger();
         Map<TermId, HpoDisease> diseaseById = diseases.diseaseById();
         List<TsvDifferential> diff = new ArrayList<>();
-        analysisResults.resultsWithDescendingPostTestProbability().sequential()
-                .forEachOrdered(result -> {
+        analysisResults.rankedResults()
+                .forEach(result -> {
                     int current = rank.incrementAndGet();
                     List<VisualizableVariant> variants = result.genotypeLr()
                             .map(GenotypeLrWithExplanation::geneId)
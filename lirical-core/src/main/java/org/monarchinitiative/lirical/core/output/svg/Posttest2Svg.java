@@ -181,9 +181,8 @@ public class Posttest2Svg extends Lirical2Svg {
         int xOffset = 5;
         Map<TermId, HpoDisease> diseaseById = diseases.diseaseById();
         AtomicInteger rank = new AtomicInteger();
-        analysisResults.resultsWithDescendingPostTestProbability()
-                .limit(numDifferentialsToShowSVG)
-                .forEachOrdered(result -> {
+        analysisResults.topResults(numDifferentialsToShowSVG)
+                .forEach(result -> {
                     try {
                         double postprob = result.posttestProbability();
                         int boxwidth = (int) (scaledWidth * postprob);
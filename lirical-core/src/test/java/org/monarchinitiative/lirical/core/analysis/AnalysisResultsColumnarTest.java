@@ -0,0 +1,102 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrMatchType;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanation;
+import org.monarchinitiative.lirical.core.likelihoodratio.LrWithExplanationFactory;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AnalysisResultsColumnarTest {
+
+    private static final TermId CRYPTORCHIDISM = TermId.of("HP:0000028");
+    private static final TermId ABNORMALITY_OF_THE_TESTIS = TermId.of("HP:0000035");
+    private static final TermId HYPOSPADIAS = TermId.of("HP:0000047");
+
+    private static DiseaseIndex diseaseIndex;
+    private static LrWithExplanationFactory factory;
+
+    @BeforeAll
+    public static void setUp() {
+        diseaseIndex = DiseaseIndex.of(TestResources.hpoDiseases());
+        factory = new LrWithExplanationFactory(TestResources.hpo());
+    }
+
+    @Test
+    public void emptyBuilderBuildsEmptyResults() {
+        AnalysisResults results = builder().build();
+
+        assertThat(results.isEmpty(), is(true));
+    }
+
+    @Test
+    public void resultsAreMaterializedOnDemand() {
+        AnalysisResultsColumnar.Builder builder = builder();
+        List<LrWithExplanation> observed = List.of(
+                factory.create(CRYPTORCHIDISM, ABNORMALITY_OF_THE_TESTIS, LrMatchType.QUERY_TERM_SUBCLASS_OF_DISEASE_TERM, 2.),
+                factory.create(HYPOSPADIAS, LrMatchType.NO_MATCH_BELOW_ROOT, .5));
+        List<LrWithExplanation> excluded = List.of(factory.create(ABNORMALITY_OF_THE_TESTIS, LrMatchType.EXCLUDED_QUERY_TERM_EXCLUDED_IN_DISEASE, 10.));
+        builder.add(2, .1, observed, excluded, null);
+        builder.add(0, .2, observed, excluded, null);
+
+        AnalysisResults results = builder.build();
+
+        assertThat(results.size(), equalTo(2));
+        List<TestResult> materialized = results.results().toList();
+        assertThat(materialized.stream().map(TestResult::diseaseId).toList(),
+                equalTo(List.of(diseaseIndex.diseaseId(0), diseaseIndex.diseaseId(2))));
+
+        TestResult expected = TestResult.of(diseaseIndex.diseaseId(2), .1, observed, excluded, null);
+        TestResult actual = results.resultByDiseaseId(diseaseIndex.diseaseId(2)).orElseThrow();
+        assertThat(actual.pretestProbability(), equalTo(expected.pretestProbability()));
+        assertThat(actual.getCompositeLR(), equalTo(expected.getCompositeLR()));
+        assertThat(actual.posttestProbability(), equalTo(expected.posttestProbability()));
+        assertThat(actual.observedTerms(), equalTo(List.of(CRYPTORCHIDISM, HYPOSPADIAS)));
+        assertThat(actual.excludedTerms(), equalTo(List.of(ABNORMALITY_OF_THE_TESTIS)));
+        for (int i = 0; i < observed.size(); i++) {
+            LrWithExplanation lr = actual.observedResults().get(i);
+            assertThat(lr.matchingTerm(), equalTo(observed.get(i).matchingTerm()));
+            assertThat(lr.matchType(), equalTo(observed.get(i).matchType()));
+            assertThat(lr.lr(), equalTo(observed.get(i).lr()));
+            assertThat(lr.explanation(), equalTo(observed.get(i).explanation()));
+        }
+        assertThat(actual.getExcludedPhenotypeRatio(0), equalTo(10.));
+
+        assertThat(results.resultByDiseaseId(diseaseIndex.diseaseId(1)).isPresent(), is(false));
+        assertThat(results.resultByDiseaseId(TermId.of("OMIM:999999")).isPresent(), is(false));
+    }
+
+    @Test
+    public void rankedResults() {
+        AnalysisResultsColumnar.Builder builder = builder();
+        List<LrWithExplanation> observed = List.of(
+                factory.create(CRYPTORCHIDISM, LrMatchType.EXACT_MATCH, 2.),
+                factory.create(HYPOSPADIAS, LrMatchType.EXACT_MATCH, 2.));
+        List<LrWithExplanation> excluded = List.of(factory.create(ABNORMALITY_OF_THE_TESTIS, LrMatchType.EXCLUDED_QUERY_TERM_NOT_PRESENT_IN_DISEASE, 1.));
+        builder.add(0, .3, observed, excluded, null);
+        builder.add(1, .1, observed, excluded, null);
+        builder.add(2, .3, observed, excluded, null);
+
+        AnalysisResults results = builder.build();
+
+        assertThat(results.topResults(2).stream().map(TestResult::diseaseId).toList(),
+                equalTo(List.of(diseaseIndex.diseaseId(0), diseaseIndex.diseaseId(2))));
+        List<TermId> expected = List.of(diseaseIndex.diseaseId(0), diseaseIndex.diseaseId(2), diseaseIndex.diseaseId(1));
+        assertThat(results.rankedResults().stream().map(TestResult::diseaseId).toList(), equalTo(expected));
+        assertThat(results.resultsWithDescendingPostTestProbability().map(TestResult::diseaseId).toList(), equalTo(expected));
+        assertThat(results.topResults(2).stream().map(TestResult::diseaseId).toList(), equalTo(expected.subList(0, 2)));
+    }
+
+    private static AnalysisResultsColumnar.Builder builder() {
+        return AnalysisResultsColumnar.builder(diseaseIndex,
+                List.of(CRYPTORCHIDISM, HYPOSPADIAS),
+                List.of(ABNORMALITY_OF_THE_TESTIS),
+                factory);
+    }
+}
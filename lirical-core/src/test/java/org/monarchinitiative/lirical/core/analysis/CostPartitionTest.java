@@ -0,0 +1,55 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CostPartitionTest {
+
+    @Test
+    public void partition() {
+        long[] costs = {1, 1, 1, 1, 8, 1, 1, 1, 1};
+
+        assertThat(CostPartition.partition(costs, 1), equalTo(new int[]{0, 9}));
+        assertThat(CostPartition.partition(costs, 2), equalTo(new int[]{0, 5, 9}));
+        assertThat(CostPartition.partition(costs, 4), equalTo(new int[]{0, 4, 5, 9}));
+    }
+
+    @Test
+    public void partitionEdgeCases() {
+        assertThat(CostPartition.partition(new long[]{}, 4), equalTo(new int[]{0}));
+        assertThat(CostPartition.partition(new long[]{0, 0, 5}, 3), equalTo(new int[]{0, 3}));
+        assertThat(CostPartition.partition(new long[]{5, 5}, 10), equalTo(new int[]{0, 1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> CostPartition.partition(new long[]{1}, 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 16, 64})
+    public void chunksAreBalanced(int chunks) {
+        Random random = new Random(chunks);
+        long[] costs = random.longs(10_000, 1, 100).toArray();
+        long total = 0;
+        for (long cost : costs)
+            total += cost;
+
+        int[] bounds = CostPartition.partition(costs, chunks);
+
+        assertThat(bounds[0], equalTo(0));
+        assertThat(bounds[bounds.length - 1], equalTo(costs.length));
+        assertThat(bounds.length - 1, lessThanOrEqualTo(chunks));
+        for (int chunk = 0; chunk < bounds.length - 1; chunk++) {
+            assertThat(bounds[chunk], lessThan(bounds[chunk + 1]));
+            long cost = 0;
+            for (int i = bounds[chunk]; i < bounds[chunk + 1]; i++)
+                cost += costs[i];
+            // The chunk deviates from its share by less than the cost of a single item.
+            assertThat((double) cost, closeTo((double) total / chunks, 100.));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.lirical.core.model.Gene2Genotype;
+import org.monarchinitiative.lirical.core.model.GenesAndGenotypes;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class GeneDiseaseIndexTest {
+
+    private static final TermId UNKNOWN_DISEASE = TermId.of("OMIM:999999");
+
+    private static DiseaseIndex diseaseIndex;
+
+    @BeforeAll
+    public static void setUp() {
+        diseaseIndex = DiseaseIndex.of(TestResources.hpoDiseases());
+    }
+
+    private static Gene2Genotype gene(String id) {
+        return Gene2Genotype.of(GeneIdentifier.of(TermId.of(id), id), List.of());
+    }
+
+    private static List<Gene2Genotype> genesOfDisease(GeneDiseaseIndex.CaseGenes caseGenes, int disease) {
+        List<Gene2Genotype> genes = new ArrayList<>();
+        for (int i = 0; i < caseGenes.geneCount(disease); i++)
+            genes.add(caseGenes.genes().get(caseGenes.genePosition(disease, i)));
+        return genes;
+    }
+
+    @Test
+    public void caseGenesAreGroupedByDisease() {
+        TermId first = diseaseIndex.diseaseId(0), second = diseaseIndex.diseaseId(1);
+        GeneDiseaseIndex index = GeneDiseaseIndex.of(Map.of(
+                        TermId.of("NCBIGene:1"), List.of(first, second, first),
+                        TermId.of("NCBIGene:2"), List.of(second, UNKNOWN_DISEASE),
+                        TermId.of("NCBIGene:3"), List.of(UNKNOWN_DISEASE),
+                        TermId.of("NCBIGene:4"), List.of()),
+                diseaseIndex);
+
+        Gene2Genotype a = gene("NCBIGene:1"), b = gene("NCBIGene:2"), c = gene("NCBIGene:3"),
+                d = gene("NCBIGene:4"), e = gene("NCBIGene:5");
+        GeneDiseaseIndex.CaseGenes caseGenes = index.caseGenes(GenesAndGenotypes.of(List.of(b, e, a, d, c)));
+
+        assertThat(caseGenes.isEmpty(), equalTo(false));
+        assertThat(caseGenes.genes(), contains(b, a, c));
+        assertThat(genesOfDisease(caseGenes, 0), contains(a));
+        assertThat(genesOfDisease(caseGenes, 1), contains(b, a));
+        assertThat(genesOfDisease(caseGenes, 2), is(empty()));
+    }
+
+    @Test
+    public void genesWithNoAssociatedDiseases() {
+        GeneDiseaseIndex index = GeneDiseaseIndex.of(Map.of(TermId.of("NCBIGene:1"), List.of(diseaseIndex.diseaseId(0))), diseaseIndex);
+
+        GeneDiseaseIndex.CaseGenes caseGenes = index.caseGenes(GenesAndGenotypes.of(List.of(gene("NCBIGene:2"))));
+
+        assertThat(caseGenes.isEmpty(), equalTo(true));
+        for (int disease = 0; disease < diseaseIndex.size(); disease++)
+            assertThat(caseGenes.geneCount(disease), equalTo(0));
+    }
+}
@@ -0,0 +1,80 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLrWithExplanation;
+import org.monarchinitiative.lirical.core.model.Gene2Genotype;
+import org.monarchinitiative.lirical.core.service.BackgroundVariantFrequencyService;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.monarchinitiative.phenol.annotations.constants.hpo.HpoModeOfInheritanceTermIds.AUTOSOMAL_DOMINANT;
+import static org.monarchinitiative.phenol.annotations.constants.hpo.HpoModeOfInheritanceTermIds.AUTOSOMAL_RECESSIVE;
+
+public class GenotypeLrTableTest {
+
+    private static final String SAMPLE_ID = "JIM";
+    private static final float PATHOGENICITY_THRESHOLD = .8f;
+    private static final List<List<TermId>> MODES_OF_INHERITANCE = List.of(List.of(AUTOSOMAL_DOMINANT), List.of(AUTOSOMAL_RECESSIVE));
+
+    private static Gene2Genotype gene(String id, int pathogenicAlleleCount, double sumOfPathBinScores) {
+        Gene2Genotype g2g = mock(Gene2Genotype.class);
+        when(g2g.geneId()).thenReturn(GeneIdentifier.of(TermId.of(id), id));
+        when(g2g.hasVariants()).thenReturn(true);
+        when(g2g.variantCount()).thenReturn(pathogenicAlleleCount);
+        when(g2g.pathogenicAlleleCount(SAMPLE_ID, PATHOGENICITY_THRESHOLD)).thenReturn(pathogenicAlleleCount);
+        when(g2g.getSumOfPathBinScores(SAMPLE_ID, PATHOGENICITY_THRESHOLD)).thenReturn(sumOfPathBinScores);
+        return g2g;
+    }
+
+    private static BitSet bits(int... values) {
+        BitSet bits = new BitSet();
+        for (int value : values)
+            bits.set(value);
+        return bits;
+    }
+
+    @Test
+    public void lrsAreComputedOncePerGeneAndModesOfInheritance() {
+        GenotypeLikelihoodRatio genotypeLr = spy(new GenotypeLikelihoodRatio(BackgroundVariantFrequencyService.of(Map.of(), 0.1),
+                new GenotypeLikelihoodRatio.Options(PATHOGENICITY_THRESHOLD, false)));
+        Gene2Genotype first = gene("NCBIGene:1", 1, .9);
+        Gene2Genotype second = gene("NCBIGene:2", 2, 1.8);
+
+        GenotypeLrTable table = GenotypeLrTable.of(genotypeLr, SAMPLE_ID, List.of(first, second), MODES_OF_INHERITANCE,
+                new BitSet[]{bits(0, 1), bits(1)});
+
+        for (int i = 0; i < 3; i++) {
+            assertLrEquals(table.lr(0, 0), genotypeLr.evaluateGenotype(SAMPLE_ID, first, List.of(AUTOSOMAL_DOMINANT)));
+            assertLrEquals(table.lr(0, 1), genotypeLr.evaluateGenotype(SAMPLE_ID, first, List.of(AUTOSOMAL_RECESSIVE)));
+            assertLrEquals(table.lr(1, 1), genotypeLr.evaluateGenotype(SAMPLE_ID, second, List.of(AUTOSOMAL_RECESSIVE)));
+        }
+
+        // Once when building the table and once per each loop iteration above.
+        verify(genotypeLr, times(4)).evaluateGenotype(SAMPLE_ID, first, List.of(AUTOSOMAL_DOMINANT));
+        verify(genotypeLr, times(4)).evaluateGenotype(SAMPLE_ID, second, List.of(AUTOSOMAL_RECESSIVE));
+    }
+
+    @Test
+    public void missingLrIsComputed() {
+        GenotypeLikelihoodRatio genotypeLr = new GenotypeLikelihoodRatio(BackgroundVariantFrequencyService.of(Map.of(), 0.1),
+                new GenotypeLikelihoodRatio.Options(PATHOGENICITY_THRESHOLD, false));
+        Gene2Genotype gene = gene("NCBIGene:1", 1, .9);
+
+        GenotypeLrTable table = GenotypeLrTable.of(genotypeLr, SAMPLE_ID, List.of(gene), MODES_OF_INHERITANCE, new BitSet[]{bits(0)});
+
+        assertLrEquals(table.lr(0, 1), genotypeLr.evaluateGenotype(SAMPLE_ID, gene, List.of(AUTOSOMAL_RECESSIVE)));
+    }
+
+    private static void assertLrEquals(GenotypeLrWithExplanation actual, GenotypeLrWithExplanation expected) {
+        assertThat(actual.geneId(), equalTo(expected.geneId()));
+        assertThat(actual.lr(), closeTo(expected.lr(), 1E-12));
+    }
+}
@@ -0,0 +1,181 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.lirical.core.analysis.probability.PretestDiseaseProbabilities;
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.PhenotypeLikelihoodRatio;
+import org.monarchinitiative.lirical.core.likelihoodratio.HpoTermIndex;
+import org.monarchinitiative.lirical.core.likelihoodratio.InducedDiseaseGraphs;
+import org.monarchinitiative.lirical.core.likelihoodratio.GenotypeLrWithExplanation;
+import org.monarchinitiative.lirical.core.model.*;
+import org.monarchinitiative.lirical.core.service.BackgroundVariantFrequencyService;
+import org.monarchinitiative.lirical.core.service.PhenotypeService;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoAssociationData;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+import org.monarchinitiative.svart.*;
+import org.monarchinitiative.svart.assembly.AssignedMoleculeType;
+import org.monarchinitiative.svart.assembly.SequenceRole;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class LiricalAnalysisRunnerImplTest {
+
+    private static final TermId CRYPTORCHIDISM = TermId.of("HP:0000028");
+    private static final TermId ABNORMALITY_OF_THE_TESTIS = TermId.of("HP:0000035");
+    private static final TermId HYPOSPADIAS = TermId.of("HP:0000047");
+
+    private static PhenotypeService phenotypeService;
+    private static PhenotypeLikelihoodRatio phenotypeLr;
+    private static GenotypeLikelihoodRatio genotypeLr;
+    private static LiricalAnalysisRunnerImpl runner;
+    private static AnalysisOptions options;
+
+    @BeforeAll
+    public static void setUp() {
+        HpoAssociationData associationData = mock(HpoAssociationData.class, RETURNS_DEEP_STUBS);
+        when(associationData.associations().geneIdToDiseaseIds()).thenReturn(Map.of());
+        phenotypeService = PhenotypeService.of(TestResources.hpo(), TestResources.hpoDiseases(), associationData);
+        phenotypeLr = new PhenotypeLikelihoodRatio(HpoTermIndex.of(TestResources.hpo()), TestResources.hpoDiseases());
+        genotypeLr = new GenotypeLikelihoodRatio(BackgroundVariantFrequencyService.of(Map.of(), 0.1),
+                new GenotypeLikelihoodRatio.Options(.8f, false));
+        runner = LiricalAnalysisRunnerImpl.of(phenotypeService, phenotypeLr, genotypeLr);
+        options = AnalysisOptions.of(true, PretestDiseaseProbabilities.uniform(TestResources.hpoDiseases()), false, .8f);
+    }
+
+    private static AnalysisData analysisData(String sampleId, List<TermId> present, List<TermId> excluded) {
+        return AnalysisData.of(sampleId, Age.ageNotKnown(), Sex.UNKNOWN, present, excluded, GenesAndGenotypes.empty());
+    }
+
+    @Test
+    public void batchResultsMatchSingleCaseResults() {
+        List<AnalysisData> cases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cases.add(analysisData("A" + i, List.of(CRYPTORCHIDISM, HYPOSPADIAS), List.of()));
+            cases.add(analysisData("B" + i, List.of(ABNORMALITY_OF_THE_TESTIS), List.of(HYPOSPADIAS)));
+        }
+
+        Map<String, AnalysisResults> batch = new ConcurrentHashMap<>();
+        runner.runBatch(cases, options, (data, results) -> batch.put(data.sampleId(), results));
+
+        assertThat(batch.keySet(), hasSize(cases.size()));
+        for (AnalysisData data : cases) {
+            List<TestResult> expected = runner.run(data, options).rankedResults();
+            List<TestResult> actual = batch.get(data.sampleId()).rankedResults();
+            assertThat(actual, hasSize(expected.size()));
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).diseaseId(), equalTo(expected.get(i).diseaseId()));
+                assertThat(actual.get(i).posttestProbability(), closeTo(expected.get(i).posttestProbability(), 1E-12));
+            }
+        }
+    }
+
+    @Test
+    public void topKResultsMatchTopResultsOfAllDiseases() {
+        AnalysisData data = analysisData("A", List.of(CRYPTORCHIDISM, HYPOSPADIAS), List.of(ABNORMALITY_OF_THE_TESTIS));
+        List<TestResult> expected = runner.run(data, options).rankedResults();
+        for (int k = 1; k <= expected.size(); k++) {
+            AnalysisOptions topK = AnalysisOptions.of(true, PretestDiseaseProbabilities.uniform(TestResources.hpoDiseases()), false, .8f, k);
+            List<TestResult> actual = runner.run(data, topK).topResults(k);
+
+            assertThat(actual, hasSize(k));
+            for (int i = 0; i < k; i++) {
+                assertThat(actual.get(i).diseaseId(), equalTo(expected.get(i).diseaseId()));
+                assertThat(actual.get(i).posttestProbability(), closeTo(expected.get(i).posttestProbability(), 1E-12));
+            }
+        }
+    }
+
+    @Test
+    public void rerunMatchesAnalysisFromScratch() {
+        AnalysisResults previous = runner.run(analysisData("A", List.of(CRYPTORCHIDISM, HYPOSPADIAS), List.of()), options);
+        AnalysisData updated = analysisData("A", List.of(HYPOSPADIAS, ABNORMALITY_OF_THE_TESTIS), List.of(CRYPTORCHIDISM));
+
+        List<TestResult> expected = runner.run(updated, options).rankedResults();
+        List<TestResult> actual = runner.rerun(previous, updated, options).rankedResults();
+
+        assertThat(actual, hasSize(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).diseaseId(), equalTo(expected.get(i).diseaseId()));
+            assertThat(actual.get(i).observedTerms(), equalTo(updated.presentPhenotypeTerms()));
+            assertThat(actual.get(i).excludedTerms(), equalTo(updated.negatedPhenotypeTerms()));
+            assertThat(actual.get(i).posttestProbability(), equalTo(expected.get(i).posttestProbability()));
+        }
+    }
+
+    @Test
+    public void posttestProbabilitiesMatchAnalysisResults() {
+        AnalysisData data = analysisData("A", List.of(CRYPTORCHIDISM, ABNORMALITY_OF_THE_TESTIS), List.of(HYPOSPADIAS));
+        DiseaseIndex diseaseIndex = DiseaseIndex.of(TestResources.hpoDiseases());
+
+        double[] posttestProbabilities = runner.posttestProbabilities(diseaseIndex, data, options);
+
+        AnalysisResults results = runner.run(data, options);
+        assertThat(posttestProbabilities.length, equalTo(diseaseIndex.size()));
+        for (int i = 0; i < diseaseIndex.size(); i++) {
+            TestResult result = results.resultByDiseaseId(diseaseIndex.diseaseId(i)).orElseThrow();
+            assertThat(posttestProbabilities[i], equalTo(result.posttestProbability()));
+        }
+    }
+
+    @Test
+    public void closeShutsDownOwnedPoolOnly() {
+        ForkJoinPool shared = new ForkJoinPool(2);
+        try {
+            LiricalAnalysisRunnerImpl withSharedPool = LiricalAnalysisRunnerImpl.of(phenotypeService, phenotypeLr, genotypeLr,
+                    InducedDiseaseGraphs.create(TestResources.hpoDiseases(), phenotypeLr.termIndex()), shared);
+            AnalysisData data = analysisData("A", List.of(CRYPTORCHIDISM), List.of());
+            assertThat(withSharedPool.run(data, options).size(), equalTo(TestResources.hpoDiseases().size()));
+
+            withSharedPool.close();
+            assertThat(shared.isShutdown(), equalTo(false));
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    @Test
+    public void geneWithVariantsNotCarriedBySampleKeepsItsDiseases() {
+        // The variants where the sample is homozygous reference are retained by the VCF parser,
+        // hence the gene remains among the sample genes and its diseases are evaluated in the non-global mode.
+        TermId diseaseId = TestResources.hpoDiseases().hpoDiseases().findFirst().orElseThrow().id();
+        GeneIdentifier geneId = GeneIdentifier.of(TermId.of("NCBIGene:2200"), "FBN1");
+        HpoAssociationData associationData = mock(HpoAssociationData.class, RETURNS_DEEP_STUBS);
+        when(associationData.associations().geneIdToDiseaseIds()).thenReturn(Map.of(geneId.id(), List.of(diseaseId)));
+        PhenotypeService service = PhenotypeService.of(TestResources.hpo(), TestResources.hpoDiseases(), associationData);
+
+        TranscriptAnnotation annotation = mock(TranscriptAnnotation.class);
+        when(annotation.getGeneId()).thenReturn(geneId);
+        Contig contig = Contig.of(1, "ctg1", SequenceRole.ASSEMBLED_MOLECULE, "ctg1", AssignedMoleculeType.CHROMOSOME, 1000, "", "", "");
+        GenomicVariant variant = GenomicVariant.of(contig, "id", Strand.POSITIVE, Coordinates.of(CoordinateSystem.oneBased(), 1, 1), "C", "G");
+        GenotypedVariant homRef = GenotypedVariant.of(GenomeBuild.HG38, variant, Map.of("A", AlleleCount.of((byte) 2, (byte) 0)), true);
+        GenesAndGenotypes genes = Stream.of(LiricalVariant.of(homRef, List.of(annotation), VariantMetadata.empty()))
+                .collect(GenesAndGenotypes.collector("A"));
+        AnalysisData data = AnalysisData.of("A", Age.ageNotKnown(), Sex.UNKNOWN, List.of(CRYPTORCHIDISM), List.of(), genes);
+        AnalysisOptions nonGlobal = AnalysisOptions.of(false, PretestDiseaseProbabilities.uniform(TestResources.hpoDiseases()), false, .8f);
+
+        try (LiricalAnalysisRunnerImpl nonGlobalRunner = LiricalAnalysisRunnerImpl.of(service, phenotypeLr, genotypeLr)) {
+            AnalysisResults results = nonGlobalRunner.run(data, nonGlobal);
+
+            assertThat(results.size(), equalTo(1));
+            TestResult result = results.resultByDiseaseId(diseaseId).orElseThrow();
+            assertThat(result.genotypeLr().map(GenotypeLrWithExplanation::geneId), equalTo(Optional.of(geneId)));
+        }
+    }
+
+    @Test
+    public void emptyBatchDoesNotCallConsumer() {
+        runner.runBatch(List.of(), options, (data, results) -> {
+            throw new AssertionError("Unexpected results for " + data.sampleId());
+        });
+    }
+}
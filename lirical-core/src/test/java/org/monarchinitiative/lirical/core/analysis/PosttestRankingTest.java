@@ -0,0 +1,51 @@
+package org.monarchinitiative.lirical.core.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PosttestRankingTest {
+
+    @Test
+    public void rank() {
+        double[] posttest = {.1, .5, .1, .9, 0.};
+
+        assertThat(PosttestRanking.rank(posttest), equalTo(new int[]{3, 1, 0, 2, 4}));
+    }
+
+    @Test
+    public void topK() {
+        double[] posttest = {.1, .5, .1, .9, 0.};
+
+        assertThat(PosttestRanking.topK(posttest, 0), equalTo(new int[]{}));
+        assertThat(PosttestRanking.topK(posttest, 3), equalTo(new int[]{3, 1, 0}));
+        assertThat(PosttestRanking.topK(posttest, 10), equalTo(new int[]{3, 1, 0, 2, 4}));
+        assertThrows(IllegalArgumentException.class, () -> PosttestRanking.topK(posttest, -1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 50, 999, 1000, 2000})
+    public void topKIsPrefixOfStableSort(int k) {
+        Random random = new Random(k);
+        // Few distinct values to have many ties.
+        double[] posttest = IntStream.range(0, 1000)
+                .mapToDouble(i -> random.nextInt(20) / 20.)
+                .toArray();
+
+        int[] expected = IntStream.range(0, posttest.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> posttest[i]).reversed())
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        assertThat(PosttestRanking.topK(posttest, k), equalTo(expected));
+    }
+}
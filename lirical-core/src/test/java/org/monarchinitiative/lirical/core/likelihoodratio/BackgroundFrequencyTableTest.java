@@ -0,0 +1,62 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BackgroundFrequencyTableTest {
+
+    private static HpoTermIndex termIndex;
+    private static List<HpoDisease> diseases;
+    private static BackgroundFrequencyTable table;
+
+    @BeforeAll
+    public static void setUp() {
+        termIndex = HpoTermIndex.of(TestResources.hpo());
+        diseases = TestResources.hpoDiseases().hpoDiseases().toList();
+        table = BackgroundFrequencyTable.of(termIndex, diseases);
+    }
+
+    @Test
+    public void frequenciesMatchMeanOfMaximumFrequencyOfDescendantAnnotations() {
+        Ontology hpo = TestResources.hpo();
+        Map<TermId, Double> expected = new HashMap<>();
+        for (TermId termId : hpo.getNonObsoleteTermIds())
+            expected.put(termId, 0.);
+        for (HpoDisease disease : diseases) {
+            Map<TermId, Double> maxFrequencies = new HashMap<>();
+            for (HpoDiseaseAnnotation annotation : disease.annotations()) {
+                TermId primaryTermId = hpo.getPrimaryTermId(annotation.id());
+                if (primaryTermId == null)
+                    continue; // Not in the test ontology.
+                for (TermId ancestor : OntologyAlgorithm.getAncestorTerms(hpo, primaryTermId, true))
+                    maxFrequencies.merge(ancestor, (double) annotation.frequency(), Math::max);
+            }
+            maxFrequencies.forEach((termId, frequency) -> expected.merge(termId, frequency, Double::sum));
+        }
+
+        assertThat(table.size(), equalTo(expected.size()));
+        for (Map.Entry<TermId, Double> e : expected.entrySet()) {
+            int term = table.index(e.getKey());
+            assertThat(term, not(equalTo(HpoTermIndex.MISSING)));
+            assertThat(table.frequency(term), closeTo(e.getValue() / diseases.size(), 1E-12));
+        }
+    }
+
+    @Test
+    public void unknownTerm() {
+        assertThat(table.index(TermId.of("HP:0000000")), equalTo(HpoTermIndex.MISSING));
+    }
+}
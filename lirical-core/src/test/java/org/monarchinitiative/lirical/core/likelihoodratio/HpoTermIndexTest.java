@@ -0,0 +1,72 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.ontology.algo.OntologyAlgorithm;
+import org.monarchinitiative.phenol.ontology.data.Ontology;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class HpoTermIndexTest {
+
+    private static Ontology hpo;
+    private static HpoTermIndex index;
+
+    @BeforeAll
+    public static void setUp() {
+        hpo = TestResources.hpo();
+        index = HpoTermIndex.of(hpo);
+    }
+
+    @Test
+    public void indexCoversNonObsoleteTerms() {
+        assertThat(index.size(), greaterThanOrEqualTo(hpo.getNonObsoleteTermIds().size()));
+        for (TermId termId : hpo.getNonObsoleteTermIds())
+            assertThat(index.termId(index.index(termId)), equalTo(termId));
+    }
+
+    @Test
+    public void unknownTermIsMissing() {
+        assertThat(index.index(TermId.of("HP:0099999")), equalTo(HpoTermIndex.MISSING));
+    }
+
+    @Test
+    public void ancestorsMatchOntologyAlgorithm() {
+        for (TermId termId : hpo.getNonObsoleteTermIds()) {
+            Set<TermId> expected = OntologyAlgorithm.getAncestorTerms(hpo, termId, true);
+            Set<TermId> actual = Arrays.stream(index.ancestors(index.index(termId)))
+                    .mapToObj(index::termId)
+                    .collect(Collectors.toSet());
+            assertThat(actual, equalTo(expected));
+        }
+    }
+
+    @Test
+    public void isAncestorOrSelf() {
+        // Abnormality of the testis -> Cryptorchidism
+        int cryptorchidism = index.index(TermId.of("HP:0000028"));
+        int abnormalityOfTheTestis = index.index(TermId.of("HP:0000035"));
+
+        assertThat(index.isAncestorOrSelf(cryptorchidism, cryptorchidism), is(true));
+        assertThat(index.isAncestorOrSelf(abnormalityOfTheTestis, cryptorchidism), is(true));
+        assertThat(index.isAncestorOrSelf(cryptorchidism, abnormalityOfTheTestis), is(false));
+    }
+
+    @Test
+    public void childrenMatchOntologyAlgorithm() {
+        TermId termId = TermId.of("HP:0000035");
+        Set<TermId> expected = OntologyAlgorithm.getChildTerms(hpo, termId, false);
+        Set<TermId> actual = Arrays.stream(index.children(index.index(termId)))
+                .mapToObj(index::termId)
+                .collect(Collectors.toSet());
+
+        assertThat(actual, equalTo(expected));
+    }
+}
@@ -0,0 +1,81 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InducedDiseaseGraphsTest {
+
+    private static HpoDiseases diseases;
+    private static HpoTermIndex termIndex;
+
+    @BeforeAll
+    public static void setUp() {
+        diseases = TestResources.hpoDiseases();
+        termIndex = HpoTermIndex.of(TestResources.hpo());
+    }
+
+    @Test
+    public void create() {
+        InducedDiseaseGraphs graphs = InducedDiseaseGraphs.create(diseases, termIndex);
+
+        assertThat(graphs.size(), equalTo(diseases.size()));
+        for (HpoDisease disease : diseases)
+            assertThat(graphs.graphForDisease(disease.id()).isPresent(), is(true));
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        InducedDiseaseGraphs graphs = InducedDiseaseGraphs.create(diseases, termIndex);
+
+        InducedDiseaseGraphs read = InducedDiseaseGraphs.read(new ByteArrayInputStream(write(graphs)), diseases, termIndex);
+
+        assertThat(read.size(), equalTo(graphs.size()));
+        assertThat(read.isStale(), is(false));
+        for (HpoDisease disease : diseases) {
+            InducedDiseaseGraph expected = graphs.graphForDisease(disease.id()).orElseThrow();
+            InducedDiseaseGraph actual = read.graphForDisease(disease.id()).orElseThrow();
+            assertThat(actual.getDisease(), sameInstance(disease));
+            assertThat(actual.annotationTerms(), equalTo(expected.annotationTerms()));
+            assertThat(actual.annotationFrequencies(), equalTo(expected.annotationFrequencies()));
+            assertThat(actual.annotationPresent(), equalTo(expected.annotationPresent()));
+            assertThat(actual.inducedTerms(), equalTo(expected.inducedTerms()));
+            assertThat(actual.inducedTermFrequencies(), equalTo(expected.inducedTermFrequencies()));
+            assertThat(actual.inducedNegativeGraph(), equalTo(expected.inducedNegativeGraph()));
+        }
+    }
+
+    @Test
+    public void graphsOfMissingDiseasesAreCreatedOnRead() throws Exception {
+        HpoDisease first = diseases.iterator().next();
+        InducedDiseaseGraphs partial = InducedDiseaseGraphs.create(HpoDiseases.of(List.of(first)), termIndex);
+
+        InducedDiseaseGraphs read = InducedDiseaseGraphs.read(new ByteArrayInputStream(write(partial)), diseases, termIndex);
+
+        assertThat(read.size(), equalTo(diseases.size()));
+        assertThat(read.isStale(), is(true));
+    }
+
+    @Test
+    public void readRejectsInvalidInput() {
+        byte[] garbage = {1, 2, 3, 4, 5, 6, 7, 8};
+        assertThrows(IOException.class, () -> InducedDiseaseGraphs.read(new ByteArrayInputStream(garbage), diseases, termIndex));
+    }
+
+    private static byte[] write(InducedDiseaseGraphs graphs) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        graphs.write(os);
+        return os.toByteArray();
+    }
+}
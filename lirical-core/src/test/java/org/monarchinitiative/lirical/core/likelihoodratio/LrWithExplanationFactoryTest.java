@@ -0,0 +1,34 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class LrWithExplanationFactoryTest {
+
+    private static final TermId CRYPTORCHIDISM = TermId.of("HP:0000028");
+    private static final TermId ABNORMALITY_OF_THE_TESTIS = TermId.of("HP:0000035");
+
+    private final LrWithExplanationFactory factory = new LrWithExplanationFactory(TestResources.hpo());
+
+    @Test
+    public void explanationIsFormattedOnDemand() {
+        LrWithExplanation lr = factory.create(CRYPTORCHIDISM, LrMatchType.EXACT_MATCH, 100.);
+
+        assertThat(lr.lr(), equalTo(100.));
+        String explanation = lr.explanation();
+        assertThat(explanation, equalTo("E:Cryptorchidism[HP:0000028][2.000]"));
+        assertThat(lr.explanation(), sameInstance(explanation));
+    }
+
+    @Test
+    public void escapedExplanation() {
+        LrWithExplanation lr = factory.create(CRYPTORCHIDISM, ABNORMALITY_OF_THE_TESTIS, LrMatchType.QUERY_TERM_SUBCLASS_OF_DISEASE_TERM, 10.);
+
+        assertThat(lr.escapedExplanation(), equalTo("Q&lt;D:Cryptorchidism[HP:0000028]&lt;Abnormality of the testis[HP:0000035][1.000]"));
+    }
+}
@@ -11,6 +11,8 @@ import org.monarchinitiative.phenol.ontology.data.TermId;
 
 import java.util.Map;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -88,6 +90,38 @@ public class PhenotypeLikelihoodRatioTest {
         assertEquals(expected,  frq,EPSILON);
     }
 
+    /**
+     * The bounds must hold for any query term in any disease.
+     */
+    @Test
+    public void maxLrsAreUpperBoundsOfLrs() {
+        HpoTermIndex termIndex = phenotypeLrCalculator.termIndex();
+        for (HpoDisease disease : hpoDiseases) {
+            InducedDiseaseGraph idg = InducedDiseaseGraph.create(disease, termIndex);
+            for (TermId term : TestResources.hpo().getNonObsoleteTermIds()) {
+                assertThat(phenotypeLrCalculator.lrForObservedTerm(term, idg).lr(),
+                        lessThanOrEqualTo(phenotypeLrCalculator.maxLrForObservedTerm(term)));
+                assertThat(phenotypeLrCalculator.lrForExcludedTerm(term, idg).lr(),
+                        lessThanOrEqualTo(phenotypeLrCalculator.maxLrForExcludedTerm(term, idg)));
+            }
+        }
+    }
 
+    @Test
+    public void primitiveLrsMatchExplainedLrs() {
+        HpoTermIndex termIndex = phenotypeLrCalculator.termIndex();
+        for (HpoDisease disease : hpoDiseases) {
+            InducedDiseaseGraph idg = InducedDiseaseGraph.create(disease, termIndex);
+            for (TermId term : TestResources.hpo().getNonObsoleteTermIds()) {
+                int query = termIndex.index(term);
+                assertEquals(phenotypeLrCalculator.lrForObservedTerm(term, idg).lr(), phenotypeLrCalculator.observedLr(query, idg));
+                assertEquals(phenotypeLrCalculator.lrForExcludedTerm(term, idg).lr(), phenotypeLrCalculator.excludedLr(query, idg));
+            }
+        }
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void maxLrOfUnknownTermIsInfinite() {
+        assertEquals(Double.POSITIVE_INFINITY, phenotypeLrCalculator.maxLrForObservedTerm(TermId.of("HP:0000000")));
+    }
+}
@@ -0,0 +1,85 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PhenotypeLrCacheTest {
+
+    private static final TermId CRYPTORCHIDISM = TermId.of("HP:0000028");
+    private static final TermId HYPOSPADIAS = TermId.of("HP:0000047");
+
+    private final LrWithExplanationFactory factory = new LrWithExplanationFactory(TestResources.hpo());
+
+    @Test
+    public void getOrCompute() {
+        PhenotypeLrCache cache = PhenotypeLrCache.of(10);
+        LrWithExplanation lr = factory.create(CRYPTORCHIDISM, LrMatchType.EXACT_MATCH, 2.);
+        long key = PhenotypeLrCache.key(1, false, 2);
+
+        assertThat(cache.getOrCompute(key, () -> lr), sameInstance(lr));
+        assertThat(cache.getOrCompute(key, () -> {
+            throw new AssertionError("Must not be computed");
+        }), sameInstance(lr));
+
+        PhenotypeLrCache.Stats stats = cache.stats();
+        assertThat(stats.hits(), equalTo(1L));
+        assertThat(stats.misses(), equalTo(1L));
+        assertThat(stats.size(), equalTo(1));
+        assertThat(stats.hitRate(), closeTo(.5, 1E-9));
+    }
+
+    @Test
+    public void keysAreDistinct() {
+        assertThat(PhenotypeLrCache.key(1, false, 2), not(equalTo(PhenotypeLrCache.key(1, true, 2))));
+        assertThat(PhenotypeLrCache.key(1, false, 2), not(equalTo(PhenotypeLrCache.key(2, false, 1))));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        PhenotypeLrCache cache = PhenotypeLrCache.of(1);
+        LrWithExplanation lr = factory.create(CRYPTORCHIDISM, LrMatchType.EXACT_MATCH, 2.);
+
+        for (int i = 0; i < 5; i++)
+            cache.getOrCompute(PhenotypeLrCache.key(i, false, 0), () -> lr);
+
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.stats().evictions(), equalTo(4L));
+    }
+
+    @Test
+    public void invalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> PhenotypeLrCache.of(0));
+    }
+
+    @Test
+    public void cachedLrsAreEqualToComputedLrs() {
+        HpoDiseases diseases = TestResources.hpoDiseases();
+        HpoTermIndex termIndex = HpoTermIndex.of(TestResources.hpo());
+        PhenotypeLrCache cache = PhenotypeLrCache.of(100);
+        PhenotypeLikelihoodRatio cached = new PhenotypeLikelihoodRatio(termIndex, diseases, cache);
+        PhenotypeLikelihoodRatio plain = new PhenotypeLikelihoodRatio(termIndex, diseases);
+
+        for (int round = 0; round < 2; round++) {
+            for (HpoDisease disease : diseases) {
+                InducedDiseaseGraph idg = InducedDiseaseGraph.create(disease, termIndex);
+                for (TermId term : List.of(CRYPTORCHIDISM, HYPOSPADIAS)) {
+                    assertThat(cached.lrForObservedTerm(term, idg).lr(), equalTo(plain.lrForObservedTerm(term, idg).lr()));
+                    assertThat(cached.lrForExcludedTerm(term, idg).lr(), equalTo(plain.lrForExcludedTerm(term, idg).lr()));
+                }
+            }
+        }
+
+        int lookups = 2 * 2 * diseases.size();
+        assertThat(cache.stats().misses(), equalTo((long) lookups));
+        assertThat(cache.stats().hits(), equalTo((long) lookups));
+    }
+}
@@ -0,0 +1,104 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseaseAnnotation;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PhenotypeLrMatrixTest {
+
+    /**
+     * The maximum relative error of the quantized LRs.
+     */
+    private static final double TOLERANCE = Math.pow(10., .5 / PhenotypeLrMatrix.LR_SCALE) - 1.;
+
+    private static HpoDiseases diseases;
+    private static HpoTermIndex termIndex;
+    private static InducedDiseaseGraphs graphs;
+    private static PhenotypeLikelihoodRatio phenotypeLr;
+
+    @BeforeAll
+    public static void setUp() {
+        diseases = TestResources.hpoDiseases();
+        termIndex = HpoTermIndex.of(TestResources.hpo());
+        graphs = InducedDiseaseGraphs.create(diseases, termIndex);
+        phenotypeLr = new PhenotypeLikelihoodRatio(termIndex, diseases);
+    }
+
+    @Test
+    public void precomputedLrsMatchComputedLrs(@TempDir Path tmp) throws IOException {
+        Path path = tmp.resolve("phenotype_lr_matrix.bin");
+        PhenotypeLrMatrix.write(phenotypeLr, diseases, graphs, path);
+
+        PhenotypeLrMatrix matrix = PhenotypeLrMatrix.open(path, termIndex, diseases);
+        int[] terms = PhenotypeLrMatrix.precomputableTerms(termIndex);
+        assertThat(matrix.diseaseCount(), equalTo(diseases.size()));
+        assertThat(matrix.termCount(), equalTo(terms.length));
+
+        PrecomputedPhenotypeLikelihoodRatio precomputed = new PrecomputedPhenotypeLikelihoodRatio(termIndex, diseases, matrix);
+        for (HpoDisease disease : diseases) {
+            InducedDiseaseGraph idg = graphs.graphForDisease(disease.id()).orElseThrow();
+            for (int term : terms) {
+                TermId termId = termIndex.termId(term);
+                assertEquivalent(precomputed.lrForObservedTerm(termId, idg), phenotypeLr.lrForObservedTerm(termId, idg));
+                assertEquivalent(precomputed.lrForExcludedTerm(termId, idg), phenotypeLr.lrForExcludedTerm(termId, idg));
+                assertThat(precomputed.observedLr(term, idg), equalTo(precomputed.lrForObservedTerm(termId, idg).lr()));
+                assertThat(precomputed.excludedLr(term, idg), equalTo(precomputed.lrForExcludedTerm(termId, idg).lr()));
+            }
+        }
+    }
+
+    @Test
+    public void openRejectsInvalidFile(@TempDir Path tmp) throws IOException {
+        Path path = tmp.resolve("garbage.bin");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        assertThrows(IOException.class, () -> PhenotypeLrMatrix.open(path, termIndex, diseases));
+    }
+
+    @Test
+    public void openRejectsChangedDiseaseAnnotations(@TempDir Path tmp) throws IOException {
+        Path path = tmp.resolve("phenotype_lr_matrix.bin");
+        PhenotypeLrMatrix.write(phenotypeLr, diseases, graphs, path);
+
+        // The background frequencies, and hence the LRs of all diseases, change if one disease is re-annotated.
+        List<HpoDisease> changed = new ArrayList<>(diseases.hpoDiseases().toList());
+        HpoDisease first = changed.get(0);
+        List<HpoDiseaseAnnotation> annotations = first.annotationStream().skip(1).toList();
+        changed.set(0, HpoDisease.of(first.id(), first.diseaseName(), first.diseaseOnset().orElse(null), annotations, first.modesOfInheritance()));
+
+        assertThrows(IOException.class, () -> PhenotypeLrMatrix.open(path, termIndex, HpoDiseases.of(changed)));
+    }
+
+    @Test
+    public void quantization() {
+        assertThat(PhenotypeLrMatrix.dequantize(PhenotypeLrMatrix.quantize(0.)), equalTo(0.));
+        assertThat(PhenotypeLrMatrix.dequantize(PhenotypeLrMatrix.quantize(1.)), equalTo(1.));
+        assertThat(PhenotypeLrMatrix.dequantize(PhenotypeLrMatrix.quantize(1000.)), equalTo(1000.));
+        for (double lr : new double[]{1E-6, .0123, .5, 3.3, 123.4, 9876.5}) {
+            double restored = PhenotypeLrMatrix.dequantize(PhenotypeLrMatrix.quantize(lr));
+            assertThat(Math.abs(restored - lr) / lr, lessThanOrEqualTo(TOLERANCE));
+        }
+    }
+
+    private static void assertEquivalent(LrWithExplanation actual, LrWithExplanation expected) {
+        assertThat(actual.queryTerm(), equalTo(expected.queryTerm()));
+        assertThat(actual.matchType(), equalTo(expected.matchType()));
+        assertThat(actual.matchingTerm(), equalTo(expected.matchingTerm()));
+        assertThat(actual.lr(), closeTo(expected.lr(), expected.lr() * TOLERANCE + 1E-12));
+    }
+}
@@ -0,0 +1,72 @@
+package org.monarchinitiative.lirical.core.likelihoodratio;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.TestResources;
+import org.monarchinitiative.phenol.annotations.constants.hpo.HpoSubOntologyRootTermIds;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDisease;
+import org.monarchinitiative.phenol.annotations.formats.hpo.HpoDiseases;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TermDiseaseIndexTest {
+
+    private static HpoTermIndex termIndex;
+    private static List<InducedDiseaseGraph> graphs;
+    private static PhenotypeLikelihoodRatio phenotypeLr;
+    private static TermDiseaseIndex instance;
+
+    @BeforeAll
+    public static void setUp() {
+        HpoDiseases diseases = TestResources.hpoDiseases();
+        termIndex = HpoTermIndex.of(TestResources.hpo());
+        graphs = new ArrayList<>();
+        for (HpoDisease disease : diseases)
+            graphs.add(InducedDiseaseGraph.create(disease, termIndex));
+        phenotypeLr = new PhenotypeLikelihoodRatio(termIndex, diseases);
+        instance = TermDiseaseIndex.of(termIndex, graphs);
+    }
+
+    @Test
+    public void unrelatedDiseasesHaveNoMatchBelowRoot() {
+        assertThat(instance.diseaseCount(), equalTo(graphs.size()));
+
+        for (int term = 0; term < termIndex.size(); term++) {
+            TermId termId = termIndex.termId(term);
+            Optional<BitSet> related = instance.diseasesRelatedToObservedTerm(termId);
+            if (related.isEmpty())
+                continue;
+            for (int disease = 0; disease < graphs.size(); disease++) {
+                if (related.get().get(disease))
+                    continue;
+                LrWithExplanation lr = phenotypeLr.lrForObservedTerm(termId, graphs.get(disease));
+                assertThat(lr.matchType(), equalTo(LrMatchType.NO_MATCH_BELOW_ROOT));
+            }
+        }
+    }
+
+    @Test
+    public void annotatedDiseasesAreRelated() {
+        for (int disease = 0; disease < graphs.size(); disease++) {
+            InducedDiseaseGraph idg = graphs.get(disease);
+            for (int term : idg.annotationTerms()) {
+                Optional<BitSet> related = instance.diseasesRelatedToObservedTerm(termIndex.termId(term));
+                assertThat(related.isPresent(), equalTo(true));
+                assertThat(related.get().get(disease), equalTo(true));
+            }
+        }
+    }
+
+    @Test
+    public void allDiseasesAreEvaluatedForUnselectiveTerms() {
+        assertThat(instance.diseasesRelatedToObservedTerm(HpoSubOntologyRootTermIds.PHENOTYPIC_ABNORMALITY).isEmpty(), equalTo(true));
+        assertThat(instance.diseasesRelatedToObservedTerm(TermId.of("HP:0000000")).isEmpty(), equalTo(true));
+    }
+}
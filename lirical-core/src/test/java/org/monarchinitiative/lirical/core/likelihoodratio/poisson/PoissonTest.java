@@ -46,4 +46,28 @@ public class PoissonTest {
         double prob = poissonDistribution.probability(observedCount);
         assertEquals(expectedProbability,prob,EPSILON);
     }
+
+    /**
+     * The probability of the {@link ObservedCount} must be identical to the probability of the count.
+     */
+    @Test
+    public void observedCountProbabilityIsIdentical() {
+        double[] means = {0.0001, 0.1, 0.5, 1., 2., 2.2, 3.2, 7.5, 20.};
+        for (int i = 0; i <= 400; i++) {
+            double x = i * 0.0625 + (i % 3) * 0.01;
+            ObservedCount count = ObservedCount.of(x);
+            for (double mean : means) {
+                PoissonDistribution poissonDistribution = new PoissonDistribution(mean);
+                assertEquals(poissonDistribution.logProbability(x), poissonDistribution.logProbability(count));
+                assertEquals(poissonDistribution.probability(x), poissonDistribution.probability(count));
+            }
+        }
+    }
+
+    @Test
+    public void observedCountOfNegativeValue() {
+        PoissonDistribution poissonDistribution = new PoissonDistribution(2.);
+        assertEquals(0., poissonDistribution.probability(ObservedCount.of(-1.)));
+        assertEquals(Math.exp(-2.), poissonDistribution.probability(ObservedCount.of(0.)));
+    }
 }
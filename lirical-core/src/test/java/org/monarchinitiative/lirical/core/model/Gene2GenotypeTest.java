@@ -0,0 +1,72 @@
+package org.monarchinitiative.lirical.core.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class Gene2GenotypeTest {
+
+    private static final String SAMPLE_ID = "JIM";
+    private static final String OTHER_SAMPLE_ID = "JANE";
+    private static final GeneIdentifier GENE_ID = GeneIdentifier.of(TermId.of("NCBIGene:123"), "FAKE_SYMBOL");
+
+    private static LiricalVariant variant(Float score, float pathogenicity, int alt, ClinvarClnSig clnSig) {
+        LiricalVariant variant = mock(LiricalVariant.class);
+        when(variant.pathogenicityScore()).thenReturn(Optional.ofNullable(score));
+        when(variant.pathogenicity()).thenReturn(pathogenicity);
+        when(variant.alleleCount(SAMPLE_ID)).thenReturn(Optional.of(AlleleCount.of(2 - alt, alt)));
+        when(variant.alleleCount(OTHER_SAMPLE_ID)).thenReturn(Optional.empty());
+        when(variant.clinvarClnSig()).thenReturn(clnSig);
+        int clinVarCount = clnSig.isPathogenicOrLikelyPathogenic() ? alt : 0;
+        when(variant.pathogenicClinVarAlleleCount(SAMPLE_ID)).thenReturn(clinVarCount);
+        return variant;
+    }
+
+    private static List<LiricalVariant> variants() {
+        return List.of(
+                variant(.9f, .9f, 1, ClinvarClnSig.PATHOGENIC),
+                variant(.3f, .5f, 2, ClinvarClnSig.BENIGN),
+                variant(null, .7f, 1, ClinvarClnSig.NOT_PROVIDED),
+                variant(.8f, .85f, 2, ClinvarClnSig.LIKELY_PATHOGENIC),
+                variant(.8f, .8f, 1, ClinvarClnSig.UNCERTAIN_SIGNIFICANCE),
+                variant(0f, .1f, 1, ClinvarClnSig.NOT_PROVIDED));
+    }
+
+    @ParameterizedTest
+    @ValueSource(floats = {-1f, 0f, .1f, .3f, .5f, .8f, .85f, .9f, 1f})
+    public void precomputedCountsMatchComputedCounts(float threshold) {
+        List<LiricalVariant> variants = variants();
+        Gene2Genotype computed = Gene2Genotype.of(GENE_ID, variants);
+        Gene2Genotype precomputed = Gene2Genotype.of(GENE_ID, variants, SAMPLE_ID);
+
+        assertThat(precomputed.pathogenicClinVarCount(SAMPLE_ID), equalTo(computed.pathogenicClinVarCount(SAMPLE_ID)));
+        assertThat(precomputed.pathogenicAlleleCount(SAMPLE_ID, threshold), equalTo(computed.pathogenicAlleleCount(SAMPLE_ID, threshold)));
+        assertThat(precomputed.getSumOfPathBinScores(SAMPLE_ID, threshold), closeTo(computed.getSumOfPathBinScores(SAMPLE_ID, threshold), 1E-6));
+    }
+
+    @Test
+    public void countsOfOtherSamplesAreComputed() {
+        Gene2Genotype precomputed = Gene2Genotype.of(GENE_ID, variants(), SAMPLE_ID);
+
+        assertThat(precomputed.variantCount(), equalTo(6));
+        assertThat(precomputed.pathogenicAlleleCount(OTHER_SAMPLE_ID, .8f), equalTo(0));
+        assertThat(precomputed.getSumOfPathBinScores(OTHER_SAMPLE_ID, .8f), equalTo(0.));
+    }
+
+    @Test
+    public void geneWithNoVariants() {
+        Gene2Genotype precomputed = Gene2Genotype.of(GENE_ID, List.of(), SAMPLE_ID);
+
+        assertThat(precomputed.hasVariants(), equalTo(false));
+        assertThat(precomputed.pathogenicAlleleCount(SAMPLE_ID, .8f), equalTo(0));
+    }
+}
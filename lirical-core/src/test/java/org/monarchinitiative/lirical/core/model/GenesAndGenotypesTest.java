@@ -0,0 +1,59 @@
+package org.monarchinitiative.lirical.core.model;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
+import org.monarchinitiative.phenol.ontology.data.TermId;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class GenesAndGenotypesTest {
+
+    private static final GeneIdentifier FBN1 = GeneIdentifier.of(TermId.of("NCBIGene:2200"), "FBN1");
+    private static final GeneIdentifier FBN2 = GeneIdentifier.of(TermId.of("NCBIGene:2201"), "FBN2");
+
+    private static LiricalVariant variant(GeneIdentifier... genes) {
+        List<TranscriptAnnotation> annotations = Arrays.stream(genes)
+                .map(gene -> {
+                    TranscriptAnnotation annotation = mock(TranscriptAnnotation.class);
+                    when(annotation.getGeneId()).thenReturn(gene);
+                    return annotation;
+                })
+                .toList();
+        LiricalVariant variant = mock(LiricalVariant.class);
+        when(variant.annotations()).thenReturn(annotations);
+        return variant;
+    }
+
+    @Test
+    public void collectorGroupsVariantsByGene() {
+        LiricalVariant a = variant(FBN1, FBN1);
+        LiricalVariant b = variant(FBN1, FBN2);
+        LiricalVariant intergenic = variant();
+        LiricalVariant c = variant(FBN2);
+
+        GenesAndGenotypes genes = Stream.of(a, b, intergenic, c)
+                .collect(GenesAndGenotypes.collector());
+
+        assertThat(genes.size(), equalTo(2));
+        Map<GeneIdentifier, List<LiricalVariant>> variants = genes.genes()
+                .collect(Collectors.toMap(Gene2Genotype::geneId, g -> g.variants().toList()));
+        assertThat(variants.get(FBN1), equalTo(List.of(a, b)));
+        assertThat(variants.get(FBN2), equalTo(List.of(b, c)));
+    }
+
+    @Test
+    public void collectorOfNoVariants() {
+        GenesAndGenotypes genes = Stream.of(variant())
+                .collect(GenesAndGenotypes.collector("JIM"));
+
+        assertThat(genes.size(), equalTo(0));
+    }
+}
@@ -90,6 +90,22 @@ public class LiricalDataResolver {
         return dataDirectory.resolve("hg38_ucsc.ser");
     }
 
+    /**
+     * @return path to the optional file with the precomputed induced disease graphs.
+     * The file is not required to be present in the data directory.
+     */
+    public Path inducedDiseaseGraphs() {
+        return dataDirectory.resolve("induced_disease_graphs.bin");
+    }
+
+    /**
+     * @return path to the optional file with the precomputed phenotype likelihood ratios.
+     * The file is not required to be present in the data directory.
+     */
+    public Path phenotypeLrMatrix() {
+        return dataDirectory.resolve("phenotype_lr_matrix.bin");
+    }
+
     public Path transcriptCacheFor(GenomeBuild genomeBuild, TranscriptDatabase txDb) {
         return switch (genomeBuild) {
             case HG19 -> switch (txDb) {
@@ -5,7 +5,6 @@ import org.monarchinitiative.lirical.core.analysis.LiricalParseException;
 import org.monarchinitiative.lirical.core.model.*;
 import org.monarchinitiative.lirical.core.io.VariantParser;
 import org.monarchinitiative.lirical.core.io.VariantParserFactory;
-import org.monarchinitiative.phenol.annotations.formats.GeneIdentifier;
 import org.monarchinitiative.phenol.annotations.formats.hpo.HpoAssociationData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,36 +37,21 @@ abstract class BaseAnalysisDataParser implements AnalysisDataParser {
                 LOGGER.warn("Unable to parse VCF at {} since parser or association data is missing", vcfPath.toAbsolutePath());
                 return GenesAndGenotypes.empty();
             } else {
-                try (VariantParser variantParser = variantParserFactory.forPath(vcfPath)) {
+                try (VariantParser variantParser = variantParserFactory.forPath(vcfPath, List.of(sampleId))) {
                     // Ensure the VCF file contains the sample
                     if (!variantParser.sampleNames().contains(sampleId))
                         throw new LiricalParseException("The sample " + sampleId + " is not present in VCF at '" + vcfPath.toAbsolutePath() + '\'');
                     LOGGER.debug("Found sample {} in the VCF file at {}", sampleId, vcfPath.toAbsolutePath());
 
-                    // Read variants
+                    // Read variants and group them by gene as they are read.
                     LOGGER.info("Reading variants from {}", vcfPath.toAbsolutePath());
                     AtomicInteger counter = new AtomicInteger();
-                    List<LiricalVariant> variants = variantParser.variantStream()
+                    GenesAndGenotypes genes = variantParser.variantStream()
                             .peek(logProgress(counter))
-                            .toList();
-                    LOGGER.info("Read {} variants", variants.size());
+                            .collect(GenesAndGenotypes.collector(sampleId));
+                    LOGGER.info("Read {} variants", counter.get());
 
-                    // Group variants by gene symbol. It would be better to group the variants by e.g. Entrez ID,
-                    // but the ID is not available from TranscriptAnnotation
-                    Map<GeneIdentifier, List<LiricalVariant>> gene2Genotype = new HashMap<>();
-                    for (LiricalVariant variant : variants) {
-                        variant.annotations().stream()
-                                .map(TranscriptAnnotation::getGeneId)
-                                .distinct()
-                                .forEach(geneId -> gene2Genotype.computeIfAbsent(geneId, e -> new LinkedList<>()).add(variant));
-                    }
-
-                    // Collect the variants into Gene2Genotype container
-                    List<Gene2Genotype> g2g = gene2Genotype.entrySet().stream()
-                            .map(e -> Gene2Genotype.of(e.getKey(), e.getValue()))
-                            .toList();
-
-                    return GenesAndGenotypes.of(g2g);
+                    return genes;
                 } catch (Exception e) {
                     throw new LiricalParseException(e);
                 }
@@ -0,0 +1,64 @@
+package org.monarchinitiative.lirical.io.service;
+
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.monarchinitiative.svart.Contig;
+import org.monarchinitiative.svart.CoordinateSystem;
+import org.monarchinitiative.svart.GenomicRegion;
+import org.monarchinitiative.svart.Strand;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Genomic regions of the genes derived from the Jannovar transcripts.
+ */
+public class JannovarGeneRegions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JannovarGeneRegions.class);
+
+    /**
+     * The default padding covers the upstream and downstream variants annotated by Jannovar.
+     */
+    public static final int DEFAULT_PADDING = 5_000;
+
+    private JannovarGeneRegions() {
+    }
+
+    /**
+     * Get the regions of the transcripts of the genes, extended by <code>padding</code> bases on both sides.
+     *
+     * @param geneSymbols the symbols of the genes, the genes without transcripts are ignored.
+     * @param padding a non-negative number of bases.
+     */
+    public static List<GenomicRegion> of(JannovarData jannovarData,
+                                         GenomicAssembly assembly,
+                                         Collection<String> geneSymbols,
+                                         int padding) {
+        if (padding < 0)
+            throw new IllegalArgumentException("Padding must not be negative: " + padding);
+
+        List<GenomicRegion> regions = new ArrayList<>();
+        for (String symbol : geneSymbols) {
+            for (TranscriptModel tx : jannovarData.getTmByGeneSymbol().get(symbol)) {
+                GenomeInterval txRegion = tx.getTXRegion().withStrand(de.charite.compbio.jannovar.reference.Strand.FWD);
+                String contigName = jannovarData.getRefDict().getContigIDToName().get(txRegion.getChr());
+                Contig contig = assembly.contigByName(contigName);
+                if (contig.isUnknown()) {
+                    LOGGER.debug("Unknown contig {} of transcript {}", contigName, tx.getAccession());
+                    continue;
+                }
+                // Jannovar uses zero-based coordinates.
+                int start = Math.max(0, txRegion.getBeginPos() - padding);
+                int end = Math.min(contig.length(), txRegion.getEndPos() + padding);
+                regions.add(GenomicRegion.of(contig, Strand.POSITIVE, CoordinateSystem.zeroBased(), start, end));
+            }
+        }
+        return regions;
+    }
+}
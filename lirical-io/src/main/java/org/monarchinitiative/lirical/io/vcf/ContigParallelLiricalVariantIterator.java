@@ -0,0 +1,209 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.monarchinitiative.lirical.core.model.GenomeBuild;
+import org.monarchinitiative.lirical.core.model.LiricalVariant;
+import org.monarchinitiative.lirical.core.service.FunctionalVariantAnnotator;
+import org.monarchinitiative.lirical.core.service.VariantMetadataService;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterator that reads the contigs of an indexed VCF file concurrently.
+ * <p>
+ * Each contig is queried through its own {@link VCFFileReader} by a worker that decodes, annotates, and looks up
+ * the metadata of the contig variants. The iterator returns the contigs in the order of the index, which is the order
+ * of the VCF file. At most {@link #PENDING_CONTIGS_PER_WORKER} contigs per worker are read ahead of the consumer,
+ * and each contig streams its variants through a bounded queue, hence the memory usage does not depend on the size
+ * of the contigs. Close the iterator to stop the workers if the variants are not consumed until the end.
+ */
+class ContigParallelLiricalVariantIterator implements Iterator<LiricalVariant>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContigParallelLiricalVariantIterator.class);
+    private static final AtomicInteger READER_COUNTER = new AtomicInteger();
+    /**
+     * The number of contigs read ahead of the consumer per worker.
+     */
+    private static final int PENDING_CONTIGS_PER_WORKER = 2;
+    /**
+     * The number of variants of a contig read ahead of the consumer.
+     */
+    private static final int PENDING_VARIANTS_PER_CONTIG = 1024;
+    /**
+     * Marks the end of the contig variants.
+     */
+    private static final Object END = new Object();
+
+    private final Path path;
+    private final GenomicAssembly assembly;
+    private final GenomeBuild genomeBuild;
+    private final FunctionalVariantAnnotator variantAnnotator;
+    private final VariantMetadataService metadataService;
+    private final GenomicRegionIndex regions;
+    private final SampleGenotypeDecoder sampleDecoder;
+    private final Iterator<String> contigs;
+    private final ExecutorService workers;
+    private final int maxPendingContigs;
+    private final int pendingVariantsPerContig;
+    /**
+     * The queues of the contigs read ahead of the consumer, each with the variants, an optional {@link Failure},
+     * and the {@link #END} of the contig.
+     */
+    private final Deque<BlockingQueue<Object>> pending = new ArrayDeque<>();
+
+    private BlockingQueue<Object> current;
+    private LiricalVariant next;
+
+    /**
+     * @param path path to the VCF file with a tabix or tribble index.
+     * @param contigs the names of the contigs in the index.
+     * @param regions the regions of the variants to read or <code>null</code> if all variants should be read.
+     * @param sampleDecoder the decoder of the genotypes of the samples of interest or <code>null</code>
+     *                      if the genotypes of all samples should be decoded.
+     */
+    ContigParallelLiricalVariantIterator(Path path,
+                                         GenomicAssembly assembly,
+                                         GenomeBuild genomeBuild,
+                                         FunctionalVariantAnnotator variantAnnotator,
+                                         VariantMetadataService metadataService,
+                                         List<String> contigs,
+                                         GenomicRegionIndex regions,
+                                         SampleGenotypeDecoder sampleDecoder,
+                                         int contigWorkers) {
+        this(path, assembly, genomeBuild, variantAnnotator, metadataService, contigs, regions, sampleDecoder,
+                contigWorkers, PENDING_VARIANTS_PER_CONTIG);
+    }
+
+    ContigParallelLiricalVariantIterator(Path path,
+                                         GenomicAssembly assembly,
+                                         GenomeBuild genomeBuild,
+                                         FunctionalVariantAnnotator variantAnnotator,
+                                         VariantMetadataService metadataService,
+                                         List<String> contigs,
+                                         GenomicRegionIndex regions,
+                                         SampleGenotypeDecoder sampleDecoder,
+                                         int contigWorkers,
+                                         int pendingVariantsPerContig) {
+        this.path = Objects.requireNonNull(path, "Path must not be null!");
+        this.assembly = Objects.requireNonNull(assembly, "Assembly must not be null!");
+        this.genomeBuild = Objects.requireNonNull(genomeBuild, "Genome build must not be null!");
+        this.variantAnnotator = Objects.requireNonNull(variantAnnotator, "Variant annotator must not be null!");
+        this.metadataService = Objects.requireNonNull(metadataService, "Metadata service must not be null!");
+        this.regions = regions; // nullable
+        this.sampleDecoder = sampleDecoder; // nullable
+        this.contigs = List.copyOf(contigs).iterator();
+        String prefix = "lirical-contig-" + READER_COUNTER.incrementAndGet() + '-';
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(contigWorkers, runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPendingContigs = PENDING_CONTIGS_PER_WORKER * contigWorkers;
+        this.pendingVariantsPerContig = pendingVariantsPerContig;
+        submitContigs();
+    }
+
+    private void submitContigs() {
+        while (pending.size() < maxPendingContigs && contigs.hasNext()) {
+            String contig = contigs.next();
+            BlockingQueue<Object> variants = new ArrayBlockingQueue<>(pendingVariantsPerContig);
+            workers.execute(() -> readContig(contig, variants));
+            pending.add(variants);
+        }
+    }
+
+    private void readContig(String contig, BlockingQueue<Object> variants) {
+        long start = System.currentTimeMillis();
+        int count = 0;
+        try {
+            try (VCFFileReader reader = new VCFFileReader(path, true);
+                 CloseableIterator<VariantContext> records = reader.query(contig, 1, Integer.MAX_VALUE)) {
+                GenotypedVariantIterator genotyped = new GenotypedVariantIterator(assembly, genomeBuild, records, regions, sampleDecoder);
+                LiricalVariantIterator iterator = new LiricalVariantIterator(genotyped, variantAnnotator, metadataService);
+                while (iterator.hasNext()) {
+                    variants.put(iterator.next());
+                    count++;
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable e) {
+                // Report the error to the consumer at the position of the failed variant,
+                // the consumer would wait for the end of the contig otherwise.
+                variants.put(new Failure(e));
+            }
+            variants.put(END);
+            LOGGER.debug("Read {} variants from contig {} in {} ms", count, contig, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted while reading the variants of contig {}", contig);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (current == null) {
+                current = pending.poll();
+                if (current == null) {
+                    close();
+                    return false;
+                }
+                submitContigs();
+            }
+            Object item = take(current);
+            if (item == END)
+                current = null;
+            else if (item instanceof Failure failure)
+                throw failure.toRuntimeException();
+            else
+                next = (LiricalVariant) item;
+        }
+        return true;
+    }
+
+    private static Object take(BlockingQueue<Object> variants) {
+        try {
+            return variants.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the contig variants", e);
+        }
+    }
+
+    @Override
+    public LiricalVariant next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        LiricalVariant variant = next;
+        next = null;
+        return variant;
+    }
+
+    /**
+     * Stop the workers. The pending contigs are discarded.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * The error of a worker that read the contig variants.
+     */
+    private record Failure(Throwable cause) {
+
+        private RuntimeException toRuntimeException() {
+            return cause instanceof RuntimeException re
+                    ? re
+                    : new IllegalStateException(cause);
+        }
+    }
+}
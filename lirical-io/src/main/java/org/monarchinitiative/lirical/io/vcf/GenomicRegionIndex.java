@@ -0,0 +1,91 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import org.monarchinitiative.svart.Contig;
+import org.monarchinitiative.svart.CoordinateSystem;
+import org.monarchinitiative.svart.GenomicRegion;
+import org.monarchinitiative.svart.Strand;
+
+import java.util.*;
+
+/**
+ * Index of genomic regions for checking if a VCF record overlaps any region, e.g. the regions
+ * of the disease-associated genes. The overlapping regions are merged, and each contig keeps its regions
+ * in sorted arrays, hence a query is a binary search.
+ */
+public class GenomicRegionIndex {
+
+    /**
+     * The regions of a contig in one-based closed coordinates, sorted by start and not overlapping.
+     */
+    private record ContigRegions(int[] starts, int[] ends) {
+    }
+
+    private final Map<Integer, ContigRegions> regionsByContig;
+
+    public static GenomicRegionIndex of(Collection<? extends GenomicRegion> regions) {
+        Map<Integer, List<int[]>> byContig = new HashMap<>();
+        for (GenomicRegion region : regions) {
+            int start = region.startOnStrandWithCoordinateSystem(Strand.POSITIVE, CoordinateSystem.oneBased());
+            int end = region.endOnStrandWithCoordinateSystem(Strand.POSITIVE, CoordinateSystem.oneBased());
+            byContig.computeIfAbsent(region.contigId(), id -> new ArrayList<>()).add(new int[]{start, end});
+        }
+
+        Map<Integer, ContigRegions> regionsByContig = new HashMap<>(byContig.size() * 2);
+        for (Map.Entry<Integer, List<int[]>> e : byContig.entrySet())
+            regionsByContig.put(e.getKey(), merge(e.getValue()));
+        return new GenomicRegionIndex(Map.copyOf(regionsByContig));
+    }
+
+    private static ContigRegions merge(List<int[]> regions) {
+        regions.sort(Comparator.comparingInt(r -> r[0]));
+        int[] starts = new int[regions.size()];
+        int[] ends = new int[regions.size()];
+        int n = 0;
+        for (int[] region : regions) {
+            if (n > 0 && region[0] <= ends[n - 1] + 1) {
+                // The region overlaps or abuts the previous region.
+                ends[n - 1] = Math.max(ends[n - 1], region[1]);
+            } else {
+                starts[n] = region[0];
+                ends[n] = region[1];
+                n++;
+            }
+        }
+        return new ContigRegions(Arrays.copyOf(starts, n), Arrays.copyOf(ends, n));
+    }
+
+    private GenomicRegionIndex(Map<Integer, ContigRegions> regionsByContig) {
+        this.regionsByContig = regionsByContig;
+    }
+
+    /**
+     * @return <code>true</code> if the contig has at least one region.
+     */
+    public boolean hasRegions(Contig contig) {
+        return regionsByContig.containsKey(contig.id());
+    }
+
+    /**
+     * Check if the interval <code>[start, end]</code> in one-based coordinates on the positive strand
+     * overlaps a region of the contig.
+     */
+    public boolean overlaps(Contig contig, int start, int end) {
+        ContigRegions regions = regionsByContig.get(contig.id());
+        if (regions == null)
+            return false;
+        // The last region that starts at or before the end of the interval.
+        int i = Arrays.binarySearch(regions.starts(), end);
+        if (i < 0)
+            i = -i - 2;
+        return i >= 0 && regions.ends()[i] >= start;
+    }
+
+    /**
+     * @return the number of merged regions.
+     */
+    public int size() {
+        return regionsByContig.values().stream()
+                .mapToInt(r -> r.starts().length)
+                .sum();
+    }
+}
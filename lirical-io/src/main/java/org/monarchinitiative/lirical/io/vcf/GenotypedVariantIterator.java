@@ -25,15 +25,33 @@ class GenotypedVariantIterator implements Iterator<GenotypedVariant> {
 
     private final Queue<GenotypedVariant> queue;
     private final GenomeBuild genomeBuild;
+    private final GenomicRegionIndex regions;
+    private final SampleGenotypeDecoder sampleDecoder;
 
     GenotypedVariantIterator(GenomicAssembly assembly,
                              GenomeBuild genomeBuild,
                              CloseableIterator<VariantContext> iterator) {
+        this(assembly, genomeBuild, iterator, null, null);
+    }
+
+    /**
+     * @param regions the records that do not overlap the regions are skipped before decoding the genotypes,
+     *                or <code>null</code> if all records should be decoded.
+     * @param sampleDecoder the decoder of the genotypes of the samples of interest or <code>null</code> if the genotypes
+     *                      of all samples should be decoded.
+     */
+    GenotypedVariantIterator(GenomicAssembly assembly,
+                             GenomeBuild genomeBuild,
+                             CloseableIterator<VariantContext> iterator,
+                             GenomicRegionIndex regions,
+                             SampleGenotypeDecoder sampleDecoder) {
         this.assembly = Objects.requireNonNull(assembly);
         this.iterator = Objects.requireNonNull(iterator);
         // TODO - pull out trimmer config?
         this.converter = new VcfConverter(assembly, VariantTrimmer.leftShiftingTrimmer(VariantTrimmer.retainingCommonBase()));
         this.genomeBuild = genomeBuild;
+        this.regions = regions; // nullable
+        this.sampleDecoder = sampleDecoder; // nullable
         this.queue = new LinkedList<>();
 
         readNextVariant();
@@ -53,30 +71,59 @@ class GenotypedVariantIterator implements Iterator<GenotypedVariant> {
     }
 
     private void readNextVariant() {
-        while (true) {
-            if (iterator.hasNext()) {
-                VariantContext vc = iterator.next();
-
-                Contig contig = assembly.contigByName(vc.getContig());
-                if (contig.isUnknown()) {
-                    LOGGER.warn("Unknown contig {}", vc.getContig());
-                    continue;
-                }
+        // Read the records until a record yields a variant.
+        while (queue.isEmpty() && iterator.hasNext()) {
+            VariantContext vc = iterator.next();
+
+            Contig contig = assembly.contigByName(vc.getContig());
+            if (contig.isUnknown()) {
+                LOGGER.warn("Unknown contig {}", vc.getContig());
+                continue;
+            }
+            if (regions != null && !regions.overlaps(contig, vc.getStart(), vc.getEnd()))
+                continue;
 
-                int start = vc.getStart();
-                List<Allele> alts = vc.getAlternateAlleles();
+            int start = vc.getStart();
+            List<Allele> alts = vc.getAlternateAlleles();
+            int[][] sampleAlleles = sampleDecoder == null ? null : sampleDecoder.decode(vc);
 
-                Allele ref = vc.getReference();
-                for (Allele alt : alts) {
-                    GenomicVariant variant = converter.convert(contig, vc.getID(), start, ref.getBaseString(), alt.getBaseString());
-                    Map<String, AlleleCount> countMap = countGenotypes(ref, alt, vc.getGenotypes());
-                    queue.add(GenotypedVariant.of(genomeBuild, variant, countMap, vc.isNotFiltered()));
+            Allele ref = vc.getReference();
+            for (int i = 0; i < alts.size(); i++) {
+                Allele alt = alts.get(i);
+                Map<String, AlleleCount> countMap;
+                if (sampleAlleles == null) {
+                    countMap = countGenotypes(ref, alt, vc.getGenotypes());
+                } else {
+                    countMap = countSampleAlleles(sampleDecoder.samples(), sampleAlleles, i + 1);
                 }
+                GenomicVariant variant = converter.convert(contig, vc.getID(), start, ref.getBaseString(), alt.getBaseString());
+                queue.add(GenotypedVariant.of(genomeBuild, variant, countMap, vc.isNotFiltered()));
             }
-            break;
         }
     }
 
+    /**
+     * Count the reference alleles and the alleles with index <code>altIndex</code> of the samples with a call.
+     */
+    private static Map<String, AlleleCount> countSampleAlleles(List<String> samples, int[][] sampleAlleles, int altIndex) {
+        Map<String, AlleleCount> countMap = new HashMap<>(samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            int[] alleles = sampleAlleles[i];
+            if (alleles == null)
+                continue;
+            int refCount = 0;
+            int altCount = 0;
+            for (int allele : alleles) {
+                if (allele == 0)
+                    refCount++;
+                else if (allele == altIndex)
+                    altCount++;
+            }
+            countMap.put(samples.get(i), alleleCount(refCount, altCount));
+        }
+        return Collections.unmodifiableMap(countMap);
+    }
+
     private static Map<String, AlleleCount> countGenotypes(Allele ref,
                                                            Allele alt,
                                                            GenotypesContext genotypes) {
@@ -87,27 +134,24 @@ class GenotypedVariantIterator implements Iterator<GenotypedVariant> {
 
             int refCount = gt.countAllele(ref);
             int altCount = gt.countAllele(alt);
-
-            AlleleCount ac;
-            if (refCount == 0) {
-                ac = switch (altCount) {
-                    case 0 -> AlleleCount.zeroZero();
-                    case 1 -> AlleleCount.zeroOne();
-                    case 2 -> AlleleCount.zeroTwo();
-                    default -> AlleleCount.of(((byte) refCount), (byte) altCount);
-                };
-            } else if (refCount == 1) {
-                if (altCount == 1) {
-                    ac = AlleleCount.oneOne();
-                } else {
-                    ac = AlleleCount.of(((byte) refCount), (byte) altCount);
-                }
-            } else {
-                ac = AlleleCount.of(((byte) refCount), (byte) altCount);
-            }
-            countMap.put(gt.getSampleName(), ac);
+            countMap.put(gt.getSampleName(), alleleCount(refCount, altCount));
         }
         return Collections.unmodifiableMap(countMap);
     }
 
+    private static AlleleCount alleleCount(int refCount, int altCount) {
+        if (refCount == 0) {
+            return switch (altCount) {
+                case 0 -> AlleleCount.zeroZero();
+                case 1 -> AlleleCount.zeroOne();
+                case 2 -> AlleleCount.zeroTwo();
+                default -> AlleleCount.of(((byte) refCount), (byte) altCount);
+            };
+        } else if (refCount == 1 && altCount == 1) {
+            return AlleleCount.oneOne();
+        } else {
+            return AlleleCount.of(((byte) refCount), (byte) altCount);
+        }
+    }
+
 }
@@ -34,7 +34,15 @@ class LiricalVariantIterator implements Iterator<LiricalVariant> {
     public LiricalVariant next() {
         GenotypedVariant gv = iterator.next();
         List<TranscriptAnnotation> annotations = variantAnnotator.annotate(gv.variant());
+        return lookUpMetadata(gv, annotations, metadataService);
+    }
 
+    /**
+     * Look up the metadata of the variant with the effects of its transcript <code>annotations</code>.
+     */
+    static LiricalVariant lookUpMetadata(GenotypedVariant gv,
+                                         List<TranscriptAnnotation> annotations,
+                                         VariantMetadataService metadataService) {
         List<VariantEffect> effects = annotations.stream()
                 .map(TranscriptAnnotation::getVariantEffects)
                 .flatMap(Collection::stream)
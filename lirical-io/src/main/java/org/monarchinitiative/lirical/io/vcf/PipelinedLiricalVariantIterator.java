@@ -0,0 +1,160 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import org.monarchinitiative.lirical.core.model.GenotypedVariant;
+import org.monarchinitiative.lirical.core.model.LiricalVariant;
+import org.monarchinitiative.lirical.core.service.FunctionalVariantAnnotator;
+import org.monarchinitiative.lirical.core.service.VariantMetadataService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterator that decodes, annotates, and looks up the metadata of the variants in a pipeline.
+ * <p>
+ * A reader thread decodes the VCF records and submits each variant to the annotation workers, and then
+ * to the metadata lookup workers. The pending variants are kept in a bounded queue in the order of the VCF file,
+ * hence the iterator returns the same variants in the same order as {@link LiricalVariantIterator},
+ * and the reader waits if the consumer falls behind. Close the iterator to stop the threads
+ * if the variants are not consumed until the end.
+ */
+class PipelinedLiricalVariantIterator implements Iterator<LiricalVariant>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedLiricalVariantIterator.class);
+    private static final AtomicInteger PIPELINE_COUNTER = new AtomicInteger();
+    /**
+     * The number of pending variants per worker.
+     */
+    private static final int PENDING_VARIANTS_PER_WORKER = 256;
+    /**
+     * How long to wait for the reader to stop in {@link #close()}.
+     */
+    private static final long READER_STOP_TIMEOUT_MILLIS = 5_000L;
+    /**
+     * Marks the end of the variants.
+     */
+    private static final Future<LiricalVariant> END = CompletableFuture.completedFuture(null);
+
+    private final Iterator<GenotypedVariant> iterator;
+    private final FunctionalVariantAnnotator variantAnnotator;
+    private final VariantMetadataService metadataService;
+    private final ExecutorService annotationWorkers;
+    private final ExecutorService lookupWorkers;
+    private final BlockingQueue<Future<LiricalVariant>> pending;
+    private final Thread reader;
+
+    private Future<LiricalVariant> next;
+
+    PipelinedLiricalVariantIterator(Iterator<GenotypedVariant> iterator,
+                                    FunctionalVariantAnnotator variantAnnotator,
+                                    VariantMetadataService metadataService,
+                                    int annotationWorkers,
+                                    int lookupWorkers) {
+        this.iterator = Objects.requireNonNull(iterator, "Iterator must not be null!");
+        this.variantAnnotator = Objects.requireNonNull(variantAnnotator, "Variant annotator must not be null!");
+        this.metadataService = Objects.requireNonNull(metadataService, "Metadata service must not be null!");
+        int pipeline = PIPELINE_COUNTER.incrementAndGet();
+        this.annotationWorkers = Executors.newFixedThreadPool(annotationWorkers, daemonThreads("lirical-annotation-" + pipeline + '-'));
+        this.lookupWorkers = Executors.newFixedThreadPool(lookupWorkers, daemonThreads("lirical-lookup-" + pipeline + '-'));
+        this.pending = new ArrayBlockingQueue<>(PENDING_VARIANTS_PER_WORKER * (annotationWorkers + lookupWorkers));
+        this.reader = new Thread(this::read, "lirical-vcf-reader-" + pipeline);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void read() {
+        try {
+            try {
+                while (iterator.hasNext()) {
+                    GenotypedVariant gv = iterator.next();
+                    pending.put(CompletableFuture.supplyAsync(() -> variantAnnotator.annotate(gv.variant()), annotationWorkers)
+                            .thenApplyAsync(annotations -> LiricalVariantIterator.lookUpMetadata(gv, annotations, metadataService), lookupWorkers));
+                }
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable e) {
+                // Report the decoding error to the consumer at the position of the failed record,
+                // the consumer would wait for the end of the variants otherwise.
+                pending.put(CompletableFuture.failedFuture(e));
+            }
+            pending.put(END);
+        } catch (InterruptedException e) {
+            LOGGER.debug("Interrupted while reading the variants");
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("The pipeline was closed while reading the variants");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = pending.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the next variant", e);
+            }
+            if (next == END)
+                close();
+        }
+        return next != END;
+    }
+
+    @Override
+    public LiricalVariant next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Future<LiricalVariant> current = next;
+        next = null;
+        try {
+            return current.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the next variant", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null)
+                cause = cause.getCause();
+            if (cause instanceof RuntimeException re)
+                throw re;
+            if (cause instanceof Error err)
+                throw err;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Stop the reader and the workers. The pending variants are discarded.
+     * <p>
+     * The method waits for the reader to stop, hence the underlying VCF reader can be closed afterwards
+     * without pulling it from under a record being decoded.
+     */
+    @Override
+    public void close() {
+        reader.interrupt();
+        annotationWorkers.shutdownNow();
+        lookupWorkers.shutdownNow();
+        if (Thread.currentThread() == reader)
+            return;
+        try {
+            reader.join(READER_STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (reader.isAlive())
+            LOGGER.warn("The VCF reader thread did not stop within {} ms", READER_STOP_TIMEOUT_MILLIS);
+    }
+}
@@ -0,0 +1,161 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFConstants;
+import htsjdk.variant.vcf.VCFHeader;
+
+import java.util.*;
+
+/**
+ * Decodes the genotype calls of the samples of interest from a VCF record.
+ * <p>
+ * htsjdk decodes the genotypes of all samples of a record when the genotypes are first accessed. The decoder reads
+ * the <code>GT</code> fields of the samples of interest from the unparsed genotype data of the record instead,
+ * and falls back to the htsjdk genotypes if the data was already decoded or does not start with <code>GT</code>.
+ * Note that htsjdk decodes the genotypes eagerly if the sample names of the VCF header are not sorted.
+ */
+final class SampleGenotypeDecoder {
+
+    /**
+     * Allele index of a no-call allele.
+     */
+    static final int NO_CALL = -1;
+
+    private final List<String> samples;
+    /**
+     * The positions of the sample columns among the genotype columns, in ascending order.
+     */
+    private final int[] columns;
+
+    /**
+     * @param samples the samples of interest, the samples not present in the header are ignored.
+     */
+    static SampleGenotypeDecoder of(VCFHeader header, Collection<String> samples) {
+        Map<String, Integer> sampleColumns = header.getSampleNameToOffset();
+        List<String> present = samples.stream()
+                .distinct()
+                .filter(sampleColumns::containsKey)
+                .sorted(Comparator.comparingInt(sampleColumns::get))
+                .toList();
+        return new SampleGenotypeDecoder(present, present.stream().mapToInt(sampleColumns::get).toArray());
+    }
+
+    private SampleGenotypeDecoder(List<String> samples, int[] columns) {
+        this.samples = samples;
+        this.columns = columns;
+    }
+
+    /**
+     * @return the samples of interest present in the VCF file.
+     */
+    List<String> samples() {
+        return samples;
+    }
+
+    /**
+     * Decode the genotype calls of the samples of interest.
+     *
+     * @return the allele indices of each sample of {@link #samples()}, with {@link #NO_CALL} for the no-call alleles,
+     * or <code>null</code> if the sample has no call.
+     */
+    int[][] decode(VariantContext vc) {
+        GenotypesContext genotypes = vc.getGenotypes();
+        if (genotypes instanceof LazyGenotypesContext lazy && lazy.getUnparsedGenotypeData() instanceof String data) {
+            int[][] alleles = decodeUnparsed(data);
+            if (alleles != null)
+                return alleles;
+        }
+        return decodeGenotypes(vc);
+    }
+
+    /**
+     * Parse the <code>GT</code> fields from the genotype data, the <code>FORMAT</code> column followed
+     * by the tab-separated sample columns.
+     *
+     * @return the allele indices or <code>null</code> if <code>GT</code> is not the first field.
+     */
+    private int[][] decodeUnparsed(String data) {
+        int formatEnd = data.indexOf('\t');
+        if (formatEnd < 0 || !isGenotypeFirst(data, formatEnd))
+            return null;
+
+        int[][] alleles = new int[samples.size()][];
+        int column = 0;
+        int start = formatEnd + 1;
+        for (int i = 0; i < samples.size(); i++) {
+            // Skip to the column of the sample.
+            while (column < columns[i] && start > 0) {
+                start = data.indexOf('\t', start) + 1;
+                column++;
+            }
+            if (start <= 0)
+                break;
+            alleles[i] = parseGenotype(data, start);
+        }
+        return alleles;
+    }
+
+    private static boolean isGenotypeFirst(String data, int formatEnd) {
+        int keyLength = VCFConstants.GENOTYPE_KEY.length();
+        return data.startsWith(VCFConstants.GENOTYPE_KEY)
+                && (formatEnd == keyLength || data.charAt(keyLength) == ':');
+    }
+
+    /**
+     * Parse the <code>GT</code> field that starts at <code>start</code>, e.g. <code>0/1</code> or <code>1|2</code>.
+     */
+    private static int[] parseGenotype(String data, int start) {
+        int[] alleles = new int[2];
+        int n = 0;
+        boolean called = false;
+        int i = start;
+        while (true) {
+            int allele;
+            if (i < data.length() && data.charAt(i) == '.') {
+                allele = NO_CALL;
+                i++;
+            } else {
+                allele = 0;
+                int digits = 0;
+                while (i < data.length() && Character.isDigit(data.charAt(i))) {
+                    allele = allele * 10 + data.charAt(i) - '0';
+                    i++;
+                    digits++;
+                }
+                if (digits == 0)
+                    allele = NO_CALL;
+                else
+                    called = true;
+            }
+            if (n == alleles.length)
+                alleles = Arrays.copyOf(alleles, n * 2);
+            alleles[n++] = allele;
+
+            if (i < data.length() && (data.charAt(i) == '/' || data.charAt(i) == '|'))
+                i++;
+            else
+                break;
+        }
+        return called ? Arrays.copyOf(alleles, n) : null;
+    }
+
+    private int[][] decodeGenotypes(VariantContext vc) {
+        int[][] alleles = new int[samples.size()][];
+        for (int i = 0; i < samples.size(); i++) {
+            Genotype gt = vc.getGenotype(samples.get(i));
+            if (gt == null || gt.isNoCall())
+                continue;
+            List<Allele> gtAlleles = gt.getAlleles();
+            alleles[i] = new int[gtAlleles.size()];
+            for (int j = 0; j < gtAlleles.size(); j++) {
+                Allele allele = gtAlleles.get(j);
+                alleles[i][j] = allele.isNoCall() ? NO_CALL : vc.getAlleleIndex(allele);
+            }
+        }
+        return alleles;
+    }
+}
@@ -6,6 +6,7 @@ import org.monarchinitiative.lirical.core.model.GenotypedVariant;
 import org.monarchinitiative.lirical.core.io.GenotypedVariantParser;
 import org.monarchinitiative.svart.assembly.GenomicAssembly;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Objects;
 
@@ -14,16 +15,43 @@ public class VcfGenotypedVariantParser implements GenotypedVariantParser {
     private final GenomicAssembly assembly;
     private final GenomeBuild genomeBuild;
     private final VCFFileReader reader;
+    private final GenomicRegionIndex regions;
+    private final SampleGenotypeDecoder sampleDecoder;
 
     public VcfGenotypedVariantParser(GenomicAssembly assembly, GenomeBuild genomeBuild, VCFFileReader reader) {
+        this(assembly, genomeBuild, reader, null);
+    }
+
+    /**
+     * @param regions the regions of the variants to parse or <code>null</code> if all variants should be parsed.
+     */
+    public VcfGenotypedVariantParser(GenomicAssembly assembly, GenomeBuild genomeBuild, VCFFileReader reader, GenomicRegionIndex regions) {
+        this(assembly, genomeBuild, reader, regions, null);
+    }
+
+    /**
+     * @param regions the regions of the variants to parse or <code>null</code> if all variants should be parsed.
+     * @param samples the samples of interest or <code>null</code> if the genotypes of all samples should be parsed.
+     *                Only the genotypes of the samples of interest are decoded, and the variants
+     *                not called in any sample of interest are skipped.
+     */
+    public VcfGenotypedVariantParser(GenomicAssembly assembly,
+                                     GenomeBuild genomeBuild,
+                                     VCFFileReader reader,
+                                     GenomicRegionIndex regions,
+                                     Collection<String> samples) {
         this.assembly = Objects.requireNonNull(assembly, "Assembly must not be null");
         this.genomeBuild = Objects.requireNonNull(genomeBuild, "Genome build must not be null");
         this.reader = Objects.requireNonNull(reader, "VCF reader must not be null");
+        this.regions = regions; // nullable
+        this.sampleDecoder = samples == null
+                ? null
+                : SampleGenotypeDecoder.of(reader.getFileHeader(), samples);
     }
 
     @Override
     public Iterator<GenotypedVariant> iterator() {
-        return new GenotypedVariantIterator(assembly, this.genomeBuild, reader.iterator());
+        return new GenotypedVariantIterator(assembly, this.genomeBuild, reader.iterator(), regions, sampleDecoder);
     }
 
 }
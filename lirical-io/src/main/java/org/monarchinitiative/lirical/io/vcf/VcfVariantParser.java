@@ -1,5 +1,7 @@
 package org.monarchinitiative.lirical.io.vcf;
 
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.IndexFactory;
 import htsjdk.variant.vcf.VCFFileReader;
 import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.lirical.core.model.LiricalVariant;
@@ -8,33 +10,113 @@ import org.monarchinitiative.lirical.core.service.VariantMetadataService;
 import org.monarchinitiative.lirical.core.io.GenotypedVariantParser;
 import org.monarchinitiative.lirical.core.io.VariantParser;
 import org.monarchinitiative.svart.assembly.GenomicAssembly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 class VcfVariantParser implements VariantParser {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(VcfVariantParser.class);
+
+    private final Path path;
+    private final GenomicAssembly genomicAssembly;
+    private final GenomeBuild genomeBuild;
     private final VCFFileReader reader;
     private final GenotypedVariantParser parser;
     private final FunctionalVariantAnnotator variantAnnotator;
     private final VariantMetadataService metadataService;
+    private final int annotationWorkers;
+    private final int lookupWorkers;
+    private final int contigWorkers;
+    private final GenomicRegionIndex regions;
+    private final SampleGenotypeDecoder sampleDecoder;
+    /**
+     * The pipelines are closed with the parser, in case the variants were not consumed until the end.
+     */
+    private final List<AutoCloseable> pipelines = new ArrayList<>();
 
+    /**
+     * @param annotationWorkers the number of variant annotation workers or <code>0</code> if the variants should be
+     *                          annotated on the thread that consumes the variants.
+     * @param lookupWorkers the number of metadata lookup workers, ignored if <code>annotationWorkers</code> is <code>0</code>.
+     * @param contigWorkers the number of workers that read the contigs of an indexed VCF file concurrently or <code>0</code>
+     *                      if the VCF file should be read sequentially.
+     * @param regions the regions of the variants to read or <code>null</code> if all variants should be read.
+     * @param samples the samples of interest or <code>null</code> if the genotypes of all samples should be read.
+     */
     VcfVariantParser(Path path,
                      GenomicAssembly genomicAssembly,
                      GenomeBuild genomeBuild,
                      FunctionalVariantAnnotator variantAnnotator,
-                     VariantMetadataService metadataService) {
-        this.reader = new VCFFileReader(Objects.requireNonNull(path), false);;
-        this.parser = new VcfGenotypedVariantParser(genomicAssembly, genomeBuild, reader);
+                     VariantMetadataService metadataService,
+                     int annotationWorkers,
+                     int lookupWorkers,
+                     int contigWorkers,
+                     GenomicRegionIndex regions,
+                     Collection<String> samples) {
+        this.path = Objects.requireNonNull(path);
+        this.genomicAssembly = Objects.requireNonNull(genomicAssembly);
+        this.genomeBuild = Objects.requireNonNull(genomeBuild);
+        this.reader = new VCFFileReader(Objects.requireNonNull(path), false);
+        this.sampleDecoder = samples == null
+                ? null
+                : SampleGenotypeDecoder.of(reader.getFileHeader(), samples);
+        this.parser = new VcfGenotypedVariantParser(genomicAssembly, genomeBuild, reader, regions, samples);
         this.variantAnnotator = Objects.requireNonNull(variantAnnotator, "Variant annotator must not be null!");
         this.metadataService = Objects.requireNonNull(metadataService, "Variant metadata service must not be null!");
+        this.annotationWorkers = annotationWorkers;
+        this.lookupWorkers = lookupWorkers;
+        this.contigWorkers = contigWorkers;
+        this.regions = regions; // nullable
     }
 
     @Override
     public Iterator<LiricalVariant> iterator() {
-        return new LiricalVariantIterator(parser.iterator(), variantAnnotator, metadataService);
+        if (contigWorkers > 0) {
+            Optional<List<String>> contigs = indexedContigs(path);
+            if (contigs.isPresent())
+                return register(new ContigParallelLiricalVariantIterator(path, genomicAssembly, genomeBuild,
+                        variantAnnotator, metadataService, contigsWithRegions(contigs.get()), regions, sampleDecoder, contigWorkers));
+            LOGGER.debug("Reading the VCF file sequentially since the index was not found for {}", path.toAbsolutePath());
+        }
+
+        if (annotationWorkers == 0)
+            return new LiricalVariantIterator(parser.iterator(), variantAnnotator, metadataService);
+
+        return register(new PipelinedLiricalVariantIterator(parser.iterator(),
+                variantAnnotator, metadataService, annotationWorkers, lookupWorkers));
+    }
+
+    private <T extends AutoCloseable> T register(T pipeline) {
+        synchronized (pipelines) {
+            pipelines.add(pipeline);
+        }
+        return pipeline;
+    }
+
+    /**
+     * @return the contigs of the tabix or tribble index of the VCF file or an empty optional if the file is not indexed.
+     */
+    private static Optional<List<String>> indexedContigs(Path path) {
+        for (Path index : List.of(Tribble.tabixIndexPath(path), Tribble.indexPath(path))) {
+            if (Files.isRegularFile(index))
+                return Optional.of(IndexFactory.loadIndex(index.toString()).getSequenceNames());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the contigs that may contain the variants to read, the contigs without regions are skipped.
+     */
+    private List<String> contigsWithRegions(List<String> contigs) {
+        if (regions == null)
+            return contigs;
+        return contigs.stream()
+                .filter(contig -> regions.hasRegions(genomicAssembly.contigByName(contig)))
+                .toList();
     }
 
     @Override
@@ -44,6 +126,11 @@ class VcfVariantParser implements VariantParser {
 
     @Override
     public void close() throws Exception {
+        synchronized (pipelines) {
+            for (AutoCloseable pipeline : pipelines)
+                pipeline.close();
+            pipelines.clear();
+        }
         reader.close();
     }
 }
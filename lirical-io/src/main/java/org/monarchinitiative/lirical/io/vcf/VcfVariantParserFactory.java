@@ -7,6 +7,7 @@ import org.monarchinitiative.lirical.core.io.VariantParserFactory;
 import org.monarchinitiative.svart.assembly.GenomicAssembly;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Objects;
 
 public class VcfVariantParserFactory implements VariantParserFactory {
@@ -14,19 +15,71 @@ public class VcfVariantParserFactory implements VariantParserFactory {
     private final GenomicAssembly genomicAssembly;
     private final FunctionalVariantAnnotator variantAnnotator;
     private final VariantMetadataService metadataService;
+    private final int annotationWorkers;
+    private final int lookupWorkers;
+    private final int contigWorkers;
+    private final GenomicRegionIndex regions;
 
+    /**
+     * Create the factory for parsers that decode, annotate, and look up the variants on the consumer thread.
+     */
     public static VcfVariantParserFactory of(GenomicAssembly genomicAssembly,
                                              FunctionalVariantAnnotator variantAnnotator,
                                              VariantMetadataService metadataService) {
-        return new VcfVariantParserFactory(genomicAssembly, variantAnnotator, metadataService);
+        return new VcfVariantParserFactory(genomicAssembly, variantAnnotator, metadataService, 0, 0, 0, null);
+    }
+
+    /**
+     * Create the factory for parsers that decode the VCF records on a reader thread, and annotate and look up
+     * the variants in pools of workers. The parsers return the variants in the order of the VCF file.
+     * The variant annotator and the metadata service must be thread-safe.
+     *
+     * @param annotationWorkers the number of workers for annotating the variants, a positive integer.
+     * @param lookupWorkers the number of workers for looking up the variant metadata, a positive integer.
+     */
+    public static VcfVariantParserFactory of(GenomicAssembly genomicAssembly,
+                                             FunctionalVariantAnnotator variantAnnotator,
+                                             VariantMetadataService metadataService,
+                                             int annotationWorkers,
+                                             int lookupWorkers) {
+        if (annotationWorkers <= 0)
+            throw new IllegalArgumentException("The number of annotation workers must be positive: " + annotationWorkers);
+        if (lookupWorkers <= 0)
+            throw new IllegalArgumentException("The number of lookup workers must be positive: " + lookupWorkers);
+        return new VcfVariantParserFactory(genomicAssembly, variantAnnotator, metadataService, annotationWorkers, lookupWorkers, 0, null);
+    }
+
+    /**
+     * Create the factory for parsers that read the contigs of a VCF file with a tabix or tribble index concurrently.
+     * Each worker reads, annotates, and looks up the variants of a contig through its own reader. The parsers return
+     * the variants in the order of the index, and read the VCF files without an index on the consumer thread.
+     * The variant annotator and the metadata service must be thread-safe.
+     *
+     * @param contigWorkers the number of workers for reading the contigs, a positive integer.
+     */
+    public static VcfVariantParserFactory contigParallel(GenomicAssembly genomicAssembly,
+                                                         FunctionalVariantAnnotator variantAnnotator,
+                                                         VariantMetadataService metadataService,
+                                                         int contigWorkers) {
+        if (contigWorkers <= 0)
+            throw new IllegalArgumentException("The number of contig workers must be positive: " + contigWorkers);
+        return new VcfVariantParserFactory(genomicAssembly, variantAnnotator, metadataService, 0, 0, contigWorkers, null);
     }
 
     private VcfVariantParserFactory(GenomicAssembly genomicAssembly,
                                    FunctionalVariantAnnotator variantAnnotator,
-                                   VariantMetadataService metadataService) {
+                                   VariantMetadataService metadataService,
+                                   int annotationWorkers,
+                                   int lookupWorkers,
+                                   int contigWorkers,
+                                   GenomicRegionIndex regions) {
         this.genomicAssembly = Objects.requireNonNull(genomicAssembly);
         this.variantAnnotator = Objects.requireNonNull(variantAnnotator, "Variant annotator must not be null!");
         this.metadataService = Objects.requireNonNull(metadataService);
+        this.annotationWorkers = annotationWorkers;
+        this.lookupWorkers = lookupWorkers;
+        this.contigWorkers = contigWorkers;
+        this.regions = regions; // nullable
     }
 
     @Override
@@ -36,6 +89,28 @@ public class VcfVariantParserFactory implements VariantParserFactory {
 
     @Override
     public VariantParser forPath(Path path) {
-        return new VcfVariantParser(path, genomicAssembly, genomeBuild(), variantAnnotator, metadataService);
+        return new VcfVariantParser(path, genomicAssembly, genomeBuild(), variantAnnotator, metadataService,
+                annotationWorkers, lookupWorkers, contigWorkers, regions, null);
+    }
+
+    /**
+     * Get a parser that only decodes the genotypes of the <code>samples</code>, and skips the variants
+     * where all samples are homozygous reference or have no call.
+     */
+    @Override
+    public VariantParser forPath(Path path, Collection<String> samples) {
+        return new VcfVariantParser(path, genomicAssembly, genomeBuild(), variantAnnotator, metadataService,
+                annotationWorkers, lookupWorkers, contigWorkers, regions, Objects.requireNonNull(samples));
+    }
+
+    /**
+     * Get a factory for parsers that only read the variants that overlap the <code>regions</code>,
+     * e.g. the regions of the disease-associated genes. The other VCF records are skipped before decoding
+     * the genotypes, and before annotating and looking up the variants. The contigs without regions are not read
+     * from the indexed VCF files by the contig-parallel parsers.
+     */
+    public VcfVariantParserFactory withRegions(GenomicRegionIndex regions) {
+        return new VcfVariantParserFactory(genomicAssembly, variantAnnotator, metadataService,
+                annotationWorkers, lookupWorkers, contigWorkers, Objects.requireNonNull(regions));
     }
 }
@@ -0,0 +1,119 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.Tribble;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.monarchinitiative.lirical.core.io.VariantParser;
+import org.monarchinitiative.lirical.core.model.ClinvarClnSig;
+import org.monarchinitiative.lirical.core.model.GenomeBuild;
+import org.monarchinitiative.lirical.core.model.LiricalVariant;
+import org.monarchinitiative.lirical.core.model.VariantMetadata;
+import org.monarchinitiative.lirical.core.service.FunctionalVariantAnnotator;
+import org.monarchinitiative.lirical.core.service.VariantMetadataService;
+import org.monarchinitiative.svart.assembly.GenomicAssemblies;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ContigParallelLiricalVariantIteratorTest {
+
+    private static final GenomicAssembly GENOMIC_ASSEMBLY = GenomicAssemblies.GRCh38p13();
+
+    private static final String VCF = """
+            ##fileformat=VCFv4.2
+            #CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO	FORMAT	Holly	Walt
+            1	1000	a	G	T	100	PASS	.	GT	0/1	1/1
+            1	2000	b	T	C,G	100	PASS	.	GT	1/2	0/1
+            9	133357000	c	G	T	100	PASS	.	GT	0/1	0/0
+            9	133357010	d	T	TT	100	FAIL	.	GT	1/1	0/1
+            X	5000	e	A	C	100	PASS	.	GT	0/1	./.
+            Y	5000	f	A	G	100	PASS	.	GT	1/1	0/1
+            """;
+
+    private static final FunctionalVariantAnnotator ANNOTATOR = variant -> List.of();
+
+    private static final VariantMetadataService METADATA_SERVICE = (variant, effects) ->
+            VariantMetadata.of(variant.start() / 1E9F, 0.5F, ClinvarClnSig.NOT_PROVIDED);
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    public void contigParallelParserReturnsTheVariantsInFileOrder() throws Exception {
+        Path vcf = tempDir.resolve("example.vcf");
+        Files.writeString(vcf, VCF);
+        Path indexed = writeIndexedVcf(tempDir.resolve("example.vcf.gz"));
+
+        List<LiricalVariant> expected = readVariants(VcfVariantParserFactory.of(GENOMIC_ASSEMBLY, ANNOTATOR, METADATA_SERVICE), vcf);
+        List<LiricalVariant> actual = readVariants(VcfVariantParserFactory.contigParallel(GENOMIC_ASSEMBLY, ANNOTATOR, METADATA_SERVICE, 3), indexed);
+
+        assertThat(expected, hasSize(7));
+        assertThat(actual, hasSize(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            LiricalVariant e = expected.get(i);
+            LiricalVariant a = actual.get(i);
+            assertThat(a.variant().contigName(), equalTo(e.variant().contigName()));
+            assertThat(a.variant().start(), equalTo(e.variant().start()));
+            assertThat(a.variant().alt(), equalTo(e.variant().alt()));
+            assertThat(a.alleleCount("Holly"), equalTo(e.alleleCount("Holly")));
+            assertThat(a.passedFilters(), equalTo(e.passedFilters()));
+            assertThat(a.frequency(), equalTo(e.frequency()));
+        }
+    }
+
+    @Test
+    public void contigParallelParserReadsVcfWithoutIndexSequentially() throws Exception {
+        Path vcf = tempDir.resolve("example.vcf");
+        Files.writeString(vcf, VCF);
+
+        List<LiricalVariant> variants = readVariants(VcfVariantParserFactory.contigParallel(GENOMIC_ASSEMBLY, ANNOTATOR, METADATA_SERVICE, 3), vcf);
+
+        assertThat(variants.stream().map(v -> v.variant().id()).toList(), equalTo(List.of("a", "b", "b", "c", "d", "e", "f")));
+    }
+
+    /**
+     * The contigs with more variants than the capacity of the contig queues are streamed to the consumer.
+     */
+    @Test
+    public void contigsLargerThanTheQueuesAreStreamed() throws Exception {
+        Path vcf = tempDir.resolve("example.vcf");
+        Files.writeString(vcf, VCF);
+        Path indexed = writeIndexedVcf(tempDir.resolve("example.vcf.gz"));
+
+        List<LiricalVariant> variants = new ArrayList<>();
+        try (ContigParallelLiricalVariantIterator iterator = new ContigParallelLiricalVariantIterator(indexed, GENOMIC_ASSEMBLY,
+                GenomeBuild.HG38, ANNOTATOR, METADATA_SERVICE, List.of("1", "9", "X", "Y"), null, null, 2, 1)) {
+            iterator.forEachRemaining(variants::add);
+        }
+
+        assertThat(variants.stream().map(v -> v.variant().id()).toList(), equalTo(List.of("a", "b", "b", "c", "d", "e", "f")));
+    }
+
+    private static List<LiricalVariant> readVariants(VcfVariantParserFactory factory, Path path) throws Exception {
+        try (VariantParser parser = factory.forPath(path)) {
+            return parser.variantStream().toList();
+        }
+    }
+
+    private static Path writeIndexedVcf(Path path) throws IOException {
+        try (OutputStream os = new BlockCompressedOutputStream(path.toFile())) {
+            os.write(VCF.getBytes(StandardCharsets.UTF_8));
+        }
+        IndexFactory.createTabixIndex(path, new VCFCodec(), TabixFormat.VCF, null)
+                .write(Tribble.tabixIndexPath(path));
+        return path;
+    }
+}
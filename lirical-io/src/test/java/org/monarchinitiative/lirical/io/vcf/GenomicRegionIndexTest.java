@@ -0,0 +1,55 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.monarchinitiative.svart.Contig;
+import org.monarchinitiative.svart.CoordinateSystem;
+import org.monarchinitiative.svart.GenomicRegion;
+import org.monarchinitiative.svart.Strand;
+import org.monarchinitiative.svart.assembly.GenomicAssemblies;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class GenomicRegionIndexTest {
+
+    private static final GenomicAssembly GENOMIC_ASSEMBLY = GenomicAssemblies.GRCh38p13();
+    private static final Contig CHR1 = GENOMIC_ASSEMBLY.contigByName("1");
+    private static final Contig CHR2 = GENOMIC_ASSEMBLY.contigByName("2");
+
+    private static final GenomicRegionIndex INDEX = GenomicRegionIndex.of(List.of(
+            GenomicRegion.of(CHR1, Strand.POSITIVE, CoordinateSystem.oneBased(), 300, 400),
+            GenomicRegion.of(CHR1, Strand.POSITIVE, CoordinateSystem.oneBased(), 100, 200),
+            GenomicRegion.of(CHR1, Strand.POSITIVE, CoordinateSystem.oneBased(), 150, 250),
+            // A region on the negative strand spans the same bases on the positive strand.
+            GenomicRegion.of(CHR1, Strand.POSITIVE, CoordinateSystem.oneBased(), 1_000, 1_100).withStrand(Strand.NEGATIVE)));
+
+    @Test
+    public void regionsAreMerged() {
+        assertThat(INDEX.size(), equalTo(3));
+        assertThat(INDEX.hasRegions(CHR1), equalTo(true));
+        assertThat(INDEX.hasRegions(CHR2), equalTo(false));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1,    99,   false",
+            "1,    100,  true",
+            "90,   100,  true",
+            "250,  250,  true",
+            "251,  299,  false",
+            "251,  300,  true",
+            "240,  320,  true",
+            "401,  999,  false",
+            "1050, 1050, true",
+            "1101, 2000, false",
+    })
+    public void overlaps(int start, int end, boolean expected) {
+        assertThat(INDEX.overlaps(CHR1, start, end), equalTo(expected));
+        assertThat(INDEX.overlaps(CHR2, start, end), equalTo(false));
+    }
+}
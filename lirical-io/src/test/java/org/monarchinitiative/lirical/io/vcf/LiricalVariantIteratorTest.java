@@ -0,0 +1,71 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import org.junit.jupiter.api.Test;
+import org.monarchinitiative.lirical.core.model.*;
+import org.monarchinitiative.lirical.core.service.VariantMetadataService;
+import org.monarchinitiative.svart.*;
+import org.monarchinitiative.svart.assembly.GenomicAssemblies;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LiricalVariantIteratorTest {
+
+    private static final GenomicAssembly GENOMIC_ASSEMBLY = GenomicAssemblies.GRCh38p13();
+
+    private static final VariantMetadata METADATA = VariantMetadata.of(0.01F, 0.9F, ClinvarClnSig.NOT_PROVIDED);
+
+    private static GenotypedVariant genotypedVariant(Map<String, AlleleCount> genotypes) {
+        Contig contig = GENOMIC_ASSEMBLY.contigByName("9");
+        GenomicVariant variant = GenomicVariant.of(contig, "", Strand.POSITIVE, CoordinateSystem.oneBased(), 133_357_000, "G", "T");
+        return GenotypedVariant.of(GenomeBuild.HG38, variant, genotypes, true);
+    }
+
+    @Test
+    public void lookUpMetadataOfVariantCarriedBySample() {
+        VariantMetadataService metadataService = mock(VariantMetadataService.class);
+        when(metadataService.metadata(any(), any())).thenReturn(METADATA);
+        GenotypedVariant gv = genotypedVariant(Map.of("Holly", AlleleCount.of((byte) 2, (byte) 0), "Walt", AlleleCount.oneOne()));
+
+        LiricalVariant variant = LiricalVariantIterator.lookUpMetadata(gv, List.of(), metadataService);
+
+        assertThat(variant.pathogenicity(), equalTo(METADATA.pathogenicity()));
+        verify(metadataService).metadata(gv.variant(), List.of());
+    }
+
+    @Test
+    public void lookUpMetadataOfVariantWithoutGenotypes() {
+        VariantMetadataService metadataService = mock(VariantMetadataService.class);
+        when(metadataService.metadata(any(), any())).thenReturn(METADATA);
+        GenotypedVariant gv = genotypedVariant(Map.of());
+
+        LiricalVariant variant = LiricalVariantIterator.lookUpMetadata(gv, List.of(), metadataService);
+
+        assertThat(variant.pathogenicity(), equalTo(METADATA.pathogenicity()));
+        verify(metadataService).metadata(gv.variant(), List.of());
+    }
+
+    /**
+     * The variants are reported even if no sample carries them, hence their metadata must be looked up too.
+     */
+    @Test
+    public void lookUpMetadataOfVariantNotCarriedByAnySample() {
+        VariantMetadataService metadataService = mock(VariantMetadataService.class);
+        when(metadataService.metadata(any(), any())).thenReturn(METADATA);
+        GenotypedVariant gv = genotypedVariant(Map.of("Holly", AlleleCount.of((byte) 2, (byte) 0)));
+
+        LiricalVariant variant = LiricalVariantIterator.lookUpMetadata(gv, List.of(), metadataService);
+
+        assertThat(variant.alleleCount("Holly").map(AlleleCount::alt), equalTo(Optional.of((byte) 0)));
+        assertThat(variant.frequency(), equalTo(METADATA.frequency()));
+        assertThat(variant.pathogenicity(), equalTo(METADATA.pathogenicity()));
+        verify(metadataService).metadata(gv.variant(), List.of());
+    }
+}
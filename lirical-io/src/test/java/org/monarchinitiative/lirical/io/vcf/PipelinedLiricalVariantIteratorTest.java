@@ -0,0 +1,164 @@
+package org.monarchinitiative.lirical.io.vcf;
+
+import htsjdk.variant.vcf.VCFFileReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.monarchinitiative.lirical.core.model.ClinvarClnSig;
+import org.monarchinitiative.lirical.core.model.GenomeBuild;
+import org.monarchinitiative.lirical.core.model.GenotypedVariant;
+import org.monarchinitiative.lirical.core.model.LiricalVariant;
+import org.monarchinitiative.lirical.core.model.VariantMetadata;
+import org.monarchinitiative.lirical.core.service.FunctionalVariantAnnotator;
+import org.monarchinitiative.lirical.core.service.VariantMetadataService;
+import org.monarchinitiative.lirical.io.TestResources;
+import org.monarchinitiative.svart.assembly.GenomicAssemblies;
+import org.monarchinitiative.svart.assembly.GenomicAssembly;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PipelinedLiricalVariantIteratorTest {
+
+    private static final GenomicAssembly GENOMIC_ASSEMBLY = GenomicAssemblies.GRCh38p13();
+
+    private static final Path VCF_PATH = TestResources.LIRICAL_TEST_BASE.resolve("vcf").resolve("multiSample.vcf");
+
+    /**
+     * Annotates the variants after a random delay, hence the workers complete the variants out of order.
+     */
+    private static final FunctionalVariantAnnotator ANNOTATOR = variant -> {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextInt(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return List.of();
+    };
+
+    private static final VariantMetadataService METADATA_SERVICE = (variant, effects) ->
+            VariantMetadata.of(variant.start() / 1E9F, 0.5F, ClinvarClnSig.NOT_PROVIDED);
+
+    private VCFFileReader reader;
+
+    @BeforeEach
+    public void setUp() {
+        reader = new VCFFileReader(VCF_PATH, false);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reader.close();
+    }
+
+    @Test
+    public void pipelineKeepsTheOrderOfTheVariants() {
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader);
+        List<LiricalVariant> expected = drain(new LiricalVariantIterator(parser.iterator(), ANNOTATOR, METADATA_SERVICE));
+
+        List<LiricalVariant> actual;
+        try (PipelinedLiricalVariantIterator pipeline = new PipelinedLiricalVariantIterator(parser.iterator(), ANNOTATOR, METADATA_SERVICE, 4, 2)) {
+            actual = drain(pipeline);
+        }
+
+        assertThat(actual, hasSize(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            LiricalVariant e = expected.get(i);
+            LiricalVariant a = actual.get(i);
+            assertThat(a.variant().start(), equalTo(e.variant().start()));
+            assertThat(a.variant().ref(), equalTo(e.variant().ref()));
+            assertThat(a.variant().alt(), equalTo(e.variant().alt()));
+            assertThat(a.alleleCount("Walt"), equalTo(e.alleleCount("Walt")));
+            assertThat(a.frequency(), equalTo(e.frequency()));
+        }
+    }
+
+    @Test
+    public void closingPipelineBeforeTheEnd() {
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader);
+
+        PipelinedLiricalVariantIterator pipeline = new PipelinedLiricalVariantIterator(parser.iterator(), ANNOTATOR, METADATA_SERVICE, 1, 1);
+        assertThat(pipeline.hasNext(), equalTo(true));
+        assertThat(pipeline.next(), is(notNullValue()));
+        pipeline.close();
+    }
+
+    @Test
+    @Timeout(10)
+    public void errorOfTheReaderIsReportedToTheConsumer() {
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader);
+        Iterator<GenotypedVariant> variants = parser.iterator();
+        Iterator<GenotypedVariant> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public GenotypedVariant next() {
+                if (variants.hasNext())
+                    return variants.next();
+                throw new AssertionError("Reader failed");
+            }
+        };
+
+        try (PipelinedLiricalVariantIterator pipeline = new PipelinedLiricalVariantIterator(failing, ANNOTATOR, METADATA_SERVICE, 2, 1)) {
+            AssertionError error = assertThrows(AssertionError.class, () -> drain(pipeline));
+            assertThat(error.getMessage(), equalTo("Reader failed"));
+            assertThat(pipeline.hasNext(), equalTo(false));
+        }
+    }
+
+    /**
+     * The reader must not be decoding a record after closing the pipeline, the VCF reader is closed afterwards.
+     */
+    @Test
+    @Timeout(10)
+    public void closeWaitsForTheReader() throws InterruptedException {
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader);
+        Iterator<GenotypedVariant> variants = parser.iterator();
+        CountDownLatch decodingStarted = new CountDownLatch(1);
+        AtomicBoolean decoding = new AtomicBoolean();
+        Iterator<GenotypedVariant> slow = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return variants.hasNext();
+            }
+
+            @Override
+            public GenotypedVariant next() {
+                decoding.set(true);
+                decodingStarted.countDown();
+                // Decode the record without responding to the interrupt, like htsjdk does.
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                while (System.nanoTime() < end)
+                    Thread.onSpinWait();
+                decoding.set(false);
+                return variants.next();
+            }
+        };
+
+        PipelinedLiricalVariantIterator pipeline = new PipelinedLiricalVariantIterator(slow, ANNOTATOR, METADATA_SERVICE, 1, 1);
+        decodingStarted.await();
+        pipeline.close();
+
+        assertThat(decoding.get(), equalTo(false));
+    }
+
+    private static List<LiricalVariant> drain(Iterator<LiricalVariant> iterator) {
+        List<LiricalVariant> variants = new ArrayList<>();
+        iterator.forEachRemaining(variants::add);
+        return variants;
+    }
+}
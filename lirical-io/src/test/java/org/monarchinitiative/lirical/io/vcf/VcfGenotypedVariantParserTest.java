@@ -4,13 +4,21 @@ import htsjdk.variant.vcf.VCFFileReader;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.monarchinitiative.lirical.core.model.AlleleCount;
 import org.monarchinitiative.lirical.core.model.GenomeBuild;
 import org.monarchinitiative.lirical.core.model.GenotypedVariant;
 import org.monarchinitiative.lirical.io.TestResources;
+import org.monarchinitiative.svart.Contig;
+import org.monarchinitiative.svart.CoordinateSystem;
+import org.monarchinitiative.svart.GenomicRegion;
+import org.monarchinitiative.svart.Strand;
 import org.monarchinitiative.svart.assembly.GenomicAssemblies;
 import org.monarchinitiative.svart.assembly.GenomicAssembly;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -79,4 +87,56 @@ public class VcfGenotypedVariantParserTest {
         assertThat(d.passedFilters(), equalTo(false));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void variantStreamWithRegions() {
+        Contig chr9 = GENOMIC_ASSEMBLY.contigByName("9");
+        GenomicRegionIndex regions = GenomicRegionIndex.of(List.of(
+                GenomicRegion.of(chr9, Strand.POSITIVE, CoordinateSystem.oneBased(), 133_357_005, 133_357_015),
+                GenomicRegion.of(chr9, Strand.POSITIVE, CoordinateSystem.oneBased(), 133_357_030, 133_357_030)));
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader, regions);
+
+        List<GenotypedVariant> variants = parser.variantStream().toList();
+
+        assertThat(variants.stream().map(v -> v.variant().id()).toList(), equalTo(List.of("b", "d")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Holly", "Walt", "Skyler"})
+    public void variantStreamOfSample(String sample) {
+        assertSampleVariantsMatchAllVariants(reader, sample);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Holly", "Walt", "Skyler"})
+    public void variantStreamOfSampleWithUnusualGenotypes(String sample, @TempDir Path tempDir) throws Exception {
+        // htsjdk decodes the genotypes lazily if the sample names are sorted.
+        Path vcf = tempDir.resolve("unusual.vcf");
+        Files.writeString(vcf, """
+                ##fileformat=VCFv4.2
+                #CHROM	POS	ID	REF	ALT	QUAL	FILTER	INFO	FORMAT	Holly	Skyler	Walt
+                9	133357000	u1	G	T,GA	100	PASS	.	GT:DP	2|1:33	.:33	./1:33
+                9	133357010	u2	T	TT	100	PASS	.	GT	1	./.	0
+                9	133357020	u3	T	C	100	PASS	.	DP	21	40	33
+                9	133357030	u4	T	C,G,A	100	PASS	.	GT:DP	0/3	1/0/3:4	2/2:1
+                """);
+        try (VCFFileReader unusual = new VCFFileReader(vcf, false)) {
+            assertSampleVariantsMatchAllVariants(unusual, sample);
+        }
+    }
+
+    private static void assertSampleVariantsMatchAllVariants(VCFFileReader reader, String sample) {
+        List<GenotypedVariant> all = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader).variantStream().toList();
+        VcfGenotypedVariantParser parser = new VcfGenotypedVariantParser(GENOMIC_ASSEMBLY, GenomeBuild.HG38, reader, null, List.of(sample));
+
+        List<GenotypedVariant> variants = parser.variantStream().toList();
+
+        // The variants where the sample is homozygous reference or has no call are retained.
+        assertThat(variants, hasSize(all.size()));
+        for (int i = 0; i < all.size(); i++) {
+            assertThat(variants.get(i).variant(), equalTo(all.get(i).variant()));
+            assertThat(variants.get(i).sampleNames(), everyItem(equalTo(sample)));
+            assertThat(variants.get(i).alleleCount(sample), equalTo(all.get(i).alleleCount(sample)));
+        }
+    }
+}